@@ -0,0 +1,8 @@
+package com.example.kafka.backend;
+
+public class BackendUnavailableException extends RuntimeException {
+
+    public BackendUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,248 @@
+package com.example.kafka.backend;
+
+import com.example.kafka.model.Order;
+import com.example.kafka.model.OrderItem;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Coalesces inventory reservations of concurrent orders: requests are collected for up to
+ * {@code window-ms} (or until {@code max-batch-size} orders), their units are summed per product
+ * and reserved with one {@link InventoryClient#reserve} call. The reserved units are then handed
+ * to the orders in arrival order - an order is reserved only if all of its items fit - and
+ * whatever is left over is released in one {@link InventoryClient#release} call.
+ *
+ * <p>When {@code max-concurrent-batches} batches are running and as many are queued, further
+ * batches are shed: their reservations fail with {@link BackendUnavailableException} and the
+ * callers send the orders to the retry topic.
+ *
+ * <p>Reservations are idempotent per orderId: while the reservation of an order is pending or
+ * succeeded (among the last {@value #MAX_TRACKED_ORDERS} orders), reserving it again returns the
+ * same result instead of reserving the units twice, e.g. when a record is replayed. A failed or
+ * {@linkplain #abandon abandoned} reservation can be attempted again.
+ */
+@Slf4j
+@Component
+public class CoalescingInventoryReserver {
+
+    private static final int MAX_TRACKED_ORDERS = 100_000;
+
+    private final InventoryClient inventoryClient;
+    private final BlockingQueue<PendingReservation> pending;
+    private final ExecutorService batchExecutor;
+    private final Thread collector;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final DistributionSummary batchOrders;
+    private final DistributionSummary batchProducts;
+    private final Counter batchesShed;
+    private final int maxConcurrentBatches;
+    private final Map<String, CompletableFuture<Boolean>> reservations = new LinkedHashMap<>(16, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<Boolean>> eldest) {
+            return size() > MAX_TRACKED_ORDERS;
+        }
+    };
+    private volatile boolean running = true;
+
+    public CoalescingInventoryReserver(
+            InventoryClient inventoryClient,
+            @Value("${app.inventory.batch.window-ms:10}") long windowMs,
+            @Value("${app.inventory.batch.max-batch-size:500}") int maxBatchSize,
+            @Value("${app.inventory.batch.max-pending:5000}") int maxPending,
+            @Value("${app.inventory.batch.max-concurrent-batches:4}") int maxConcurrentBatches,
+            MeterRegistry meterRegistry) {
+        this.inventoryClient = inventoryClient;
+        this.pending = new ArrayBlockingQueue<>(maxPending);
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        this.maxBatchSize = maxBatchSize;
+        this.maxConcurrentBatches = maxConcurrentBatches;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        // At most one batch waits per running batch; beyond that batches are shed (see collect()),
+        // so the collector never makes backend calls itself.
+        this.batchExecutor = new ThreadPoolExecutor(maxConcurrentBatches, maxConcurrentBatches, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(maxConcurrentBatches),
+                runnable -> new Thread(runnable, "inventory-batch-" + threadCount.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.batchOrders = DistributionSummary.builder("inventory.batch.orders").register(meterRegistry);
+        this.batchProducts = DistributionSummary.builder("inventory.batch.products").register(meterRegistry);
+        this.batchesShed = Counter.builder("inventory.batch.shed").register(meterRegistry);
+
+        this.collector = new Thread(this::collect, "inventory-coalescer");
+        this.collector.setDaemon(true);
+        this.collector.start();
+    }
+
+    /**
+     * Queues the order for the next batch, blocking while {@code max-pending} reservations are
+     * already waiting.
+     *
+     * @return completes with {@code true} once all items of the order are reserved,
+     * {@code false} if one of them is out of stock
+     */
+    public CompletableFuture<Boolean> reserve(Order order) throws InterruptedException {
+        PendingReservation reservation = new PendingReservation(order);
+        synchronized (reservations) {
+            CompletableFuture<Boolean> previous = reservations.get(order.getOrderId());
+            if (previous != null && !previous.isCompletedExceptionally()) {
+                return previous;
+            }
+            reservations.put(order.getOrderId(), reservation.result);
+        }
+        reservation.result.whenComplete((reserved, ex) -> {
+            if (ex != null) {
+                forget(order.getOrderId(), reservation.result);
+            }
+        });
+
+        try {
+            pending.put(reservation);
+        } catch (InterruptedException e) {
+            forget(order.getOrderId(), reservation.result);
+            throw e;
+        }
+        return reservation.result;
+    }
+
+    /**
+     * Gives up on the reservation of the order, e.g. when the caller stopped waiting for it: it is
+     * forgotten, so reserving the order again starts a new one, and if it still succeeds its units
+     * are released on {@code executor}.
+     */
+    public void abandon(Order order, Executor executor) {
+        CompletableFuture<Boolean> reservation;
+        synchronized (reservations) {
+            reservation = reservations.remove(order.getOrderId());
+        }
+        if (reservation == null) {
+            return;
+        }
+
+        Map<String, Integer> units = new PendingReservation(order).units;
+        reservation.thenAcceptAsync(reserved -> {
+            if (reserved) {
+                log.warn("↩️ Releasing inventory reserved too late: orderId={}", order.getOrderId());
+                inventoryClient.release(units);
+            }
+        }, executor).exceptionally(ex -> {
+            if (!reservation.isCompletedExceptionally()) {
+                log.error("❌ Failed to release abandoned inventory: orderId={}, units={}, error={}",
+                        order.getOrderId(), units, ex.getMessage());
+            }
+            return null;
+        });
+    }
+
+    private void forget(String orderId, CompletableFuture<Boolean> reservation) {
+        synchronized (reservations) {
+            reservations.remove(orderId, reservation);
+        }
+    }
+
+    private void collect() {
+        while (running) {
+            try {
+                PendingReservation first = pending.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                List<PendingReservation> batch = new ArrayList<>();
+                batch.add(first);
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingReservation next = remaining > 0 ? pending.poll(remaining, TimeUnit.NANOSECONDS) : pending.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                try {
+                    batchExecutor.execute(() -> execute(batch));
+                } catch (RejectedExecutionException e) {
+                    batchesShed.increment();
+                    log.warn("⚠️ Inventory backend saturated, shedding batch of {} orders", batch.size());
+                    BackendUnavailableException shed = new BackendUnavailableException(
+                            "inventory batch shed: " + maxConcurrentBatches + " batches running and queued");
+                    batch.forEach(reservation -> reservation.result.completeExceptionally(shed));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void execute(List<PendingReservation> batch) {
+        Map<String, Integer> requested = new HashMap<>();
+        for (PendingReservation reservation : batch) {
+            reservation.units.forEach((productId, units) -> requested.merge(productId, units, Integer::sum));
+        }
+
+        batchOrders.record(batch.size());
+        batchProducts.record(requested.size());
+
+        Map<String, Integer> remaining;
+        try {
+            remaining = new HashMap<>(inventoryClient.reserve(requested));
+        } catch (Exception e) {
+            batch.forEach(reservation -> reservation.result.completeExceptionally(e));
+            return;
+        }
+
+        for (PendingReservation reservation : batch) {
+            boolean fits = reservation.units.entrySet().stream()
+                    .allMatch(item -> remaining.getOrDefault(item.getKey(), 0) >= item.getValue());
+            if (fits) {
+                reservation.units.forEach((productId, units) -> remaining.merge(productId, -units, Integer::sum));
+            }
+            reservation.result.complete(fits);
+        }
+
+        log.debug("📦 Inventory batch: orders={}, products={}", batch.size(), requested.size());
+
+        remaining.values().removeIf(units -> units <= 0);
+        if (!remaining.isEmpty()) {
+            try {
+                inventoryClient.release(remaining);
+            } catch (Exception e) {
+                log.error("❌ Failed to release unused inventory: units={}, error={}", remaining, e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        collector.interrupt();
+        batchExecutor.shutdown();
+    }
+
+    private static class PendingReservation {
+        private final Map<String, Integer> units = new HashMap<>();
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        PendingReservation(Order order) {
+            for (OrderItem item : order.getItems()) {
+                units.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+            }
+        }
+    }
+}
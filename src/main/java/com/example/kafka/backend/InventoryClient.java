@@ -0,0 +1,24 @@
+package com.example.kafka.backend;
+
+import java.util.Map;
+
+/**
+ * Stock service used by {@code InventoryConsumer}. Operations are bulk so that concurrent orders
+ * for the same products can share a single call.
+ */
+public interface InventoryClient {
+
+    /**
+     * Reserves up to the requested number of units of each product.
+     *
+     * @param requestedUnits units wanted per productId
+     * @return units actually reserved per productId (between 0 and the requested amount)
+     * @throws BackendUnavailableException when the stock service cannot answer
+     */
+    Map<String, Integer> reserve(Map<String, Integer> requestedUnits);
+
+    /**
+     * Returns previously reserved units that ended up not being used.
+     */
+    void release(Map<String, Integer> units);
+}
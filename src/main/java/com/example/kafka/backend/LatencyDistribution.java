@@ -0,0 +1,67 @@
+package com.example.kafka.backend;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Base latency of a simulated backend call, parsed from a compact spec:
+ * <ul>
+ *     <li>{@code fixed:200} - always 200 ms</li>
+ *     <li>{@code uniform:500-1500} - uniform between 500 and 1500 ms</li>
+ *     <li>{@code exponential:300} - exponential with a 300 ms mean</li>
+ *     <li>{@code lognormal:800,0.5} - log-normal with an 800 ms median and sigma 0.5</li>
+ * </ul>
+ */
+public abstract class LatencyDistribution {
+
+    public abstract double sampleMillis(ThreadLocalRandom random);
+
+    public static LatencyDistribution parse(String spec) {
+        String[] parts = spec.trim().split(":", 2);
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Invalid latency distribution: " + spec);
+        }
+
+        String type = parts[0].trim().toLowerCase();
+        String params = parts[1].trim();
+        switch (type) {
+            case "fixed":
+                double fixed = Double.parseDouble(params);
+                return new LatencyDistribution() {
+                    @Override
+                    public double sampleMillis(ThreadLocalRandom random) {
+                        return fixed;
+                    }
+                };
+            case "uniform":
+                String[] bounds = params.split("-");
+                double min = Double.parseDouble(bounds[0].trim());
+                double max = Double.parseDouble(bounds[1].trim());
+                return new LatencyDistribution() {
+                    @Override
+                    public double sampleMillis(ThreadLocalRandom random) {
+                        return min + random.nextDouble() * (max - min);
+                    }
+                };
+            case "exponential":
+                double mean = Double.parseDouble(params);
+                return new LatencyDistribution() {
+                    @Override
+                    public double sampleMillis(ThreadLocalRandom random) {
+                        return -mean * Math.log(1 - random.nextDouble());
+                    }
+                };
+            case "lognormal":
+                String[] lognormal = params.split(",");
+                double mu = Math.log(Double.parseDouble(lognormal[0].trim()));
+                double sigma = Double.parseDouble(lognormal[1].trim());
+                return new LatencyDistribution() {
+                    @Override
+                    public double sampleMillis(ThreadLocalRandom random) {
+                        return Math.exp(mu + sigma * random.nextGaussian());
+                    }
+                };
+            default:
+                throw new IllegalArgumentException("Unknown latency distribution: " + type);
+        }
+    }
+}
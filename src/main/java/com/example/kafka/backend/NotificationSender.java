@@ -0,0 +1,14 @@
+package com.example.kafka.backend;
+
+import com.example.kafka.model.Notification;
+
+/**
+ * Delivery channel (email, SMS, push) used by {@code NotificationConsumer}.
+ */
+public interface NotificationSender {
+
+    /**
+     * @throws BackendUnavailableException when the notification could not be delivered
+     */
+    void send(Notification notification);
+}
@@ -0,0 +1,85 @@
+package com.example.kafka.backend;
+
+import com.example.kafka.model.Money;
+import com.example.kafka.model.Order;
+import com.example.kafka.streams.CustomerVelocity;
+import com.example.kafka.streams.CustomerVelocityClient;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * The payment decision shared by both choreography engines: manual-approval threshold, customer
+ * velocity limits, then the {@link PaymentGateway}.
+ */
+@Slf4j
+@Component
+public class PaymentAuthorizer {
+
+    private final PaymentGateway paymentGateway;
+    private final CustomerVelocityClient customerVelocityClient;
+    private final Money manualApprovalThreshold;
+    private final int maxOrdersPerHour;
+    private final double maxAmountPerHour;
+
+    public PaymentAuthorizer(
+            PaymentGateway paymentGateway,
+            CustomerVelocityClient customerVelocityClient,
+            @Value("${app.payment.manual-approval-threshold:10000.00}") Money manualApprovalThreshold,
+            @Value("${app.payment.velocity.max-orders-per-hour:10}") int maxOrdersPerHour,
+            @Value("${app.payment.velocity.max-amount-per-hour:20000}") double maxAmountPerHour) {
+        this.paymentGateway = paymentGateway;
+        this.customerVelocityClient = customerVelocityClient;
+        this.manualApprovalThreshold = manualApprovalThreshold;
+        this.maxOrdersPerHour = maxOrdersPerHour;
+        this.maxAmountPerHour = maxAmountPerHour;
+    }
+
+    /**
+     * @return {@code true} when the charge is approved
+     * @throws BackendUnavailableException when the provider cannot answer
+     */
+    public boolean authorize(Order order) {
+        Money totalAmount = order.getTotalAmount();
+        if (!totalAmount.isSameCurrency(manualApprovalThreshold) || totalAmount.isGreaterThan(manualApprovalThreshold)) {
+            log.warn("⚠️ High-value transaction requires manual approval: orderId={}", order.getOrderId());
+            return false;
+        }
+
+        if (exceedsVelocityLimits(order)) {
+            return false;
+        }
+
+        return paymentGateway.authorize(order);
+    }
+
+    /**
+     * Cancels a charge whose answer came after the caller gave up on it.
+     *
+     * @throws BackendUnavailableException when the provider cannot answer
+     */
+    public void voidAuthorization(Order order) {
+        log.warn("↩️ Voiding payment authorization: orderId={}", order.getOrderId());
+        paymentGateway.voidAuthorization(order.getOrderId());
+    }
+
+    private boolean exceedsVelocityLimits(Order order) {
+        Optional<CustomerVelocity> velocity = customerVelocityClient.lookup(order.getCustomerId());
+        if (velocity.isEmpty()) {
+            return false;
+        }
+
+        long now = System.currentTimeMillis();
+        int ordersLastHour = velocity.get().orderCount(now);
+        double amountLastHour = velocity.get().totalAmount(now);
+
+        if (ordersLastHour > maxOrdersPerHour || amountLastHour > maxAmountPerHour) {
+            log.warn("⚠️ Velocity limit exceeded: orderId={}, customerId={}, ordersLastHour={}, amountLastHour={}",
+                    order.getOrderId(), order.getCustomerId(), ordersLastHour, amountLastHour);
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.kafka.backend;
+
+import com.example.kafka.model.Order;
+
+/**
+ * Payment service provider used by {@code PaymentConsumer}.
+ */
+public interface PaymentGateway {
+
+    /**
+     * Idempotent per orderId: a repeated call for an order returns the first decision without
+     * charging again, and a call for a voided order returns {@code false}.
+     *
+     * @return {@code true} when the provider approves the charge, {@code false} when it declines it
+     * @throws BackendUnavailableException when the provider cannot answer
+     */
+    boolean authorize(Order order);
+
+    /**
+     * Cancels the charge of an order whose answer came too late to be used, including one still
+     * being authorized; idempotent.
+     *
+     * @throws BackendUnavailableException when the provider cannot answer
+     */
+    void voidAuthorization(String orderId);
+}
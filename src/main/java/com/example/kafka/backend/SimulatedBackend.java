@@ -0,0 +1,118 @@
+package com.example.kafka.backend;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Local stand-in for a remote service: every call waits for a sampled latency (with an optional
+ * long tail), may fail with an injected error, and is subject to a concurrency limit - callers
+ * beyond {@code maxConcurrency} queue for at most {@code queueTimeoutMs} and are then rejected.
+ * Call durations are recorded as {@code backend.call} timers tagged with backend and outcome.
+ */
+@Slf4j
+public class SimulatedBackend {
+
+    private final String name;
+    private final LatencyDistribution latency;
+    private final double tailProbability;
+    private final double tailMultiplier;
+    private final double errorRate;
+    private final Semaphore permits;
+    private final long queueTimeoutMs;
+    private final Timer successTimer;
+    private final Timer errorTimer;
+    private final Timer rejectedTimer;
+
+    public SimulatedBackend(String name, LatencyDistribution latency, double tailProbability, double tailMultiplier,
+                            double errorRate, int maxConcurrency, long queueTimeoutMs, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.latency = latency;
+        this.tailProbability = tailProbability;
+        this.tailMultiplier = tailMultiplier;
+        this.errorRate = errorRate;
+        this.permits = maxConcurrency > 0 ? new Semaphore(maxConcurrency, true) : null;
+        this.queueTimeoutMs = queueTimeoutMs;
+        this.successTimer = timer(meterRegistry, name, "success");
+        this.errorTimer = timer(meterRegistry, name, "error");
+        this.rejectedTimer = timer(meterRegistry, name, "rejected");
+
+        log.info("🧪 Simulated backend '{}': tail={}x@{}, errorRate={}, maxConcurrency={}",
+                name, tailMultiplier, tailProbability, errorRate, maxConcurrency > 0 ? maxConcurrency : "unbounded");
+    }
+
+    public <T> T call(Supplier<T> response) {
+        long start = System.nanoTime();
+        acquire(start);
+        try {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            double delayMs = latency.sampleMillis(random);
+            if (random.nextDouble() < tailProbability) {
+                delayMs *= tailMultiplier;
+            }
+            sleep(delayMs);
+
+            if (random.nextDouble() < errorRate) {
+                errorTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                throw new BackendUnavailableException(name + " returned an injected error");
+            }
+
+            T result = response.get();
+            successTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } finally {
+            if (permits != null) {
+                permits.release();
+            }
+        }
+    }
+
+    public void call(Runnable action) {
+        call(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private void acquire(long start) {
+        if (permits == null) {
+            return;
+        }
+
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(queueTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+
+        if (!acquired) {
+            rejectedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw new BackendUnavailableException(name + " concurrency limit reached");
+        }
+    }
+
+    private void sleep(double delayMs) {
+        try {
+            long nanos = (long) (delayMs * 1_000_000);
+            Thread.sleep(nanos / 1_000_000, (int) (nanos % 1_000_000));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BackendUnavailableException(name + " call interrupted");
+        }
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String name, String outcome) {
+        return Timer.builder("backend.call")
+                .tag("backend", name)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.kafka.backend;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * In-memory stock: every product starts with {@code initialStock} units, and each bulk call finds
+ * a given product temporarily unavailable with probability {@code 1 - availabilityRatio}.
+ */
+public class SimulatedInventoryClient implements InventoryClient {
+
+    private final SimulatedBackend backend;
+    private final double availabilityRatio;
+    private final int initialStock;
+    private final Map<String, Integer> stock = new ConcurrentHashMap<>();
+
+    public SimulatedInventoryClient(SimulatedBackend backend, double availabilityRatio, int initialStock) {
+        this.backend = backend;
+        this.availabilityRatio = availabilityRatio;
+        this.initialStock = initialStock;
+    }
+
+    @Override
+    public Map<String, Integer> reserve(Map<String, Integer> requestedUnits) {
+        return backend.call(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            Map<String, Integer> reserved = new HashMap<>();
+            requestedUnits.forEach((productId, requested) -> {
+                if (random.nextDouble() >= availabilityRatio) {
+                    reserved.put(productId, 0);
+                    return;
+                }
+                int[] granted = new int[1];
+                stock.compute(productId, (id, available) -> {
+                    int current = available == null ? initialStock : available;
+                    granted[0] = Math.min(current, requested);
+                    return current - granted[0];
+                });
+                reserved.put(productId, granted[0]);
+            });
+            return reserved;
+        });
+    }
+
+    @Override
+    public void release(Map<String, Integer> units) {
+        backend.call(() -> units.forEach((productId, count) ->
+                stock.merge(productId, count, Integer::sum)));
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.kafka.backend;
+
+import com.example.kafka.model.Notification;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class SimulatedNotificationSender implements NotificationSender {
+
+    private final SimulatedBackend backend;
+
+    @Override
+    public void send(Notification notification) {
+        backend.call(() -> { });
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.kafka.backend;
+
+import com.example.kafka.model.Order;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Remembers the decision of the last {@value #MAX_TRACKED_ORDERS} orders, like the idempotency
+ * keys of a real provider, so repeated and voided authorizations behave as documented on
+ * {@link PaymentGateway}.
+ */
+public class SimulatedPaymentGateway implements PaymentGateway {
+
+    private static final int MAX_TRACKED_ORDERS = 100_000;
+
+    private final SimulatedBackend backend;
+    private final double approvalRatio;
+    private final Map<String, Boolean> decisions = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, false) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > MAX_TRACKED_ORDERS;
+                }
+            });
+
+    public SimulatedPaymentGateway(SimulatedBackend backend, double approvalRatio) {
+        this.backend = backend;
+        this.approvalRatio = approvalRatio;
+    }
+
+    @Override
+    public boolean authorize(Order order) {
+        return backend.call(() -> {
+            Boolean previous = decisions.get(order.getOrderId());
+            if (previous != null) {
+                return previous;
+            }
+            boolean approved = ThreadLocalRandom.current().nextDouble() < approvalRatio;
+            // A void recorded while this call was running wins.
+            Boolean decided = decisions.putIfAbsent(order.getOrderId(), approved);
+            return decided != null ? decided : approved;
+        });
+    }
+
+    @Override
+    public void voidAuthorization(String orderId) {
+        backend.call(() -> {
+            decisions.put(orderId, false);
+        });
+    }
+}
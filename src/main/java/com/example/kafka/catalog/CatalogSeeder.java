@@ -0,0 +1,51 @@
+package com.example.kafka.catalog;
+
+import com.example.kafka.model.Money;
+import com.example.kafka.model.Product;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Publishes the products used by the example orders to {@code product.catalog} at startup, so
+ * that catalog validation accepts them out of the box.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.catalog.seed-example-products", havingValue = "true", matchIfMissing = true)
+public class CatalogSeeder {
+
+    private static final List<Product> EXAMPLE_PRODUCTS = List.of(
+            product("PROD-001", "MBP14-256-SG", "MacBook Pro 14\"", "Electronics", "2499.99"),
+            product("PROD-002", "MM-WHT", "Magic Mouse", "Accessories", "99.99"),
+            product("PROD-003", "USBC-2M", "USB-C Cable", "Accessories", "19.99"),
+            product("PROD-004", "IPH15P-256-BLK", "iPhone 15 Pro", "Smartphones", "1299.99"),
+            product("PROD-PREMIUM-001", "MBP16-1TB-MAX", "MacBook Pro 16\" Max", "Electronics", "3999.99")
+    );
+
+    private final KafkaTemplate<String, Product> productKafkaTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedExampleProducts() {
+        EXAMPLE_PRODUCTS.forEach(product ->
+                productKafkaTemplate.send(ProductCatalogStreams.CATALOG_TOPIC, product.getProductId(), product));
+        log.info("🗂️ Seeded {} example products into '{}'", EXAMPLE_PRODUCTS.size(), ProductCatalogStreams.CATALOG_TOPIC);
+    }
+
+    private static Product product(String productId, String sku, String name, String category, String unitPrice) {
+        return Product.builder()
+                .productId(productId)
+                .sku(sku)
+                .name(name)
+                .category(category)
+                .unitPrice(Money.of(unitPrice))
+                .build();
+    }
+}
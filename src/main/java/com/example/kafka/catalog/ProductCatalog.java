@@ -0,0 +1,114 @@
+package com.example.kafka.catalog;
+
+import com.example.kafka.model.Product;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.StoreQueryParameters;
+import org.apache.kafka.streams.errors.InvalidStateStoreException;
+import org.apache.kafka.streams.state.QueryableStoreTypes;
+import org.apache.kafka.streams.state.ReadOnlyKeyValueStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Product lookups for order validation: served from an in-heap {@link TinyLfuCache}, falling
+ * back to the local {@code product-catalog-store} global store. Cache size, hit rate and
+ * hit/miss counts are exported as {@code catalog.cache.*}.
+ */
+@Slf4j
+@Component
+public class ProductCatalog {
+
+    private final StreamsBuilderFactoryBean streamsBuilderFactoryBean;
+    private final TinyLfuCache<String, Product> cache;
+
+    private volatile ReadOnlyKeyValueStore<String, Product> store;
+
+    public ProductCatalog(
+            StreamsBuilderFactoryBean streamsBuilderFactoryBean,
+            @Value("${app.catalog.cache.max-entries:10000}") int maxEntries,
+            MeterRegistry meterRegistry) {
+        this.streamsBuilderFactoryBean = streamsBuilderFactoryBean;
+        this.cache = new TinyLfuCache<>(maxEntries);
+
+        Gauge.builder("catalog.cache.size", cache, TinyLfuCache::size).register(meterRegistry);
+        Gauge.builder("catalog.cache.hit.ratio", cache, TinyLfuCache::hitRate).register(meterRegistry);
+        FunctionCounter.builder("catalog.cache.requests", cache, TinyLfuCache::hitCount)
+                .tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("catalog.cache.requests", cache, TinyLfuCache::missCount)
+                .tag("result", "miss").register(meterRegistry);
+    }
+
+    /**
+     * @return {@code false} while the global store is not queryable (startup, restoration)
+     */
+    public boolean isAvailable() {
+        return store() != null;
+    }
+
+    public Optional<Product> find(String productId) {
+        if (productId == null) {
+            return Optional.empty();
+        }
+
+        Product cached = cache.get(productId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        ReadOnlyKeyValueStore<String, Product> catalogStore = store();
+        if (catalogStore == null) {
+            return Optional.empty();
+        }
+
+        // Taken before the read: an update applied in between invalidates after writing the
+        // store, so the value read here may be stale and must not be cached.
+        long stamp = cache.invalidationStamp();
+        Product product;
+        try {
+            product = catalogStore.get(productId);
+        } catch (InvalidStateStoreException e) {
+            log.debug("Catalog store not queryable: {}", e.getMessage());
+            store = null;
+            return Optional.empty();
+        }
+
+        if (product != null) {
+            cache.putIfNotInvalidated(productId, product, stamp);
+        }
+        return Optional.ofNullable(product);
+    }
+
+    void invalidate(String productId) {
+        cache.invalidate(productId);
+    }
+
+    private ReadOnlyKeyValueStore<String, Product> store() {
+        ReadOnlyKeyValueStore<String, Product> current = store;
+        if (current != null) {
+            return current;
+        }
+
+        KafkaStreams kafkaStreams = streamsBuilderFactoryBean.getKafkaStreams();
+        if (kafkaStreams == null || kafkaStreams.state() != KafkaStreams.State.RUNNING) {
+            return null;
+        }
+
+        try {
+            current = kafkaStreams.store(StoreQueryParameters.fromNameAndType(
+                    ProductCatalogStreams.CATALOG_STORE,
+                    QueryableStoreTypes.<String, Product>keyValueStore()));
+            store = current;
+            return current;
+        } catch (InvalidStateStoreException e) {
+            log.debug("Catalog store not available yet: {}", e.getMessage());
+            return null;
+        }
+    }
+}
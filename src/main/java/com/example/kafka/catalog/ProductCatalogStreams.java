@@ -0,0 +1,78 @@
+package com.example.kafka.catalog;
+
+import com.example.kafka.model.Product;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorContext;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.Stores;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.support.serializer.JsonSerde;
+import org.springframework.stereotype.Component;
+
+/**
+ * Materializes the compacted {@code product.catalog} topic as a global store on every instance.
+ * Each change is applied to the store and then invalidates the matching near-cache entry, so
+ * the next lookup reads the new version.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductCatalogStreams {
+
+    public static final String CATALOG_STORE = "product-catalog-store";
+    public static final String CATALOG_TOPIC = "product.catalog";
+
+    private final ProductCatalog productCatalog;
+
+    @Autowired
+    public void buildProductCatalogStore(StreamsBuilder streamsBuilder) {
+        Serde<Product> productSerde = new JsonSerde<>(Product.class).ignoreTypeHeaders();
+
+        streamsBuilder.addGlobalStore(
+                Stores.keyValueStoreBuilder(
+                        Stores.persistentKeyValueStore(CATALOG_STORE),
+                        Serdes.String(),
+                        productSerde).withLoggingDisabled(),
+                CATALOG_TOPIC,
+                Consumed.with(Serdes.String(), productSerde),
+                () -> new CatalogUpdater(productCatalog));
+
+        log.info("🔧 Kafka Streams: Product catalog global store configured");
+    }
+
+    private static class CatalogUpdater implements Processor<String, Product, Void, Void> {
+
+        private final ProductCatalog productCatalog;
+        private KeyValueStore<String, Product> store;
+
+        CatalogUpdater(ProductCatalog productCatalog) {
+            this.productCatalog = productCatalog;
+        }
+
+        @Override
+        public void init(ProcessorContext<Void, Void> context) {
+            this.store = context.getStateStore(CATALOG_STORE);
+        }
+
+        @Override
+        public void process(Record<String, Product> record) {
+            if (record.key() == null) {
+                return;
+            }
+
+            if (record.value() == null) {
+                store.delete(record.key());
+            } else {
+                store.put(record.key(), record.value());
+            }
+            productCatalog.invalidate(record.key());
+        }
+    }
+}
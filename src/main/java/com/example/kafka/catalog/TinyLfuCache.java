@@ -0,0 +1,266 @@
+package com.example.kafka.catalog;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Bounded cache with W-TinyLFU eviction: new entries land in a small LRU window (1% of the
+ * capacity); an entry leaving the window only enters the main segmented LRU (probation /
+ * protected) if a frequency sketch says it is accessed more often than the entry it would
+ * evict. One-off lookups therefore cannot flush popular products out of the cache.
+ *
+ * <p>The cache can also be bounded by the total weight of its values (e.g. their size in bytes):
+ * past {@code maximumWeight}, the eldest entries are evicted from probation first, then from the
+ * protected segment, then from the window. A value heavier than the whole bound is not cached.
+ */
+public class TinyLfuCache<K, V> {
+
+    private final int windowCapacity;
+    private final int protectedCapacity;
+    private final int mainCapacity;
+    private final FrequencySketch sketch;
+    private final long maximumWeight;
+    private final ToLongFunction<V> weigher;
+
+    private final LinkedHashMap<K, V> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, V> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, V> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long hits;
+    private long misses;
+    private long invalidations;
+    private long weight;
+
+    public TinyLfuCache(int maximumSize) {
+        this(maximumSize, Long.MAX_VALUE, value -> 0);
+    }
+
+    public TinyLfuCache(int maximumSize, long maximumWeight, ToLongFunction<V> weigher) {
+        this.windowCapacity = Math.max(1, maximumSize / 100);
+        this.mainCapacity = Math.max(1, maximumSize - windowCapacity);
+        this.protectedCapacity = (int) (mainCapacity * 0.8);
+        this.sketch = new FrequencySketch(maximumSize);
+        this.maximumWeight = maximumWeight;
+        this.weigher = weigher;
+    }
+
+    public synchronized V get(K key) {
+        sketch.increment(key);
+
+        V value = window.get(key);
+        if (value == null) {
+            value = protectedSegment.get(key);
+        }
+        if (value == null) {
+            value = probation.remove(key);
+            if (value != null) {
+                promote(key, value);
+            }
+        }
+
+        if (value == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return value;
+    }
+
+    public synchronized void put(K key, V value) {
+        long valueWeight = weigher.applyAsLong(value);
+        if (valueWeight > maximumWeight) {
+            remove(key);
+            return;
+        }
+
+        if (window.containsKey(key)) {
+            replace(window, key, value, valueWeight);
+        } else if (protectedSegment.containsKey(key)) {
+            replace(protectedSegment, key, value, valueWeight);
+        } else if (probation.containsKey(key)) {
+            replace(probation, key, value, valueWeight);
+        } else {
+            window.put(key, value);
+            weight += valueWeight;
+            if (window.size() > windowCapacity) {
+                Map.Entry<K, V> candidate = removeEldest(window);
+                admit(candidate.getKey(), candidate.getValue());
+            }
+        }
+        evictOverweight();
+    }
+
+    /**
+     * @return a stamp to pass to {@link #putIfNotInvalidated}, taken before reading the value
+     * from its source
+     */
+    public synchronized long invalidationStamp() {
+        return invalidations;
+    }
+
+    /**
+     * Caches a value read from the source unless an invalidation happened since {@code stamp}
+     * was taken: the value may then predate the update that triggered it.
+     *
+     * @return {@code false} if the value was not cached
+     */
+    public synchronized boolean putIfNotInvalidated(K key, V value, long stamp) {
+        if (invalidations != stamp) {
+            return false;
+        }
+        put(key, value);
+        return true;
+    }
+
+    public synchronized void invalidate(K key) {
+        invalidations++;
+        remove(key);
+    }
+
+    public synchronized int size() {
+        return window.size() + probation.size() + protectedSegment.size();
+    }
+
+    /**
+     * @return the total weight of the cached values, 0 without a weigher
+     */
+    public synchronized long weight() {
+        return weight;
+    }
+
+    public synchronized long hitCount() {
+        return hits;
+    }
+
+    public synchronized long missCount() {
+        return misses;
+    }
+
+    public synchronized double hitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0.0 : (double) hits / requests;
+    }
+
+    private void promote(K key, V value) {
+        protectedSegment.put(key, value);
+        if (protectedSegment.size() > protectedCapacity) {
+            Map.Entry<K, V> demoted = removeEldest(protectedSegment);
+            probation.put(demoted.getKey(), demoted.getValue());
+        }
+    }
+
+    private void admit(K candidateKey, V candidateValue) {
+        if (probation.size() + protectedSegment.size() < mainCapacity) {
+            probation.put(candidateKey, candidateValue);
+            return;
+        }
+
+        LinkedHashMap<K, V> victimSegment = probation.isEmpty() ? protectedSegment : probation;
+        K victimKey = victimSegment.keySet().iterator().next();
+        if (sketch.frequency(candidateKey) > sketch.frequency(victimKey)) {
+            weight -= weigher.applyAsLong(victimSegment.remove(victimKey));
+            probation.put(candidateKey, candidateValue);
+        } else {
+            weight -= weigher.applyAsLong(candidateValue);
+        }
+    }
+
+    private void replace(LinkedHashMap<K, V> segment, K key, V value, long valueWeight) {
+        weight += valueWeight - weigher.applyAsLong(segment.put(key, value));
+    }
+
+    private void remove(K key) {
+        V removed = window.remove(key);
+        if (removed == null) {
+            removed = probation.remove(key);
+        }
+        if (removed == null) {
+            removed = protectedSegment.remove(key);
+        }
+        if (removed != null) {
+            weight -= weigher.applyAsLong(removed);
+        }
+    }
+
+    private void evictOverweight() {
+        while (weight > maximumWeight) {
+            LinkedHashMap<K, V> segment = !probation.isEmpty() ? probation
+                    : !protectedSegment.isEmpty() ? protectedSegment
+                    : window;
+            weight -= weigher.applyAsLong(removeEldest(segment).getValue());
+        }
+    }
+
+    private static <K, V> Map.Entry<K, V> removeEldest(LinkedHashMap<K, V> segment) {
+        Iterator<Map.Entry<K, V>> iterator = segment.entrySet().iterator();
+        Map.Entry<K, V> eldest = iterator.next();
+        Map.Entry<K, V> copy = Map.entry(eldest.getKey(), eldest.getValue());
+        iterator.remove();
+        return copy;
+    }
+
+    /**
+     * Count-Min sketch of 4-bit-style saturating counters (capped at 15) that halves every
+     * counter after {@code 10 * maximumSize} increments, so old popularity fades out.
+     */
+    private static final class FrequencySketch {
+
+        private static final int DEPTH = 4;
+        private static final int MAX_COUNT = 15;
+        private static final long[] SEEDS = {
+                0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L
+        };
+
+        private final byte[][] counters;
+        private final int mask;
+        private final long sampleSize;
+        private long additions;
+
+        FrequencySketch(int maximumSize) {
+            int width = Integer.highestOneBit(Math.max(16, maximumSize) * 2 - 1);
+            this.counters = new byte[DEPTH][width];
+            this.mask = width - 1;
+            this.sampleSize = 10L * Math.max(1, maximumSize);
+        }
+
+        void increment(Object key) {
+            int hash = key.hashCode();
+            boolean incremented = false;
+            for (int row = 0; row < DEPTH; row++) {
+                int index = index(hash, row);
+                if (counters[row][index] < MAX_COUNT) {
+                    counters[row][index]++;
+                    incremented = true;
+                }
+            }
+            if (incremented && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        int frequency(Object key) {
+            int hash = key.hashCode();
+            int frequency = MAX_COUNT;
+            for (int row = 0; row < DEPTH; row++) {
+                frequency = Math.min(frequency, counters[row][index(hash, row)]);
+            }
+            return frequency;
+        }
+
+        private int index(int hash, int row) {
+            long h = (hash + SEEDS[row]) * SEEDS[row];
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+
+        private void reset() {
+            for (byte[] row : counters) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] >>= 1;
+                }
+            }
+            additions /= 2;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.kafka.claimcheck;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Local content-addressed store for claim-checked payloads: a blob is named after the SHA-256 of
+ * its bytes ({@code sha256-<hex>}), so storing the same content twice writes it once and a
+ * reference can never point to different content. Blobs are written to a temporary file and
+ * moved into place, so readers never see a partial blob.
+ *
+ * <p>Blobs are swept once they have not been written or referenced for {@code blob-ttl-hours}:
+ * every {@link #put} and {@link #touch} refreshes the modification time, so a blob lives at least
+ * that long after the last record pointing to it was produced. The TTL must therefore be at least
+ * the retention of the claim-checked topics (7 days by default on the broker). Compacted topics
+ * have no such bound, which is why {@link ClaimCheck} refuses them.
+ */
+@Slf4j
+@Component
+public class BlobStore {
+
+    private static final String PREFIX = "sha256-";
+    private static final Pattern REFERENCE = Pattern.compile("sha256-[0-9a-f]{64}");
+
+    private final Path directory;
+    private final Duration ttl;
+
+    public BlobStore(@Value("${app.claim-check.store-dir:${user.home}/.kafka-order-system/blobs}") String directory,
+                     @Value("${app.claim-check.blob-ttl-hours:168}") long ttlHours) {
+        if (ttlHours <= 0) {
+            throw new IllegalStateException("app.claim-check.blob-ttl-hours must be positive, was " + ttlHours);
+        }
+        this.directory = Path.of(directory);
+        this.ttl = Duration.ofHours(ttlHours);
+    }
+
+    public static boolean isReference(String reference) {
+        return reference != null && REFERENCE.matcher(reference).matches();
+    }
+
+    public String put(byte[] content) {
+        String reference = PREFIX + HexFormat.of().formatHex(sha256(content));
+        Path path = pathOf(reference);
+        if (refresh(path)) {
+            return reference;
+        }
+
+        try {
+            Files.createDirectories(path.getParent());
+            Path temporary = Files.createTempFile(path.getParent(), "blob", ".tmp");
+            Files.write(temporary, content);
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot store blob " + reference, e);
+        }
+        return reference;
+    }
+
+    public byte[] get(String reference) {
+        try {
+            return Files.readAllBytes(pathOf(reference));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read blob " + reference, e);
+        }
+    }
+
+    /**
+     * Extends the life of a blob that a new record refers to without storing it again.
+     */
+    public void touch(String reference) {
+        if (!refresh(pathOf(reference))) {
+            log.warn("⚠️ Claim-checked blob {} is missing", reference);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.claim-check.sweep-interval-ms:3600000}",
+            fixedDelayString = "${app.claim-check.sweep-interval-ms:3600000}")
+    public void sweep() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+
+        FileTime cutoff = FileTime.from(Instant.now().minus(ttl));
+        int deleted = 0;
+        try (Stream<Path> files = Files.walk(directory, 2)) {
+            List<Path> expired = files
+                    .filter(Files::isRegularFile)
+                    .filter(path -> isOlderThan(path, cutoff))
+                    .toList();
+            for (Path path : expired) {
+                if (Files.deleteIfExists(path)) {
+                    deleted++;
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("⚠️ Blob sweep failed: {}", e.getMessage());
+        }
+
+        if (deleted > 0) {
+            log.info("🧹 Swept {} claim-checked blobs older than {}h", deleted, ttl.toHours());
+        }
+    }
+
+    private static boolean refresh(Path path) {
+        try {
+            Files.setLastModifiedTime(path, FileTime.from(Instant.now()));
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot refresh blob " + path.getFileName(), e);
+        }
+    }
+
+    private static boolean isOlderThan(Path path, FileTime cutoff) {
+        try {
+            return Files.getLastModifiedTime(path).compareTo(cutoff) < 0;
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path pathOf(String reference) {
+        if (!isReference(reference)) {
+            throw new IllegalArgumentException("Not a blob reference: " + reference);
+        }
+        String hex = reference.substring(PREFIX.length());
+        return directory.resolve(hex.substring(0, 2)).resolve(hex);
+    }
+
+    private static byte[] sha256(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required by every JVM", e);
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.example.kafka.claimcheck;
+
+import com.example.kafka.catalog.TinyLfuCache;
+import com.example.kafka.projection.JsonCopy;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.config.TopicConfig;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Claim-check for large orders. When an order payload on one of the configured topics exceeds
+ * {@code threshold-bytes}, its bulky fields ({@link #BODY_FIELDS}) are stored once in the
+ * {@link BlobStore} and the record only keeps an envelope: {@code {"claimCheck":"sha256-...", ...}}
+ * followed by the other top-level fields (ids, status, amounts, payment...). The body does not
+ * change along the pipeline, so every stage that forwards the order points to the same blob.
+ * Compacted topics ({@code order.created}) cannot be claim-checked, see {@link BlobStore}.
+ *
+ * <p>A record is an envelope only if it carries the {@link #REFERENCE_HEADER} header, and its
+ * leading {@code claimCheck} field must name the same blob: the payload alone is never trusted, a
+ * client may well send an order with a {@code claimCheck} field of its own. Records serialized
+ * without headers are therefore never offloaded.
+ *
+ * <p>Consumers resolve an envelope back into the full order only when they need the body (see
+ * {@link ClaimCheckDeserializer}); bodies are cached by reference, which is safe because a
+ * reference always designates the same content. Offloaded bodies are large by definition, so the
+ * cache is bounded by their total size ({@code cache-max-bytes}) as well as by their count.
+ */
+@Slf4j
+@Component
+public class ClaimCheck {
+
+    public static final String REFERENCE_FIELD = "claimCheck";
+    public static final Set<String> BODY_FIELDS = Set.of("items", "notes", "shippingAddress", "billingAddress");
+
+    public static final String REFERENCE_HEADER = "claim-check";
+    public static final String SIZE_HEADER = "claim-check-bytes";
+    public static final String ITEMS_HEADER = "claim-check-items";
+
+    private final boolean enabled;
+    private final int thresholdBytes;
+    private final Set<String> topics;
+    private final BlobStore blobStore;
+    private final TinyLfuCache<String, byte[]> cache;
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final Counter offloaded;
+    private final Counter resolvedFromCache;
+    private final Counter resolvedFromStore;
+
+    public ClaimCheck(
+            @Value("${app.claim-check.enabled:false}") boolean enabled,
+            @Value("${app.claim-check.threshold-bytes:16384}") int thresholdBytes,
+            @Value("${app.claim-check.topics:order.validated,order.inventory,order.payment,order.shipped}")
+            List<String> topics,
+            @Value("${app.claim-check.cache-max-entries:1000}") int cacheMaxEntries,
+            @Value("${app.claim-check.cache-max-bytes:67108864}") long cacheMaxBytes,
+            BlobStore blobStore,
+            List<NewTopic> declaredTopics,
+            MeterRegistry meterRegistry) {
+        if (enabled) {
+            rejectCompactedTopics(topics, declaredTopics);
+        }
+        this.enabled = enabled;
+        this.thresholdBytes = thresholdBytes;
+        this.topics = Set.copyOf(topics);
+        this.blobStore = blobStore;
+        this.cache = new TinyLfuCache<>(cacheMaxEntries, cacheMaxBytes, body -> body.length);
+
+        this.offloaded = Counter.builder("claimcheck.offloaded").register(meterRegistry);
+        this.resolvedFromCache = Counter.builder("claimcheck.resolved").tag("source", "cache").register(meterRegistry);
+        this.resolvedFromStore = Counter.builder("claimcheck.resolved").tag("source", "store").register(meterRegistry);
+        Gauge.builder("claimcheck.cache.bytes", cache, TinyLfuCache::weight).register(meterRegistry);
+    }
+
+    /**
+     * The {@link BlobStore} sweeps blobs after {@code blob-ttl-hours}, but a compacted topic keeps
+     * the latest record of each key forever: its envelopes would end up pointing to deleted blobs.
+     */
+    private static void rejectCompactedTopics(List<String> topics, List<NewTopic> declaredTopics) {
+        List<String> compacted = declaredTopics.stream()
+                .filter(topic -> topics.contains(topic.name()))
+                .filter(topic -> topic.configs() != null && String.valueOf(topic.configs()
+                        .get(TopicConfig.CLEANUP_POLICY_CONFIG)).contains(TopicConfig.CLEANUP_POLICY_COMPACT))
+                .map(NewTopic::name)
+                .toList();
+        if (!compacted.isEmpty()) {
+            throw new IllegalStateException("app.claim-check.topics must not include compacted topics,"
+                    + " whose records outlive blob-ttl-hours: " + compacted);
+        }
+    }
+
+    /**
+     * @return the blob reference of an envelope record, or {@code null} if the record is not marked
+     * as one
+     */
+    public static String envelopeReference(Headers headers) {
+        Header header = headers == null ? null : headers.lastHeader(REFERENCE_HEADER);
+        if (header == null || header.value() == null) {
+            return null;
+        }
+        String reference = new String(header.value(), StandardCharsets.UTF_8);
+        if (!BlobStore.isReference(reference)) {
+            throw new SerializationException("Invalid claim-check reference: " + reference);
+        }
+        return reference;
+    }
+
+    /**
+     * Marks a record that forwards an unresolved envelope.
+     */
+    public static void markEnvelope(Headers headers, String reference) {
+        headers.remove(REFERENCE_HEADER);
+        headers.add(REFERENCE_HEADER, reference.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Replaces a large order payload with its envelope and adds the summary headers; any other
+     * payload is returned unchanged. An envelope forwarded by a stage keeps its mark, while a mark
+     * inherited from the input record (Kafka Streams copies headers) is dropped if the payload was
+     * resolved in between.
+     */
+    public byte[] offload(String topic, Headers headers, byte[] payload) {
+        if (payload == null || headers == null) {
+            return payload;
+        }
+
+        try {
+            String marked = envelopeReference(headers);
+            if (marked != null) {
+                if (marked.equals(leadingReference(payload))) {
+                    blobStore.touch(marked);
+                    return payload;
+                }
+                headers.remove(REFERENCE_HEADER);
+                headers.remove(SIZE_HEADER);
+                headers.remove(ITEMS_HEADER);
+            }
+        } catch (IOException e) {
+            throw new SerializationException("Cannot read payload for " + topic, e);
+        }
+
+        if (!enabled || payload.length <= thresholdBytes || !topics.contains(topic)) {
+            return payload;
+        }
+
+        try {
+            ByteArrayOutputStream body = new ByteArrayOutputStream(payload.length);
+            int items = writeBody(payload, body);
+            if (items < 0) {
+                return payload;
+            }
+
+            byte[] bodyBytes = body.toByteArray();
+            String reference = blobStore.put(bodyBytes);
+            cache.put(reference, bodyBytes);
+            byte[] envelope = writeEnvelope(payload, reference);
+
+            headers.add(REFERENCE_HEADER, reference.getBytes(StandardCharsets.UTF_8));
+            headers.add(SIZE_HEADER, Integer.toString(payload.length).getBytes(StandardCharsets.UTF_8));
+            headers.add(ITEMS_HEADER, Integer.toString(items).getBytes(StandardCharsets.UTF_8));
+            offloaded.increment();
+            log.debug("Claim-checked payload on {}: {} -> {} bytes, body={}", topic, payload.length, envelope.length, reference);
+            return envelope;
+        } catch (IOException e) {
+            throw new SerializationException("Cannot claim-check payload for " + topic, e);
+        }
+    }
+
+    /**
+     * Rebuilds the full order from an envelope: its fields, then the body fields from the blob.
+     *
+     * @param reference the blob named by the record's {@link #REFERENCE_HEADER} header
+     */
+    public byte[] resolve(String reference, byte[] envelope) {
+        try (JsonParser parser = jsonFactory.createParser(envelope)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT
+                    || parser.nextToken() != JsonToken.FIELD_NAME
+                    || !REFERENCE_FIELD.equals(parser.getCurrentName())
+                    || !reference.equals(parser.nextTextValue())) {
+                throw new SerializationException("Claim-check envelope does not match its header " + reference);
+            }
+            byte[] body = body(reference);
+
+            ByteArrayOutputStream output = new ByteArrayOutputStream(envelope.length + body.length);
+            try (JsonGenerator generator = jsonFactory.createGenerator(output)) {
+                generator.writeStartObject();
+                Set<String> written = new HashSet<>();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+                    parser.nextToken();
+                    if (REFERENCE_FIELD.equals(field)) {
+                        parser.skipChildren();
+                        continue;
+                    }
+                    written.add(field);
+                    generator.writeFieldName(field);
+                    JsonCopy.copyValue(parser, generator);
+                }
+
+                try (JsonParser bodyParser = jsonFactory.createParser(body)) {
+                    bodyParser.nextToken();
+                    while (bodyParser.nextToken() == JsonToken.FIELD_NAME) {
+                        String field = bodyParser.getCurrentName();
+                        bodyParser.nextToken();
+                        if (written.contains(field)) {
+                            bodyParser.skipChildren();
+                            continue;
+                        }
+                        generator.writeFieldName(field);
+                        JsonCopy.copyValue(bodyParser, generator);
+                    }
+                }
+                generator.writeEndObject();
+            }
+            return output.toByteArray();
+        } catch (IOException e) {
+            throw new SerializationException("Cannot resolve claim-checked payload", e);
+        }
+    }
+
+    private byte[] body(String reference) {
+        byte[] body = cache.get(reference);
+        if (body != null) {
+            resolvedFromCache.increment();
+            return body;
+        }
+
+        body = blobStore.get(reference);
+        cache.put(reference, body);
+        resolvedFromStore.increment();
+        return body;
+    }
+
+    /**
+     * @return the value of the leading {@code claimCheck} field, or {@code null} if the payload does
+     * not start with one
+     */
+    private String leadingReference(byte[] payload) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT
+                    || parser.nextToken() != JsonToken.FIELD_NAME
+                    || !REFERENCE_FIELD.equals(parser.getCurrentName())) {
+                return null;
+            }
+            return parser.nextTextValue();
+        }
+    }
+
+    /**
+     * Copies the body fields of {@code payload} into their own object.
+     *
+     * @return the number of items, or -1 if the payload is not a JSON object
+     */
+    private int writeBody(byte[] payload, ByteArrayOutputStream body) throws IOException {
+        int items = 0;
+        try (JsonParser parser = jsonFactory.createParser(payload);
+             JsonGenerator generator = jsonFactory.createGenerator(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return -1;
+            }
+            generator.writeStartObject();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (!BODY_FIELDS.contains(field)) {
+                    parser.skipChildren();
+                    continue;
+                }
+                if ("items".equals(field) && value == JsonToken.START_ARRAY) {
+                    generator.writeFieldName(field);
+                    generator.writeStartArray();
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        JsonCopy.copyValue(parser, generator);
+                        items++;
+                    }
+                    generator.writeEndArray();
+                    continue;
+                }
+                generator.writeFieldName(field);
+                JsonCopy.copyValue(parser, generator);
+            }
+            generator.writeEndObject();
+        }
+        return items;
+    }
+
+    private byte[] writeEnvelope(byte[] payload, String reference) throws IOException {
+        ByteArrayOutputStream envelope = new ByteArrayOutputStream(512);
+        try (JsonParser parser = jsonFactory.createParser(payload);
+             JsonGenerator generator = jsonFactory.createGenerator(envelope)) {
+            parser.nextToken();
+            generator.writeStartObject();
+            generator.writeStringField(REFERENCE_FIELD, reference);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if (BODY_FIELDS.contains(field) || REFERENCE_FIELD.equals(field)) {
+                    parser.skipChildren();
+                    continue;
+                }
+                generator.writeFieldName(field);
+                JsonCopy.copyValue(parser, generator);
+            }
+            generator.writeEndObject();
+        }
+        return envelope.toByteArray();
+    }
+}
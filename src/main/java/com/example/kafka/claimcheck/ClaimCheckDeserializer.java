@@ -0,0 +1,47 @@
+package com.example.kafka.claimcheck;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.util.Map;
+
+/**
+ * Resolves claim-check envelopes before handing the payload to the delegate, for consumers that
+ * bind the whole order. Only records marked by the {@link ClaimCheck#REFERENCE_HEADER} header are
+ * envelopes; other payloads go through untouched.
+ */
+public class ClaimCheckDeserializer<T> implements Deserializer<T> {
+
+    private final Deserializer<T> delegate;
+    private final ClaimCheck claimCheck;
+
+    public ClaimCheckDeserializer(Deserializer<T> delegate, ClaimCheck claimCheck) {
+        this.delegate = delegate;
+        this.claimCheck = claimCheck;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        delegate.configure(configs, isKey);
+    }
+
+    @Override
+    public T deserialize(String topic, byte[] data) {
+        // Without headers a record cannot be marked as an envelope.
+        return delegate.deserialize(topic, data);
+    }
+
+    @Override
+    public T deserialize(String topic, Headers headers, byte[] data) {
+        String reference = ClaimCheck.envelopeReference(headers);
+        if (reference != null && data != null) {
+            data = claimCheck.resolve(reference, data);
+        }
+        return delegate.deserialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.kafka.claimcheck;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.util.Map;
+
+/**
+ * Serializes with the delegate, then lets {@link ClaimCheck} offload the result if it is a large
+ * order on a claim-checked topic.
+ */
+public class ClaimCheckSerializer<T> implements Serializer<T> {
+
+    private final Serializer<T> delegate;
+    private final ClaimCheck claimCheck;
+
+    public ClaimCheckSerializer(Serializer<T> delegate, ClaimCheck claimCheck) {
+        this.delegate = delegate;
+        this.claimCheck = claimCheck;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        delegate.configure(configs, isKey);
+    }
+
+    @Override
+    public byte[] serialize(String topic, T data) {
+        return claimCheck.offload(topic, null, delegate.serialize(topic, data));
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, T data) {
+        return claimCheck.offload(topic, headers, delegate.serialize(topic, headers, data));
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.kafka.config;
+
+import com.example.kafka.model.OrderPriority;
+import com.example.kafka.streams.AnalyticsEmitMode;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Tunables of {@code OrderAnalyticsStreams}:
+ *
+ * <pre>
+ * app.streams.sla.express: 30s
+ * app.streams.sla.low: 15m
+ * app.streams.emit.status-count: on-window-close
+ * app.streams.emit.revenue: rate-limited
+ * app.streams.emit.rate-limit: 30s
+ * </pre>
+ *
+ * Priorities left out keep their default stage SLA.
+ */
+@Getter
+@Component
+@ConfigurationProperties(prefix = "app.streams")
+public class AnalyticsStreamsProperties {
+
+    /**
+     * Longest time an order may stay in one stage, per priority.
+     */
+    private final Map<OrderPriority, Duration> sla = new EnumMap<>(Map.of(
+            OrderPriority.EXPRESS, Duration.ofSeconds(30),
+            OrderPriority.URGENT, Duration.ofMinutes(1),
+            OrderPriority.HIGH, Duration.ofMinutes(2),
+            OrderPriority.NORMAL, Duration.ofMinutes(5),
+            OrderPriority.LOW, Duration.ofMinutes(15)
+    ));
+
+    private final Emit emit = new Emit();
+
+    @PostConstruct
+    void validate() {
+        sla.forEach((priority, duration) -> {
+            if (duration == null || duration.isNegative() || duration.isZero()) {
+                throw new IllegalStateException("app.streams.sla." + priority.name().toLowerCase() + " must be positive");
+            }
+        });
+        if (emit.statusCount == null || emit.revenue == null) {
+            throw new IllegalStateException("app.streams.emit.status-count and app.streams.emit.revenue must be set");
+        }
+        if (emit.rateLimit == null || emit.rateLimit.isNegative() || emit.rateLimit.isZero()) {
+            throw new IllegalStateException("app.streams.emit.rate-limit must be positive");
+        }
+    }
+
+    /**
+     * When the windowed analytics forward their results, see {@link AnalyticsEmitMode}.
+     */
+    @Getter
+    @Setter
+    public static class Emit {
+        private AnalyticsEmitMode statusCount = AnalyticsEmitMode.ON_WINDOW_CLOSE;
+        private AnalyticsEmitMode revenue = AnalyticsEmitMode.RATE_LIMITED;
+        /** Interval of stream time between two emissions of a {@code RATE_LIMITED} analytic. */
+        private Duration rateLimit = Duration.ofSeconds(30);
+    }
+}
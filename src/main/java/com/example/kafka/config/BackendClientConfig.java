@@ -0,0 +1,63 @@
+package com.example.kafka.config;
+
+import com.example.kafka.backend.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Local stand-ins for the external inventory, payment and notification services. Disable with
+ * {@code app.backends.simulated=false} and declare real {@link InventoryClient},
+ * {@link PaymentGateway} and {@link NotificationSender} beans instead.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.backends.simulated", havingValue = "true", matchIfMissing = true)
+public class BackendClientConfig {
+
+    @Bean
+    public InventoryClient inventoryClient(
+            @Value("${app.backends.inventory.latency:uniform:500-1500}") String latency,
+            @Value("${app.backends.inventory.tail-probability:0.0}") double tailProbability,
+            @Value("${app.backends.inventory.tail-multiplier:1.0}") double tailMultiplier,
+            @Value("${app.backends.inventory.error-rate:0.0}") double errorRate,
+            @Value("${app.backends.inventory.max-concurrency:0}") int maxConcurrency,
+            @Value("${app.backends.inventory.queue-timeout-ms:1000}") long queueTimeoutMs,
+            @Value("${app.backends.inventory.availability-ratio:0.9}") double availabilityRatio,
+            @Value("${app.backends.inventory.initial-stock:1000000}") int initialStock,
+            MeterRegistry meterRegistry) {
+        SimulatedBackend backend = new SimulatedBackend("inventory", LatencyDistribution.parse(latency),
+                tailProbability, tailMultiplier, errorRate, maxConcurrency, queueTimeoutMs, meterRegistry);
+        return new SimulatedInventoryClient(backend, availabilityRatio, initialStock);
+    }
+
+    @Bean
+    public PaymentGateway paymentGateway(
+            @Value("${app.backends.payment.latency:uniform:1000-3000}") String latency,
+            @Value("${app.backends.payment.tail-probability:0.0}") double tailProbability,
+            @Value("${app.backends.payment.tail-multiplier:1.0}") double tailMultiplier,
+            @Value("${app.backends.payment.error-rate:0.0}") double errorRate,
+            @Value("${app.backends.payment.max-concurrency:0}") int maxConcurrency,
+            @Value("${app.backends.payment.queue-timeout-ms:1000}") long queueTimeoutMs,
+            @Value("${app.backends.payment.approval-ratio:0.9}") double approvalRatio,
+            MeterRegistry meterRegistry) {
+        SimulatedBackend backend = new SimulatedBackend("payment", LatencyDistribution.parse(latency),
+                tailProbability, tailMultiplier, errorRate, maxConcurrency, queueTimeoutMs, meterRegistry);
+        return new SimulatedPaymentGateway(backend, approvalRatio);
+    }
+
+    @Bean
+    public NotificationSender notificationSender(
+            @Value("${app.backends.notification.latency:uniform:200-700}") String latency,
+            @Value("${app.backends.notification.tail-probability:0.0}") double tailProbability,
+            @Value("${app.backends.notification.tail-multiplier:1.0}") double tailMultiplier,
+            @Value("${app.backends.notification.error-rate:0.0}") double errorRate,
+            @Value("${app.backends.notification.max-concurrency:0}") int maxConcurrency,
+            @Value("${app.backends.notification.queue-timeout-ms:1000}") long queueTimeoutMs,
+            MeterRegistry meterRegistry) {
+        SimulatedBackend backend = new SimulatedBackend("notification", LatencyDistribution.parse(latency),
+                tailProbability, tailMultiplier, errorRate, maxConcurrency, queueTimeoutMs, meterRegistry);
+        return new SimulatedNotificationSender(backend);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.kafka.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.streams.state.RocksDBConfigSetter;
+import org.rocksdb.BlockBasedTableConfig;
+import org.rocksdb.Cache;
+import org.rocksdb.LRUCache;
+import org.rocksdb.Options;
+import org.rocksdb.WriteBufferManager;
+
+import java.util.Map;
+
+/**
+ * Bounds the off-heap memory of every RocksDB store of the application: all stores share one
+ * LRU block cache (which also holds index and filter blocks) and a write buffer manager that
+ * charges memtables against that same cache.
+ */
+@Slf4j
+public class BoundedMemoryRocksDBConfig implements RocksDBConfigSetter {
+
+    public static final String TOTAL_OFF_HEAP_BYTES_CONFIG = "app.rocksdb.total-off-heap-bytes";
+    public static final String TOTAL_MEMTABLE_BYTES_CONFIG = "app.rocksdb.total-memtable-bytes";
+    public static final String INDEX_FILTER_RATIO_CONFIG = "app.rocksdb.index-filter-block-ratio";
+
+    private static final long DEFAULT_TOTAL_OFF_HEAP_BYTES = 128L * 1024 * 1024;
+    private static final long DEFAULT_TOTAL_MEMTABLE_BYTES = 32L * 1024 * 1024;
+    private static final double DEFAULT_INDEX_FILTER_RATIO = 0.1;
+    private static final long MEMTABLE_SIZE_BYTES = 8L * 1024 * 1024;
+    private static final int MAX_MEMTABLES = 3;
+
+    private static Cache cache;
+    private static WriteBufferManager writeBufferManager;
+
+    @Override
+    public void setConfig(String storeName, Options options, Map<String, Object> configs) {
+        initSharedResources(configs);
+
+        BlockBasedTableConfig tableConfig = (BlockBasedTableConfig) options.tableFormatConfig();
+        tableConfig.setBlockCache(cache);
+        tableConfig.setCacheIndexAndFilterBlocks(true);
+        tableConfig.setCacheIndexAndFilterBlocksWithHighPriority(true);
+        tableConfig.setPinTopLevelIndexAndFilter(true);
+        options.setTableFormatConfig(tableConfig);
+
+        options.setWriteBufferManager(writeBufferManager);
+        options.setWriteBufferSize(MEMTABLE_SIZE_BYTES);
+        options.setMaxWriteBufferNumber(MAX_MEMTABLES);
+    }
+
+    @Override
+    public void close(String storeName, Options options) {
+        // The cache and write buffer manager are shared by every store and live as long as the JVM.
+    }
+
+    private static synchronized void initSharedResources(Map<String, Object> configs) {
+        if (cache != null) {
+            return;
+        }
+
+        long totalOffHeapBytes = longConfig(configs, TOTAL_OFF_HEAP_BYTES_CONFIG, DEFAULT_TOTAL_OFF_HEAP_BYTES);
+        long totalMemtableBytes = longConfig(configs, TOTAL_MEMTABLE_BYTES_CONFIG, DEFAULT_TOTAL_MEMTABLE_BYTES);
+        Object ratio = configs.get(INDEX_FILTER_RATIO_CONFIG);
+        double indexFilterRatio = ratio == null ? DEFAULT_INDEX_FILTER_RATIO : Double.parseDouble(ratio.toString());
+
+        cache = new LRUCache(totalOffHeapBytes, -1, false, indexFilterRatio);
+        writeBufferManager = new WriteBufferManager(totalMemtableBytes, cache);
+
+        log.info("🗄️ RocksDB bounded memory: blockCache={} bytes, memtables={} bytes, indexFilterRatio={}",
+                totalOffHeapBytes, totalMemtableBytes, indexFilterRatio);
+    }
+
+    private static long longConfig(Map<String, Object> configs, String name, long defaultValue) {
+        Object value = configs.get(name);
+        return value == null ? defaultValue : Long.parseLong(value.toString());
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.kafka.config;
+
+import com.example.kafka.id.IdGenerator;
+import com.example.kafka.id.RandomUuidGenerator;
+import com.example.kafka.id.UlidGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Chooses the {@link IdGenerator}: {@code ulid} (default) or {@code uuid}. ULIDs need an
+ * {@code app.ids.node-id} unique per running instance; a node derived from the host name only
+ * has 16 bits and two pods can hash to the same value. A single instance without one gets node 0
+ * with a warning. With {@code app.ids.multi-instance=true}, startup fails without one instead.
+ */
+@Slf4j
+@Configuration
+public class IdGeneratorConfig {
+
+    @Bean
+    public IdGenerator idGenerator(
+            @Value("${app.ids.generator:ulid}") String generator,
+            @Value("${app.ids.multi-instance:false}") boolean multiInstance,
+            Environment environment) {
+        if ("uuid".equalsIgnoreCase(generator)) {
+            log.info("🆔 ID generator: random UUID");
+            return new RandomUuidGenerator();
+        }
+
+        Integer nodeId = nodeId(environment);
+        if (nodeId == null && multiInstance) {
+            throw new IllegalStateException("No ULID node id with app.ids.multi-instance=true: set the APP_NODE_ID"
+                    + " environment variable (or --app.ids.node-id) to a value between 0 and 65535, unique per instance");
+        }
+        if (nodeId == null) {
+            log.warn("⚠️ No ULID node id (APP_NODE_ID), using node 0: IDs are only unique while a single instance runs."
+                    + " Set APP_NODE_ID per instance, and APP_MULTI_INSTANCE=true to enforce it");
+            nodeId = 0;
+        }
+        if (nodeId < 0 || nodeId > 0xFFFF) {
+            throw new IllegalStateException(
+                    "app.ids.node-id (APP_NODE_ID) must be between 0 and 65535, unique per instance: " + nodeId);
+        }
+        log.info("🆔 ID generator: ULID, node={}", nodeId);
+        return new UlidGenerator(nodeId);
+    }
+
+    private static Integer nodeId(Environment environment) {
+        try {
+            return environment.getProperty("app.ids.node-id", Integer.class);
+        } catch (IllegalArgumentException e) {
+            // ${APP_NODE_ID} left unresolved
+            return null;
+        }
+    }
+}
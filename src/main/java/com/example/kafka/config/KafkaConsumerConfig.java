@@ -1,11 +1,19 @@
 package com.example.kafka.config;
 
+import com.example.kafka.claimcheck.ClaimCheck;
+import com.example.kafka.claimcheck.ClaimCheckDeserializer;
+import com.example.kafka.consumer.RetryConsumer;
+import com.example.kafka.dispatch.OrderCreatedDispatcher;
 import com.example.kafka.model.Notification;
 import com.example.kafka.model.Order;
 import com.example.kafka.model.OrderEvent;
+import com.example.kafka.pipeline.StagePartitionOwnership;
+import com.example.kafka.projection.OrderProjection;
+import com.example.kafka.projection.OrderProjectionDeserializer;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafka;
@@ -13,11 +21,14 @@ import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
 import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.util.backoff.FixedBackOff;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 @EnableKafka
 @Configuration
@@ -26,6 +37,14 @@ public class KafkaConsumerConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    private final ClaimCheck claimCheck;
+    private final StagePartitionOwnership stageOwnership;
+
+    public KafkaConsumerConfig(ClaimCheck claimCheck, StagePartitionOwnership stageOwnership) {
+        this.claimCheck = claimCheck;
+        this.stageOwnership = stageOwnership;
+    }
+
     private Map<String, Object> consumerConfigs(String groupId) {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
@@ -44,9 +63,7 @@ public class KafkaConsumerConfig {
 
     @Bean
     public ConsumerFactory<String, Order> orderConsumerFactory() {
-        Map<String, Object> props = consumerConfigs("order-processing-group");
-        props.put(JsonDeserializer.VALUE_DEFAULT_TYPE, Order.class);
-        return new DefaultKafkaConsumerFactory<>(props);
+        return fullOrderConsumerFactory(consumerConfigs("order-processing-group"));
     }
 
     @Bean
@@ -62,9 +79,7 @@ public class KafkaConsumerConfig {
 
     @Bean
     public ConsumerFactory<String, Order> validationConsumerFactory() {
-        Map<String, Object> props = consumerConfigs("validation-group");
-        props.put(JsonDeserializer.VALUE_DEFAULT_TYPE, Order.class);
-        return new DefaultKafkaConsumerFactory<>(props);
+        return fullOrderConsumerFactory(consumerConfigs("validation-group"));
     }
 
     @Bean
@@ -76,35 +91,109 @@ public class KafkaConsumerConfig {
         return factory;
     }
 
+    /**
+     * One batch container for every {@code order.created} handler; offsets are committed by the
+     * dispatcher itself once all handlers are past a record.
+     */
     @Bean
-    public ConsumerFactory<String, Order> inventoryConsumerFactory() {
-        Map<String, Object> props = consumerConfigs("inventory-group");
+    @ConditionalOnProperty(name = "app.dispatch.fan-out.enabled", havingValue = "true")
+    public ConcurrentKafkaListenerContainerFactory<String, Order> dispatchKafkaListenerContainerFactory(
+            OrderCreatedDispatcher dispatcher,
+            @Value("${app.dispatch.fan-out.concurrency:3}") int concurrency,
+            @Value("${app.dispatch.fan-out.retry-backoff-ms:1000}") long retryBackoffMs) {
+        Map<String, Object> props = consumerConfigs(OrderCreatedDispatcher.GROUP_ID);
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+
+        ConcurrentKafkaListenerContainerFactory<String, Order> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(fullOrderConsumerFactory(props));
+        factory.setConcurrency(concurrency);
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setConsumerRebalanceListener(dispatcher);
+        // Handler failures are rethrown by the dispatcher once their partition is rewound; the
+        // dispatcher itself gives up after max-attempts, so this only spaces the retries.
+        factory.setCommonErrorHandler(new DefaultErrorHandler(
+                new FixedBackOff(retryBackoffMs, FixedBackOff.UNLIMITED_ATTEMPTS)));
+        return factory;
+    }
+
+    /**
+     * Consumers binding the whole order resolve claim-check envelopes before deserializing.
+     */
+    private ConsumerFactory<String, Order> fullOrderConsumerFactory(Map<String, Object> props) {
         props.put(JsonDeserializer.VALUE_DEFAULT_TYPE, Order.class);
-        return new DefaultKafkaConsumerFactory<>(props);
+        return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(new ClaimCheckDeserializer<>(new JsonDeserializer<>(), claimCheck)));
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, Order> inventoryKafkaListenerContainerFactory() {
-        ConcurrentKafkaListenerContainerFactory<String, Order> factory =
+    public ConsumerFactory<String, OrderProjection> inventoryConsumerFactory() {
+        Map<String, Object> props = consumerConfigs("inventory-group");
+        // Reservations complete asynchronously: a batch is committed only once all of them are settled.
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        return projectionConsumerFactory(props, OrderProjection.INVENTORY);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, OrderProjection> inventoryKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, OrderProjection> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(inventoryConsumerFactory());
         factory.setConcurrency(3);
+        factory.setBatchListener(true);
+        // Manual, so that a batch can be committed only up to a handoff still running (nack).
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setConsumerRebalanceListener(stageOwnership);
         return factory;
     }
 
     @Bean
-    public ConsumerFactory<String, Order> paymentConsumerFactory() {
+    public ConsumerFactory<String, OrderProjection> paymentConsumerFactory() {
         Map<String, Object> props = consumerConfigs("payment-group");
-        props.put(JsonDeserializer.VALUE_DEFAULT_TYPE, Order.class);
-        return new DefaultKafkaConsumerFactory<>(props);
+        // Payments run on the bulkhead pools: a batch is committed only once all of them are done.
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        return projectionConsumerFactory(props, OrderProjection.PAYMENT);
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, Order> paymentKafkaListenerContainerFactory() {
-        ConcurrentKafkaListenerContainerFactory<String, Order> factory =
+    public ConcurrentKafkaListenerContainerFactory<String, OrderProjection> paymentKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, OrderProjection> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(paymentConsumerFactory());
         factory.setConcurrency(2);
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setConsumerRebalanceListener(stageOwnership);
+        return factory;
+    }
+
+    /**
+     * Stage consumers only bind the fields their stage reads; see {@link OrderProjection}. They
+     * only resolve claim-check envelopes when the stage reads part of the offloaded body.
+     */
+    private ConsumerFactory<String, OrderProjection> projectionConsumerFactory(Map<String, Object> props, Set<String> fields) {
+        return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(new OrderProjectionDeserializer(fields, claimCheck)));
+    }
+
+    @Bean
+    public ConsumerFactory<String, Order> retryConsumerFactory() {
+        Map<String, Object> props = consumerConfigs("retry-group");
+        // Only resent records are acknowledged; a record still backing off must not be committed past.
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        return fullOrderConsumerFactory(props);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Order> retryKafkaListenerContainerFactory(
+            RetryConsumer retryConsumer) {
+        ConcurrentKafkaListenerContainerFactory<String, Order> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(retryConsumerFactory());
+        factory.setConcurrency(1);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL_IMMEDIATE);
+        factory.getContainerProperties().setConsumerRebalanceListener(retryConsumer);
         return factory;
     }
 
@@ -129,6 +218,8 @@ public class KafkaConsumerConfig {
     public ConsumerFactory<String, Notification> notificationConsumerFactory() {
         Map<String, Object> props = consumerConfigs("notification-group");
         props.put(JsonDeserializer.VALUE_DEFAULT_TYPE, Notification.class);
+        // A batch is committed only up to a handoff still running, see NotificationConsumer.
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
         return new DefaultKafkaConsumerFactory<>(props);
     }
 
@@ -138,6 +229,26 @@ public class KafkaConsumerConfig {
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(notificationConsumerFactory());
         factory.setConcurrency(2);
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setConsumerRebalanceListener(stageOwnership);
+        return factory;
+    }
+
+    @Bean
+    public ConsumerFactory<String, String> latencyTrackingConsumerFactory() {
+        Map<String, Object> props = consumerConfigs("loadgen-latency-group");
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        return new DefaultKafkaConsumerFactory<>(props);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> latencyTrackingKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, String> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(latencyTrackingConsumerFactory());
+        factory.setConcurrency(2);
         return factory;
     }
 }
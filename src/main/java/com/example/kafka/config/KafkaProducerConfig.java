@@ -1,9 +1,14 @@
 package com.example.kafka.config;
 
+import com.example.kafka.claimcheck.ClaimCheck;
+import com.example.kafka.claimcheck.ClaimCheckSerializer;
 import com.example.kafka.model.Notification;
 import com.example.kafka.model.Order;
 import com.example.kafka.model.OrderEvent;
+import com.example.kafka.model.Product;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -15,6 +20,7 @@ import org.springframework.kafka.support.serializer.JsonSerializer;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Supplier;
 
 @Configuration
 public class KafkaProducerConfig {
@@ -22,51 +28,71 @@ public class KafkaProducerConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
-    private Map<String, Object> producerConfigs() {
+    private final ProducerProfiles producerProfiles;
+    private final ClaimCheck claimCheck;
+
+    public KafkaProducerConfig(ProducerProfiles producerProfiles, ClaimCheck claimCheck) {
+        this.producerProfiles = producerProfiles;
+        this.claimCheck = claimCheck;
+    }
+
+    private Map<String, Object> producerConfigs(String profileName) {
         Map<String, Object> props = new HashMap<>();
         props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-        props.put(ProducerConfig.ACKS_CONFIG, "all");
         props.put(ProducerConfig.RETRIES_CONFIG, 3);
-        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
         props.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
-        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "snappy");
-        props.put(ProducerConfig.LINGER_MS_CONFIG, 10);
-        props.put(ProducerConfig.BATCH_SIZE_CONFIG, 32768);
+        props.putAll(producerProfiles.producerConfigs(profileName));
         return props;
     }
 
-    @Bean
-    public ProducerFactory<String, Order> orderProducerFactory() {
-        return new DefaultKafkaProducerFactory<>(producerConfigs());
+    /**
+     * One producer factory per bound profile, so that each topic is sent with the settings of
+     * its profile (see {@link ProducerProfiles}). Producers are only created on first send.
+     */
+    private <V> KafkaTemplate<String, V> profiledTemplate(Supplier<Serializer<V>> valueSerializer) {
+        Map<String, ProducerFactory<String, V>> factoriesByProfile = new HashMap<>();
+        for (String profileName : producerProfiles.boundProfileNames()) {
+            factoriesByProfile.put(profileName, new DefaultKafkaProducerFactory<>(producerConfigs(profileName),
+                    new StringSerializer(), valueSerializer.get()));
+        }
+
+        Map<String, ProducerFactory<String, V>> factoriesByTopic = new HashMap<>();
+        producerProfiles.getTopics().forEach((topic, profileName) ->
+                factoriesByTopic.put(topic, factoriesByProfile.get(profileName)));
+        return new ProfiledKafkaTemplate<>(factoriesByProfile.get(ProducerProfiles.DEFAULT), factoriesByTopic,
+                factoriesByProfile.values());
     }
 
+    /**
+     * Order payloads go through the {@link ClaimCheck}, which offloads large orders on the
+     * pipeline topics; everything else is sent as serialized.
+     */
     @Bean
     public KafkaTemplate<String, Order> orderKafkaTemplate() {
-        KafkaTemplate<String, Order> template = new KafkaTemplate<>(orderProducerFactory());
+        KafkaTemplate<String, Order> template =
+                profiledTemplate(() -> new ClaimCheckSerializer<>(new JsonSerializer<>(), claimCheck));
         template.setDefaultTopic("order.created");
         return template;
     }
 
     @Bean
-    public ProducerFactory<String, OrderEvent> eventProducerFactory() {
-        return new DefaultKafkaProducerFactory<>(producerConfigs());
+    public KafkaTemplate<String, byte[]> rawOrderKafkaTemplate() {
+        return profiledTemplate(() -> new ClaimCheckSerializer<>(new ByteArraySerializer(), claimCheck));
     }
 
     @Bean
     public KafkaTemplate<String, OrderEvent> eventKafkaTemplate() {
-        return new KafkaTemplate<>(eventProducerFactory());
+        return profiledTemplate(JsonSerializer::new);
     }
 
     @Bean
-    public ProducerFactory<String, Notification> notificationProducerFactory() {
-        return new DefaultKafkaProducerFactory<>(producerConfigs());
+    public KafkaTemplate<String, Notification> notificationKafkaTemplate() {
+        return profiledTemplate(JsonSerializer::new);
     }
 
     @Bean
-    public KafkaTemplate<String, Notification> notificationKafkaTemplate() {
-        return new KafkaTemplate<>(notificationProducerFactory());
+    public KafkaTemplate<String, Product> productKafkaTemplate() {
+        return profiledTemplate(JsonSerializer::new);
     }
 
     @Bean
@@ -1,14 +1,22 @@
 package com.example.kafka.config;
 
+import com.example.kafka.streams.StateRestoreTracker;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.StreamsBuilder;
 import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.errors.LogAndContinueExceptionHandler;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.KStream;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafkaStreams;
 import org.springframework.kafka.annotation.KafkaStreamsDefaultConfiguration;
 import org.springframework.kafka.config.KafkaStreamsConfiguration;
+import org.springframework.kafka.config.StreamsBuilderFactoryBeanConfigurer;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -16,21 +24,116 @@ import java.util.Map;
 @Configuration
 public class KafkaStreamsConfig {
 
+    public static final String ANALYTICS_APPLICATION_ID = "order-streams-app";
+    public static final String CHOREOGRAPHY_APPLICATION_ID = "order-choreography-app";
+
+    /** Inventory reservation and payment authorization, see {@code OrderChoreographyProcessor}. */
+    private static final int BACKEND_CALLS_PER_ORDER = 2;
+
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    @Value("${app.streams.state-dir:${user.home}/.kafka-order-system/streams-state}")
+    private String stateDir;
+
+    @Value("${app.streams.num-standby-replicas:1}")
+    private int numStandbyReplicas;
+
+    @Value("${app.streams.cache-max-bytes:10485760}")
+    private long cacheMaxBytes;
+
+    @Value("${app.streams.rocksdb.total-off-heap-bytes:134217728}")
+    private long rocksDbTotalOffHeapBytes;
+
+    @Value("${app.streams.rocksdb.total-memtable-bytes:33554432}")
+    private long rocksDbTotalMemtableBytes;
+
+    @Value("${app.streams.rocksdb.index-filter-block-ratio:0.1}")
+    private double rocksDbIndexFilterBlockRatio;
+
     @Bean(name = KafkaStreamsDefaultConfiguration.DEFAULT_STREAMS_CONFIG_BEAN_NAME)
-    public KafkaStreamsConfiguration kStreamsConfig() {
+    public KafkaStreamsConfiguration kStreamsConfig(ProducerProfiles producerProfiles) {
+        Map<String, Object> props = streamsProps(ANALYTICS_APPLICATION_ID);
+        props.put(StreamsConfig.COMMIT_INTERVAL_MS_CONFIG, 1000);
+        props.put(StreamsConfig.NUM_STREAM_THREADS_CONFIG, 2);
+        // One producer per stream thread for every output (order.analytics, changelogs): it takes
+        // the profile bound to order.analytics.
+        producerProfiles.producerConfigs(producerProfiles.profileNameFor("order.analytics"))
+                .forEach((key, value) -> props.put(StreamsConfig.producerPrefix(key), value));
+        return new KafkaStreamsConfiguration(props);
+    }
+
+    /**
+     * Separate application for the Streams choreography engine: its transitions must be
+     * exactly-once, which is an application-wide setting the analytics topology does not need.
+     *
+     * <p>The inventory and payment calls of an order block the stream thread while its transaction
+     * is open. If they outlast {@code transaction.timeout.ms} the broker aborts the transaction and
+     * fences the producer, and the order is processed (and charged) again, so the timeout is set
+     * explicitly and both calls plus a commit interval must fit in half of it.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.choreography.engine", havingValue = "streams")
+    public KafkaStreamsConfiguration choreographyStreamsConfig(
+            @Value("${app.choreography.streams.num-stream-threads:5}") int numStreamThreads,
+            @Value("${app.choreography.streams.commit-interval-ms:100}") long commitIntervalMs,
+            @Value("${app.choreography.streams.backend-timeout-ms:5000}") long backendTimeoutMs,
+            @Value("${app.choreography.streams.transaction-timeout-ms:60000}") int transactionTimeoutMs) {
+        long worstCaseMs = BACKEND_CALLS_PER_ORDER * backendTimeoutMs + commitIntervalMs;
+        if (worstCaseMs > transactionTimeoutMs / 2) {
+            throw new IllegalStateException(String.format(
+                    "app.choreography.streams: %d backend calls x backend-timeout-ms (%d) + commit-interval-ms (%d)"
+                            + " must stay under half of transaction-timeout-ms (%d)",
+                    BACKEND_CALLS_PER_ORDER, backendTimeoutMs, commitIntervalMs, transactionTimeoutMs));
+        }
+
+        Map<String, Object> props = streamsProps(CHOREOGRAPHY_APPLICATION_ID);
+        props.put(StreamsConfig.PROCESSING_GUARANTEE_CONFIG, StreamsConfig.EXACTLY_ONCE_V2);
+        props.put(StreamsConfig.producerPrefix(ProducerConfig.TRANSACTION_TIMEOUT_CONFIG), transactionTimeoutMs);
+        props.put(StreamsConfig.COMMIT_INTERVAL_MS_CONFIG, commitIntervalMs);
+        props.put(StreamsConfig.NUM_STREAM_THREADS_CONFIG, numStreamThreads);
+        props.put(StreamsConfig.DEFAULT_DESERIALIZATION_EXCEPTION_HANDLER_CLASS_CONFIG,
+                LogAndContinueExceptionHandler.class);
+        return new KafkaStreamsConfiguration(props);
+    }
+
+    private Map<String, Object> streamsProps(String applicationId) {
         Map<String, Object> props = new HashMap<>();
-        props.put(StreamsConfig.APPLICATION_ID_CONFIG, "order-streams-app");
+        props.put(StreamsConfig.APPLICATION_ID_CONFIG, applicationId);
         props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(StreamsConfig.DEFAULT_KEY_SERDE_CLASS_CONFIG, Serdes.String().getClass().getName());
         props.put(StreamsConfig.DEFAULT_VALUE_SERDE_CLASS_CONFIG, Serdes.String().getClass().getName());
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
-        props.put(StreamsConfig.CACHE_MAX_BYTES_BUFFERING_CONFIG, 0);
-        props.put(StreamsConfig.COMMIT_INTERVAL_MS_CONFIG, 1000);
-        props.put(StreamsConfig.NUM_STREAM_THREADS_CONFIG, 2);
-        props.put(StreamsConfig.STATE_DIR_CONFIG, System.getProperty("java.io.tmpdir") + "/kafka-streams-state");
-        return new KafkaStreamsConfiguration(props);
+        props.put(StreamsConfig.STATESTORE_CACHE_MAX_BYTES_CONFIG, cacheMaxBytes);
+        props.put(StreamsConfig.STATE_DIR_CONFIG, stateDir);
+        props.put(StreamsConfig.NUM_STANDBY_REPLICAS_CONFIG, numStandbyReplicas);
+        props.put(StreamsConfig.ROCKSDB_CONFIG_SETTER_CLASS_CONFIG, BoundedMemoryRocksDBConfig.class);
+        props.put(BoundedMemoryRocksDBConfig.TOTAL_OFF_HEAP_BYTES_CONFIG, rocksDbTotalOffHeapBytes);
+        props.put(BoundedMemoryRocksDBConfig.TOTAL_MEMTABLE_BYTES_CONFIG, rocksDbTotalMemtableBytes);
+        props.put(BoundedMemoryRocksDBConfig.INDEX_FILTER_RATIO_CONFIG, rocksDbIndexFilterBlockRatio);
+        return props;
+    }
+
+    /**
+     * Shared sources of the default topology: a topic can only be subscribed once per topology,
+     * and the analytics and velocity streams both read {@code order.created}.
+     */
+    @Bean
+    public KStream<String, String> orderCreatedStream(StreamsBuilder streamsBuilder) {
+        return streamsBuilder.stream("order.created", Consumed.with(Serdes.String(), Serdes.String()));
+    }
+
+    @Bean
+    public KStream<String, String> orderEventsStream(StreamsBuilder streamsBuilder) {
+        return streamsBuilder.stream("order.events", Consumed.with(Serdes.String(), Serdes.String()));
+    }
+
+    @Bean
+    public StreamsBuilderFactoryBeanConfigurer stateRestoreConfigurer(StateRestoreTracker stateRestoreTracker) {
+        return factoryBean -> {
+            StateRestoreTracker.ApplicationRestores restores = stateRestoreTracker.forApplication(ANALYTICS_APPLICATION_ID);
+            factoryBean.setStateRestoreListener(restores);
+            factoryBean.setStateListener(restores);
+        };
     }
 }
@@ -109,4 +109,13 @@ public class KafkaTopicConfig {
                 .replicas(1)
                 .build();
     }
+
+    @Bean
+    public NewTopic productCatalogTopic() {
+        return TopicBuilder.name("product.catalog")
+                .partitions(3)
+                .replicas(1)
+                .compact()
+                .build();
+    }
 }
@@ -0,0 +1,44 @@
+package com.example.kafka.config;
+
+import lombok.Data;
+
+import java.util.Set;
+
+/**
+ * Producer settings that vary by workload: latency-sensitive topics want no linger and no
+ * compression, bulk topics want large batches and a dense codec. Bound from
+ * {@code app.producer.profiles.<name>}; see {@link ProducerProfiles}.
+ */
+@Data
+public class ProducerProfile {
+
+    private static final Set<String> CODECS = Set.of("none", "gzip", "snappy", "lz4", "zstd");
+    private static final Set<String> CODECS_WITH_LEVEL = Set.of("gzip", "lz4", "zstd");
+
+    private String compression = "snappy";
+    private Integer compressionLevel;
+    private int lingerMs = 10;
+    private int batchSize = 32768;
+    private String acks = "all";
+    /** Producer {@code max.block.ms}; the client default (60 s) when unset. */
+    private Integer maxBlockMs;
+
+    void validate(String name) {
+        if (!CODECS.contains(compression)) {
+            throw new IllegalStateException("Producer profile " + name + ": unknown compression " + compression);
+        }
+        if (compressionLevel != null && !CODECS_WITH_LEVEL.contains(compression)) {
+            throw new IllegalStateException("Producer profile " + name + ": " + compression + " has no compression level");
+        }
+        if (!Set.of("all", "-1", "1", "0").contains(acks)) {
+            throw new IllegalStateException("Producer profile " + name + ": invalid acks " + acks);
+        }
+        if (maxBlockMs != null && maxBlockMs < 0) {
+            throw new IllegalStateException("Producer profile " + name + ": negative max-block-ms " + maxBlockMs);
+        }
+    }
+
+    boolean acksAll() {
+        return "all".equals(acks) || "-1".equals(acks);
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.kafka.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.utils.AppInfoParser;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Named producer profiles and the topics bound to them:
+ *
+ * <pre>
+ * app.producer.profiles.low-latency.linger-ms: 0
+ * app.producer.topics[order.notifications]: low-latency
+ * </pre>
+ *
+ * Topics without a binding use the {@value #DEFAULT} profile, which keeps the historical settings
+ * (snappy, linger 10 ms, 32 KiB batches, acks=all) unless overridden.
+ */
+@Slf4j
+@Component
+@ConfigurationProperties(prefix = "app.producer")
+public class ProducerProfiles {
+
+    public static final String DEFAULT = "default";
+
+    @Getter
+    @Setter
+    private Map<String, ProducerProfile> profiles = new HashMap<>();
+
+    @Getter
+    @Setter
+    private Map<String, String> topics = new HashMap<>();
+
+    private boolean compressionLevelSupported;
+
+    @PostConstruct
+    void validate() {
+        profiles.putIfAbsent(DEFAULT, new ProducerProfile());
+        profiles.forEach((name, profile) -> profile.validate(name));
+        topics.forEach((topic, profile) -> {
+            if (!profiles.containsKey(profile)) {
+                throw new IllegalStateException("Topic " + topic + " is bound to unknown producer profile " + profile);
+            }
+        });
+
+        compressionLevelSupported = clientSupportsCompressionLevel(AppInfoParser.getVersion());
+        profiles.forEach((name, profile) -> {
+            if (profile.getCompressionLevel() != null && !compressionLevelSupported) {
+                log.warn("⚠️ Producer profile {}: compression-level ignored, kafka-clients {} has no per-producer level (3.8+)",
+                        name, AppInfoParser.getVersion());
+            }
+        });
+        log.info("📦 Producer profiles: {}, topic bindings: {}", new TreeSet<>(profiles.keySet()), topics);
+    }
+
+    public String profileNameFor(String topic) {
+        return topics.getOrDefault(topic, DEFAULT);
+    }
+
+    /**
+     * @return the default profile and every profile bound to at least one topic
+     */
+    public Set<String> boundProfileNames() {
+        Set<String> names = new TreeSet<>(topics.values());
+        names.add(DEFAULT);
+        return names;
+    }
+
+    /**
+     * Producer properties of a profile. Idempotence needs {@code acks=all}, so it is turned off
+     * for profiles that acknowledge earlier.
+     */
+    public Map<String, Object> producerConfigs(String profileName) {
+        ProducerProfile profile = profiles.get(profileName);
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, profile.getCompression());
+        if (profile.getCompressionLevel() != null && compressionLevelSupported) {
+            props.put("compression." + profile.getCompression() + ".level", profile.getCompressionLevel());
+        }
+        props.put(ProducerConfig.LINGER_MS_CONFIG, profile.getLingerMs());
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, profile.getBatchSize());
+        props.put(ProducerConfig.ACKS_CONFIG, profile.getAcks());
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, profile.acksAll());
+        if (profile.getMaxBlockMs() != null) {
+            props.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, profile.getMaxBlockMs());
+        }
+        return props;
+    }
+
+    private static boolean clientSupportsCompressionLevel(String version) {
+        String[] parts = version.split("[.-]");
+        try {
+            int major = Integer.parseInt(parts[0]);
+            int minor = parts.length > 1 ? Integer.parseInt(parts[1]) : 0;
+            return major > 3 || (major == 3 && minor >= 8);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.kafka.config;
+
+import org.apache.kafka.clients.producer.Producer;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.lang.Nullable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link KafkaTemplate} that sends each record with the producer of its topic's profile, and
+ * records for unbound topics with the default one. Same mechanism as spring-kafka's
+ * {@code RoutingKafkaTemplate}, but typed, so callers keep their {@code KafkaTemplate<String, V>}.
+ */
+public class ProfiledKafkaTemplate<V> extends KafkaTemplate<String, V> {
+
+    private final Map<String, ProducerFactory<String, V>> factoriesByTopic;
+    private final List<ProducerFactory<String, V>> factories;
+
+    public ProfiledKafkaTemplate(ProducerFactory<String, V> defaultFactory,
+                                 Map<String, ProducerFactory<String, V>> factoriesByTopic,
+                                 Collection<ProducerFactory<String, V>> factories) {
+        super(defaultFactory);
+        this.factoriesByTopic = Map.copyOf(factoriesByTopic);
+        this.factories = List.copyOf(factories);
+    }
+
+    @Override
+    public ProducerFactory<String, V> getProducerFactory(String topic) {
+        ProducerFactory<String, V> factory = topic == null ? null : factoriesByTopic.get(topic);
+        return factory != null ? factory : getProducerFactory();
+    }
+
+    @Override
+    protected Producer<String, V> getTheProducer(@Nullable String topic) {
+        return getProducerFactory(topic).createProducer();
+    }
+
+    @Override
+    public void destroy() {
+        super.destroy();
+        factories.forEach(ProducerFactory::reset);
+    }
+}
@@ -1,106 +1,217 @@
 package com.example.kafka.consumer;
 
+import com.example.kafka.backend.CoalescingInventoryReserver;
+import com.example.kafka.id.IdGenerator;
 import com.example.kafka.model.Order;
 import com.example.kafka.model.OrderEvent;
 import com.example.kafka.model.OrderStatus;
+import com.example.kafka.pipeline.LocalHandoff;
+import com.example.kafka.pipeline.PipelineStage;
 import com.example.kafka.producer.EventProducer;
 import com.example.kafka.producer.OrderProducer;
+import com.example.kafka.projection.OrderProjection;
+import com.example.kafka.projection.OrderProjectionDeserializer;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Random;
-import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class InventoryConsumer {
 
+    private static final Duration RETRY_WRITE_REDELIVERY_DELAY = Duration.ofSeconds(1);
+
     private final OrderProducer orderProducer;
     private final EventProducer eventProducer;
-    private final Random random = new Random();
+    private final CoalescingInventoryReserver inventoryReserver;
+    private final IdGenerator idGenerator;
+    private final LocalHandoff localHandoff;
+    private final OrderProjectionDeserializer localDeserializer =
+            new OrderProjectionDeserializer(OrderProjection.INVENTORY);
+
+    @PostConstruct
+    void registerLocalHandoff() {
+        // Asynchronous, so the ring workers keep feeding the coalescer while reservations are pending.
+        localHandoff.registerAsync(PipelineStage.INVENTORY, payload ->
+                checkInventory(localDeserializer.deserialize(PipelineStage.INVENTORY.getTopic(), payload), null));
+    }
 
+    /**
+     * Batch listener, so that the reservations of a whole poll are coalesced together. It waits
+     * until every order of the batch has been forwarded, cancelled or sent to the retry topic, as
+     * acknowledged by the broker, before acknowledging the batch. A record whose retry write failed,
+     * or whose in-memory delivery is still running, stops the batch: only the records before it are
+     * committed, and it is read again.
+     */
     @KafkaListener(
             topics = "order.inventory",
             groupId = "inventory-group",
-            containerFactory = "inventoryKafkaListenerContainerFactory"
+            containerFactory = "inventoryKafkaListenerContainerFactory",
+            autoStartup = "#{'${app.choreography.engine:listeners}' == 'listeners'}"
     )
-    public void checkInventory(Order order) {
+    public void consumeInventory(List<ConsumerRecord<String, OrderProjection>> records, Acknowledgment acknowledgment) {
+        Map<Integer, CompletableFuture<Void>> checks = new LinkedHashMap<>();
+        long handoffDeadline = localHandoff.pollDeadline();
+        int handoffRunning = -1;
+        for (int i = 0; i < records.size() && handoffRunning < 0; i++) {
+            ConsumerRecord<String, OrderProjection> record = records.get(i);
+            if (record.value() == null) {
+                log.warn("⚠️ Skipping undeserializable order.inventory record: partition={}, offset={}",
+                        record.partition(), record.offset());
+                continue;
+            }
+            switch (localHandoff.await(header(record, LocalHandoff.HEADER), handoffDeadline)) {
+                case PROCESS -> checks.put(i, checkInventory(record.value(), header(record, "retry-attempt")));
+                case RUNNING -> handoffRunning = i;
+                case DELIVERED -> { }
+            }
+        }
+
+        CompletableFuture.allOf(checks.values().toArray(new CompletableFuture<?>[0]))
+                .exceptionally(ex -> null)
+                .join();
+        for (Map.Entry<Integer, CompletableFuture<Void>> check : checks.entrySet()) {
+            if (check.getValue().isCompletedExceptionally()) {
+                log.error("❌ Could not write inventory retry, reading the batch again from offset {}",
+                        records.get(check.getKey()).offset());
+                acknowledgment.nack(check.getKey(), RETRY_WRITE_REDELIVERY_DELAY);
+                return;
+            }
+        }
+        if (handoffRunning >= 0) {
+            acknowledgment.nack(handoffRunning, LocalHandoff.REDELIVERY_DELAY);
+        } else {
+            acknowledgment.acknowledge();
+        }
+    }
+
+    /**
+     * @return completes once the order's next record (payment, cancellation event or retry) has
+     * been acknowledged by the broker; fails only if the retry write failed
+     */
+    private CompletableFuture<Void> checkInventory(OrderProjection projection, String retryAttempt) {
+        Order order = projection.getOrder();
         log.info("📊 Checking inventory for order: orderId={}, items={}",
                 order.getOrderId(), order.getItems().size());
 
         try {
-            simulateInventoryCheck();
-
-            boolean inventoryAvailable = checkInventoryAvailability(order);
-
-            if (inventoryAvailable) {
-                order.setStatus(OrderStatus.INVENTORY_RESERVED);
-                order.setUpdatedAt(LocalDateTime.now());
-
-                log.info("✅ Inventory RESERVED: orderId={}", order.getOrderId());
-
-                orderProducer.sendOrderToPayment(order);
-
-                Map<String, Object> metadata = new HashMap<>();
-                order.getItems().forEach(item -> {
-                    metadata.put(item.getProductId(), item.getQuantity());
-                });
-
-                OrderEvent event = OrderEvent.builder()
-                        .eventId(UUID.randomUUID().toString())
-                        .orderId(order.getOrderId())
-                        .eventType("INVENTORY_RESERVED")
-                        .previousStatus(OrderStatus.VALIDATED)
-                        .newStatus(OrderStatus.INVENTORY_RESERVED)
-                        .description("Inventory reserved successfully")
-                        .triggeredBy("InventoryConsumer")
-                        .timestamp(LocalDateTime.now())
-                        .metadata(metadata)
-                        .build();
-
-                eventProducer.publishEvent(event);
-
-            } else {
-                order.setStatus(OrderStatus.CANCELLED);
-                order.setUpdatedAt(LocalDateTime.now());
-
-                log.warn("⚠️ Inventory NOT AVAILABLE: orderId={}", order.getOrderId());
-
-                OrderEvent event = OrderEvent.builder()
-                        .eventId(UUID.randomUUID().toString())
-                        .orderId(order.getOrderId())
-                        .eventType("INVENTORY_UNAVAILABLE")
-                        .previousStatus(OrderStatus.VALIDATED)
-                        .newStatus(OrderStatus.CANCELLED)
-                        .description("Inventory not available for order items")
-                        .triggeredBy("InventoryConsumer")
-                        .timestamp(LocalDateTime.now())
-                        .build();
-
-                eventProducer.publishEvent(event);
-            }
+            return inventoryReserver.reserve(order).handle((inventoryAvailable, ex) -> {
+                if (ex != null) {
+                    log.error("❌ Error checking inventory: orderId={}, error={}",
+                            order.getOrderId(), ex.getMessage(), ex);
+                    return sendToRetry(projection, PipelineStage.INVENTORY, retryAttempt,
+                            "inventory check failed: " + ex.getMessage());
+                }
+                return handleInventoryResult(projection, inventoryAvailable, retryAttempt);
+            }).thenCompose(Function.identity());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("❌ Interrupted while queuing inventory check: orderId={}", order.getOrderId());
+            return sendToRetry(projection, PipelineStage.INVENTORY, retryAttempt, "interrupted while queuing inventory check");
+        }
+    }
 
+    private CompletableFuture<Void> handleInventoryResult(OrderProjection projection, boolean inventoryAvailable,
+                                                          String retryAttempt) {
+        CompletableFuture<?> published;
+        try {
+            published = inventoryAvailable ? forwardToPayment(projection) : cancel(projection);
         } catch (Exception e) {
-            log.error("❌ Error checking inventory: orderId={}, error={}",
-                    order.getOrderId(), e.getMessage(), e);
+            published = CompletableFuture.failedFuture(e);
         }
+
+        return published.handle((result, ex) -> {
+            if (ex == null) {
+                return CompletableFuture.<Void>completedFuture(null);
+            }
+            Order order = projection.getOrder();
+            log.error("❌ Error checking inventory: orderId={}, error={}", order.getOrderId(), ex.getMessage(), ex);
+            // Once reserved, the stock must not be reserved again: resume at the payment stage.
+            return sendToRetry(projection, inventoryAvailable ? PipelineStage.PAYMENT : PipelineStage.INVENTORY,
+                    retryAttempt, "inventory result not published: " + ex.getMessage());
+        }).thenCompose(Function.identity());
     }
 
-    private boolean checkInventoryAvailability(Order order) {
-        return random.nextInt(10) < 9;
+    /**
+     * @return the write to {@code order.payment}
+     */
+    private CompletableFuture<?> forwardToPayment(OrderProjection projection) {
+        Order order = projection.getOrder();
+        order.setStatus(OrderStatus.INVENTORY_RESERVED);
+        order.setUpdatedAt(LocalDateTime.now());
+
+        log.info("✅ Inventory RESERVED: orderId={}", order.getOrderId());
+
+        CompletableFuture<?> forwarded = orderProducer.sendOrderToPayment(projection);
+
+        List<OrderEvent.ItemQuantity> reservedItems = new ArrayList<>(order.getItems().size());
+        order.getItems().forEach(item ->
+                reservedItems.add(new OrderEvent.ItemQuantity(item.getProductId(), item.getQuantity())));
+
+        OrderEvent event = OrderEvent.builder()
+                .eventId(idGenerator.nextId())
+                .orderId(order.getOrderId())
+                .eventType("INVENTORY_RESERVED")
+                .previousStatus(OrderStatus.VALIDATED)
+                .newStatus(OrderStatus.INVENTORY_RESERVED)
+                .description("Inventory reserved successfully")
+                .triggeredBy("InventoryConsumer")
+                .timestamp(LocalDateTime.now())
+                .reservedItems(reservedItems)
+                .build();
+
+        eventProducer.publishEvent(event);
+        return forwarded;
     }
 
-    private void simulateInventoryCheck() {
-        try {
-            Thread.sleep(500 + random.nextInt(1000));
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+    /**
+     * @return the write of the {@code INVENTORY_UNAVAILABLE} event
+     */
+    private CompletableFuture<?> cancel(OrderProjection projection) {
+        Order order = projection.getOrder();
+        order.setStatus(OrderStatus.CANCELLED);
+        order.setUpdatedAt(LocalDateTime.now());
+
+        log.warn("⚠️ Inventory NOT AVAILABLE: orderId={}", order.getOrderId());
+
+        OrderEvent event = OrderEvent.builder()
+                .eventId(idGenerator.nextId())
+                .orderId(order.getOrderId())
+                .eventType("INVENTORY_UNAVAILABLE")
+                .previousStatus(OrderStatus.VALIDATED)
+                .newStatus(OrderStatus.CANCELLED)
+                .description("Inventory not available for order items")
+                .triggeredBy("InventoryConsumer")
+                .timestamp(LocalDateTime.now())
+                .build();
+
+        return eventProducer.publishEvent(event);
+    }
+
+    private CompletableFuture<Void> sendToRetry(OrderProjection projection, PipelineStage target, String retryAttempt,
+                                                String reason) {
+        int attempt = retryAttempt == null ? 1 : Integer.parseInt(retryAttempt) + 1;
+        return orderProducer.sendToRetry(projection, target.getTopic(), attempt, reason).thenAccept(result -> { });
+    }
+
+    private static String header(ConsumerRecord<?, ?> record, String name) {
+        Header header = record.headers().lastHeader(name);
+        return header == null ? null : new String(header.value(), StandardCharsets.UTF_8);
     }
 }
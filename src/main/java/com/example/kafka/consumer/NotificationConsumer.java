@@ -1,33 +1,86 @@
 package com.example.kafka.consumer;
 
+import com.example.kafka.backend.NotificationSender;
 import com.example.kafka.model.Notification;
 import com.example.kafka.model.NotificationStatus;
+import com.example.kafka.pipeline.LocalHandoff;
+import com.example.kafka.pipeline.PipelineStage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.JacksonUtils;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
-import java.util.Random;
+import java.util.List;
 
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class NotificationConsumer {
 
-    private final Random random = new Random();
+    private final NotificationSender notificationSender;
+    private final LocalHandoff localHandoff;
+    private final ObjectMapper objectMapper = JacksonUtils.enhancedObjectMapper();
 
+    @PostConstruct
+    void registerLocalHandoff() {
+        localHandoff.register(PipelineStage.NOTIFICATION, payload -> {
+            try {
+                sendNotification(objectMapper.readValue(payload, Notification.class));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Batch listener, so that the waits for in-memory deliveries share one budget per poll. A
+     * record whose in-memory delivery is still running stops the batch: only the records before it
+     * are committed, and it is read again.
+     */
     @KafkaListener(
             topics = "order.notifications",
             groupId = "notification-group",
             containerFactory = "notificationKafkaListenerContainerFactory"
     )
-    public void sendNotification(Notification notification) {
+    public void consumeNotifications(List<ConsumerRecord<String, Notification>> records, Acknowledgment acknowledgment) {
+        long handoffDeadline = localHandoff.pollDeadline();
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<String, Notification> record = records.get(i);
+            if (record.value() == null) {
+                log.warn("⚠️ Skipping undeserializable order.notifications record: partition={}, offset={}",
+                        record.partition(), record.offset());
+                continue;
+            }
+            switch (localHandoff.await(header(record, LocalHandoff.HEADER), handoffDeadline)) {
+                case PROCESS -> sendNotification(record.value());
+                case RUNNING -> {
+                    acknowledgment.nack(i, LocalHandoff.REDELIVERY_DELAY);
+                    return;
+                }
+                case DELIVERED -> { }
+            }
+        }
+        acknowledgment.acknowledge();
+    }
+
+    private void sendNotification(Notification notification) {
         log.info("📧 Sending notification: type={}, channel={}, recipient={}",
                 notification.getType(),
                 notification.getChannel(),
                 notification.getRecipient());
 
         try {
-            simulateNotificationSending();
+            notificationSender.send(notification);
 
             notification.setStatus(NotificationStatus.SENT);
             notification.setSentAt(LocalDateTime.now());
@@ -44,11 +97,8 @@ public class NotificationConsumer {
         }
     }
 
-    private void simulateNotificationSending() {
-        try {
-            Thread.sleep(200 + random.nextInt(500));
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+    private static String header(ConsumerRecord<?, ?> record, String name) {
+        Header header = record.headers().lastHeader(name);
+        return header == null ? null : new String(header.value(), StandardCharsets.UTF_8);
     }
 }
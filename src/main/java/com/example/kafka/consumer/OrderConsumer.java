@@ -1,5 +1,7 @@
 package com.example.kafka.consumer;
 
+import com.example.kafka.dispatch.OrderCreatedHandler;
+import com.example.kafka.id.IdGenerator;
 import com.example.kafka.model.Order;
 import com.example.kafka.model.OrderEvent;
 import com.example.kafka.model.OrderStatus;
@@ -13,22 +15,23 @@ import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.UUID;
+import java.util.Optional;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
-public class OrderConsumer {
+public class OrderConsumer implements OrderCreatedHandler {
 
     private final EventProducer eventProducer;
+    private final IdGenerator idGenerator;
 
     @KafkaListener(
             topics = "order.created",
             groupId = "order-processing-group",
-            containerFactory = "orderKafkaListenerContainerFactory"
+            containerFactory = "orderKafkaListenerContainerFactory",
+            autoStartup = "#{'${app.choreography.engine:listeners}' == 'listeners' && !${app.dispatch.fan-out.enabled:false}}"
     )
     public void consumeOrderCreated(
             @Payload Order order,
@@ -48,14 +51,8 @@ public class OrderConsumer {
             order.setStatus(OrderStatus.CONFIRMED);
             order.setUpdatedAt(LocalDateTime.now());
 
-            Map<String, Object> metadata = new HashMap<>();
-            metadata.put("partition", partition);
-            metadata.put("offset", offset);
-            metadata.put("timestamp", timestamp);
-            metadata.put("itemsCount", order.getItems().size());
-
             OrderEvent event = OrderEvent.builder()
-                    .eventId(UUID.randomUUID().toString())
+                    .eventId(idGenerator.nextId())
                     .orderId(order.getOrderId())
                     .eventType("ORDER_CONFIRMED")
                     .previousStatus(OrderStatus.PENDING)
@@ -63,7 +60,10 @@ public class OrderConsumer {
                     .description("Order received and confirmed")
                     .triggeredBy("OrderConsumer")
                     .timestamp(LocalDateTime.now())
-                    .metadata(metadata)
+                    .sourcePartition(partition)
+                    .sourceOffset(offset)
+                    .sourceTimestamp(timestamp)
+                    .itemsCount(order.getItems().size())
                     .build();
 
             eventProducer.publishEvent(event);
@@ -77,10 +77,29 @@ public class OrderConsumer {
         }
     }
 
+    @Override
+    public String handlerName() {
+        return "order-processing";
+    }
+
+    @Override
+    public String legacyGroupId() {
+        return "order-processing-group";
+    }
+
+    @Override
+    public void onOrderCreated(ConsumerRecord<String, Order> record) {
+        String priority = Optional.ofNullable(record.headers().lastHeader("priority"))
+                .map(header -> new String(header.value(), StandardCharsets.UTF_8))
+                .orElse(null);
+        consumeOrderCreated(record.value(), record.partition(), record.offset(), record.timestamp(), priority);
+    }
+
     @KafkaListener(
             topics = "order.shipped",
             groupId = "order-processing-group",
-            containerFactory = "orderKafkaListenerContainerFactory"
+            containerFactory = "orderKafkaListenerContainerFactory",
+            autoStartup = "#{'${app.choreography.engine:listeners}' == 'listeners'}"
     )
     public void consumeOrderShipped(ConsumerRecord<String, Order> record) {
         Order order = record.value();
@@ -89,7 +108,7 @@ public class OrderConsumer {
                 order.getOrderId(), order.getCustomerName());
 
         OrderEvent event = OrderEvent.builder()
-                .eventId(UUID.randomUUID().toString())
+                .eventId(idGenerator.nextId())
                 .orderId(order.getOrderId())
                 .eventType("ORDER_TRACKING_READY")
                 .previousStatus(OrderStatus.READY_TO_SHIP)
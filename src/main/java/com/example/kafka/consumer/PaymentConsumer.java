@@ -1,36 +1,140 @@
 package com.example.kafka.consumer;
 
+import com.example.kafka.backend.PaymentAuthorizer;
+import com.example.kafka.id.IdGenerator;
+import com.example.kafka.limiter.PaymentBulkheads;
 import com.example.kafka.model.*;
+import com.example.kafka.pipeline.LocalHandoff;
+import com.example.kafka.pipeline.PipelineStage;
 import com.example.kafka.producer.EventProducer;
 import com.example.kafka.producer.NotificationProducer;
 import com.example.kafka.producer.OrderProducer;
+import com.example.kafka.projection.OrderProjection;
+import com.example.kafka.projection.OrderProjectionDeserializer;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Random;
-import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class PaymentConsumer {
 
+    private static final Duration RETRY_WRITE_REDELIVERY_DELAY = Duration.ofSeconds(1);
+
     private final OrderProducer orderProducer;
     private final EventProducer eventProducer;
     private final NotificationProducer notificationProducer;
-    private final Random random = new Random();
+    private final PaymentAuthorizer paymentAuthorizer;
+    private final PaymentBulkheads paymentBulkheads;
+    private final IdGenerator idGenerator;
+    private final LocalHandoff localHandoff;
+    private final OrderProjectionDeserializer localDeserializer =
+            new OrderProjectionDeserializer(OrderProjection.PAYMENT);
+
+    @PostConstruct
+    void registerLocalHandoff() {
+        localHandoff.registerAsync(PipelineStage.PAYMENT, payload ->
+                admitPayment(localDeserializer.deserialize(PipelineStage.PAYMENT.getTopic(), payload), null,
+                        paymentBulkheads.admissionDeadline()));
+    }
 
+    /**
+     * Batch listener: the container commits the batch once this returns, so it waits until every
+     * payment of the batch has run or been written to the retry topic. If a retry write failed,
+     * or a record's in-memory delivery is still running, the batch is committed up to that record
+     * and read again from it.
+     */
     @KafkaListener(
             topics = "order.payment",
             groupId = "payment-group",
-            containerFactory = "paymentKafkaListenerContainerFactory"
+            containerFactory = "paymentKafkaListenerContainerFactory",
+            autoStartup = "#{'${app.choreography.engine:listeners}' == 'listeners'}"
     )
-    public void processPayment(Order order) {
+    public void processPayment(List<ConsumerRecord<String, OrderProjection>> records, Acknowledgment acknowledgment) {
+        Map<Integer, CompletableFuture<Void>> payments = new LinkedHashMap<>();
+        long handoffDeadline = localHandoff.pollDeadline();
+        long admissionDeadline = paymentBulkheads.admissionDeadline();
+        int handoffRunning = -1;
+        for (int i = 0; i < records.size() && handoffRunning < 0; i++) {
+            ConsumerRecord<String, OrderProjection> record = records.get(i);
+            if (record.value() == null) {
+                log.warn("⚠️ Skipping undeserializable order.payment record: partition={}, offset={}",
+                        record.partition(), record.offset());
+                continue;
+            }
+            switch (localHandoff.await(header(record, LocalHandoff.HEADER), handoffDeadline)) {
+                case PROCESS -> payments.put(i,
+                        admitPayment(record.value(), header(record, "retry-attempt"), admissionDeadline));
+                case RUNNING -> handoffRunning = i;
+                case DELIVERED -> { }
+            }
+        }
+
+        CompletableFuture.allOf(payments.values().toArray(new CompletableFuture<?>[0]))
+                .exceptionally(ex -> null)
+                .join();
+        for (Map.Entry<Integer, CompletableFuture<Void>> payment : payments.entrySet()) {
+            if (payment.getValue().isCompletedExceptionally()) {
+                log.error("❌ Could not shed payment to order.retry, reading the batch again from offset {}",
+                        records.get(payment.getKey()).offset());
+                acknowledgment.nack(payment.getKey(), RETRY_WRITE_REDELIVERY_DELAY);
+                return;
+            }
+        }
+        if (handoffRunning >= 0) {
+            acknowledgment.nack(handoffRunning, LocalHandoff.REDELIVERY_DELAY);
+        } else {
+            acknowledgment.acknowledge();
+        }
+    }
+
+    /**
+     * Waits for room in the order's bulkhead until {@code admissionDeadline}, and only sheds the
+     * order to the retry topic past it.
+     *
+     * @return completes once the payment has run, or once the retry topic acknowledged the shed order
+     */
+    private CompletableFuture<Void> admitPayment(OrderProjection projection, String retryAttempt, long admissionDeadline) {
+        Order order = projection.getOrder();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        BooleanSupplier payment = () -> {
+            try {
+                return executePayment(projection);
+            } finally {
+                done.complete(null);
+            }
+        };
+        if (paymentBulkheads.submit(order, payment, admissionDeadline)) {
+            return done;
+        }
+
+        int attempt = retryAttempt == null ? 1 : Integer.parseInt(retryAttempt) + 1;
+        log.warn("🚦 Payment stage saturated, shedding to retry: orderId={}, priority={}, attempt={}",
+                order.getOrderId(), order.getPriority(), attempt);
+        return orderProducer.sendToRetry(projection, "order.payment", attempt, "payment stage saturated")
+                .thenAccept(result -> { });
+    }
+
+    /**
+     * @return {@code false} when the payment backend failed to answer, for the concurrency limiter
+     */
+    private boolean executePayment(OrderProjection projection) {
+        Order order = projection.getOrder();
         log.info("💳 Processing payment for order: orderId={}, amount={}, method={}",
                 order.getOrderId(),
                 order.getTotalAmount(),
@@ -40,43 +144,39 @@ public class PaymentConsumer {
             order.setStatus(OrderStatus.PAYMENT_PROCESSING);
             order.setUpdatedAt(LocalDateTime.now());
 
-            simulatePaymentProcessing();
-
-            boolean paymentSuccess = processPaymentTransaction(order);
+            boolean paymentSuccess = paymentAuthorizer.authorize(order);
 
             if (paymentSuccess) {
-                handleSuccessfulPayment(order);
+                handleSuccessfulPayment(projection);
             } else {
                 handleFailedPayment(order);
             }
+            return true;
 
         } catch (Exception e) {
             log.error("❌ Error processing payment: orderId={}, error={}",
                     order.getOrderId(), e.getMessage(), e);
             handleFailedPayment(order);
+            return false;
         }
     }
 
-    private void handleSuccessfulPayment(Order order) {
+    private void handleSuccessfulPayment(OrderProjection projection) {
+        Order order = projection.getOrder();
         order.setStatus(OrderStatus.PAYMENT_COMPLETED);
         order.setUpdatedAt(LocalDateTime.now());
 
         PaymentInfo paymentInfo = order.getPaymentInfo();
         paymentInfo.setPaymentStatus(PaymentStatus.CAPTURED);
-        paymentInfo.setTransactionId("TXN-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase());
+        paymentInfo.setTransactionId("TXN-" + idGenerator.nextId());
 
         log.info("✅ Payment SUCCESSFUL: orderId={}, transactionId={}",
                 order.getOrderId(), paymentInfo.getTransactionId());
 
-        orderProducer.sendOrderShipped(order);
-
-        Map<String, Object> metadata = new HashMap<>();
-        metadata.put("transactionId", paymentInfo.getTransactionId());
-        metadata.put("amount", order.getTotalAmount());
-        metadata.put("paymentMethod", paymentInfo.getPaymentMethod());
+        orderProducer.sendOrderShipped(projection);
 
         OrderEvent event = OrderEvent.builder()
-                .eventId(UUID.randomUUID().toString())
+                .eventId(idGenerator.nextId())
                 .orderId(order.getOrderId())
                 .eventType("PAYMENT_COMPLETED")
                 .previousStatus(OrderStatus.PAYMENT_PROCESSING)
@@ -84,7 +184,9 @@ public class PaymentConsumer {
                 .description("Payment processed successfully")
                 .triggeredBy("PaymentConsumer")
                 .timestamp(LocalDateTime.now())
-                .metadata(metadata)
+                .transactionId(paymentInfo.getTransactionId())
+                .amount(order.getTotalAmount())
+                .paymentMethod(paymentInfo.getPaymentMethod())
                 .build();
 
         eventProducer.publishEvent(event);
@@ -102,7 +204,7 @@ public class PaymentConsumer {
         log.warn("⚠️ Payment FAILED: orderId={}", order.getOrderId());
 
         OrderEvent event = OrderEvent.builder()
-                .eventId(UUID.randomUUID().toString())
+                .eventId(idGenerator.nextId())
                 .orderId(order.getOrderId())
                 .eventType("PAYMENT_FAILED")
                 .previousStatus(OrderStatus.PAYMENT_PROCESSING)
@@ -117,25 +219,9 @@ public class PaymentConsumer {
         sendPaymentFailedNotification(order);
     }
 
-    private boolean processPaymentTransaction(Order order) {
-        if (order.getTotalAmount().doubleValue() > 10000) {
-            log.warn("⚠️ High-value transaction requires manual approval: orderId={}", order.getOrderId());
-            return false;
-        }
-        return random.nextInt(10) < 9;
-    }
-
-    private void simulatePaymentProcessing() {
-        try {
-            Thread.sleep(1000 + random.nextInt(2000));
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-    }
-
     private void sendPaymentSuccessNotification(Order order) {
         Notification notification = Notification.builder()
-                .notificationId(UUID.randomUUID().toString())
+                .notificationId(idGenerator.nextId())
                 .orderId(order.getOrderId())
                 .customerId(order.getCustomerId())
                 .recipient(order.getCustomerEmail())
@@ -152,7 +238,7 @@ public class PaymentConsumer {
 
     private void sendPaymentFailedNotification(Order order) {
         Notification notification = Notification.builder()
-                .notificationId(UUID.randomUUID().toString())
+                .notificationId(idGenerator.nextId())
                 .orderId(order.getOrderId())
                 .customerId(order.getCustomerId())
                 .recipient(order.getCustomerEmail())
@@ -166,4 +252,9 @@ public class PaymentConsumer {
 
         notificationProducer.sendNotification(notification);
     }
+
+    private static String header(ConsumerRecord<?, ?> record, String name) {
+        Header header = record.headers().lastHeader(name);
+        return header == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
 }
@@ -0,0 +1,132 @@
+package com.example.kafka.consumer;
+
+import com.example.kafka.model.Order;
+import com.example.kafka.producer.OrderProducer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Delivers orders parked on {@code order.retry} back to the topic named by their
+ * {@code retry-target} header once an exponential backoff (based on the retry record
+ * timestamp) has elapsed, and gives up to {@code order.dead-letter} after the last attempt.
+ *
+ * <p>A record that is not due yet is not waited for on the listener thread: its partition is
+ * paused and rewound to it, and resumed by the task scheduler when the backoff ends. The container
+ * keeps polling meanwhile, the other partitions keep flowing, and offsets are only acknowledged for
+ * records that were actually resent.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RetryConsumer implements ConsumerAwareRebalanceListener {
+
+    static final String LISTENER_ID = "order-retry";
+
+    private final OrderProducer orderProducer;
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final TaskScheduler taskScheduler;
+
+    /** Partition → offset of the record it is rewound to; later records of the same poll are skipped. */
+    private final Map<TopicPartition, Long> backingOff = new ConcurrentHashMap<>();
+
+    @Value("${app.retry.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.retry.initial-backoff-ms:1000}")
+    private long initialBackoffMs;
+
+    @Value("${app.retry.max-backoff-ms:30000}")
+    private long maxBackoffMs;
+
+    @KafkaListener(
+            id = LISTENER_ID,
+            topics = "order.retry",
+            groupId = "retry-group",
+            containerFactory = "retryKafkaListenerContainerFactory"
+    )
+    public void retry(ConsumerRecord<String, Order> record, Acknowledgment acknowledgment, Consumer<?, ?> consumer) {
+        TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+        Long rewoundTo = backingOff.get(partition);
+        if (rewoundTo != null) {
+            if (record.offset() > rewoundTo) {
+                return;
+            }
+            backingOff.remove(partition);
+        }
+
+        Order order = record.value();
+        String target = header(record, "retry-target");
+        int attempt = Integer.parseInt(header(record, "retry-attempt", "1"));
+
+        if (target == null) {
+            orderProducer.sendToDeadLetter(order, "missing retry target");
+            acknowledgment.acknowledge();
+            return;
+        }
+
+        if (attempt > maxAttempts) {
+            orderProducer.sendToDeadLetter(order, "retries exhausted on " + target + ": " + header(record, "retry-reason"));
+            acknowledgment.acknowledge();
+            return;
+        }
+
+        long backoffMs = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt - 1, 20));
+        long waitMs = record.timestamp() + backoffMs - System.currentTimeMillis();
+        if (waitMs > 0) {
+            backOff(partition, record.offset(), waitMs, consumer);
+            return;
+        }
+
+        log.info("🔁 Retrying order: orderId={}, target={}, attempt={}/{}",
+                order.getOrderId(), target, attempt, maxAttempts);
+        orderProducer.resend(order, target, attempt);
+        acknowledgment.acknowledge();
+    }
+
+    private void backOff(TopicPartition partition, long offset, long waitMs, Consumer<?, ?> consumer) {
+        MessageListenerContainer container = listenerRegistry.getListenerContainer(LISTENER_ID);
+        backingOff.put(partition, offset);
+        consumer.seek(partition, offset);
+        container.pausePartition(partition);
+        taskScheduler.schedule(() -> container.resumePartition(partition), Instant.now().plusMillis(waitMs));
+        log.debug("⏸️ Retry partition {} paused for {} ms at offset {}", partition, waitMs, offset);
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        partitions.forEach(backingOff::remove);
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        partitions.forEach(backingOff::remove);
+    }
+
+    private static String header(ConsumerRecord<?, ?> record, String name) {
+        Header header = record.headers().lastHeader(name);
+        return header == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+
+    private static String header(ConsumerRecord<?, ?> record, String name, String defaultValue) {
+        String value = header(record, name);
+        return value == null ? defaultValue : value;
+    }
+}
@@ -1,37 +1,43 @@
 package com.example.kafka.consumer;
 
+import com.example.kafka.dispatch.OrderCreatedHandler;
+import com.example.kafka.id.IdGenerator;
 import com.example.kafka.model.*;
 import com.example.kafka.producer.EventProducer;
 import com.example.kafka.producer.NotificationProducer;
 import com.example.kafka.producer.OrderProducer;
+import com.example.kafka.validation.OrderValidator;
+import com.example.kafka.validation.ValidationResult;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.UUID;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
-public class ValidationConsumer {
+public class ValidationConsumer implements OrderCreatedHandler {
 
     private final OrderProducer orderProducer;
     private final EventProducer eventProducer;
     private final NotificationProducer notificationProducer;
+    private final OrderValidator orderValidator;
+    private final IdGenerator idGenerator;
 
     @KafkaListener(
             topics = "order.created",
             groupId = "validation-group",
-            containerFactory = "validationKafkaListenerContainerFactory"
+            containerFactory = "validationKafkaListenerContainerFactory",
+            autoStartup = "#{'${app.choreography.engine:listeners}' == 'listeners' && !${app.dispatch.fan-out.enabled:false}}"
     )
     public void validateOrder(Order order) {
         log.info("🔍 Validating order: orderId={}", order.getOrderId());
 
         try {
-            ValidationResult result = performValidation(order);
+            ValidationResult result = orderValidator.validate(order, OrderValidator.Stage.CONSUMER);
 
             if (result.isValid()) {
                 order.setStatus(OrderStatus.VALIDATED);
@@ -43,7 +49,7 @@ public class ValidationConsumer {
                 orderProducer.sendToInventory(order);
 
                 OrderEvent event = OrderEvent.builder()
-                        .eventId(UUID.randomUUID().toString())
+                        .eventId(idGenerator.nextId())
                         .orderId(order.getOrderId())
                         .eventType("ORDER_VALIDATED")
                         .previousStatus(OrderStatus.CONFIRMED)
@@ -63,7 +69,7 @@ public class ValidationConsumer {
                         order.getOrderId(), result.getReason());
 
                 OrderEvent event = OrderEvent.builder()
-                        .eventId(UUID.randomUUID().toString())
+                        .eventId(idGenerator.nextId())
                         .orderId(order.getOrderId())
                         .eventType("ORDER_VALIDATION_FAILED")
                         .previousStatus(OrderStatus.CONFIRMED)
@@ -84,44 +90,24 @@ public class ValidationConsumer {
         }
     }
 
-    private ValidationResult performValidation(Order order) {
-        if (order.getItems() == null || order.getItems().isEmpty()) {
-            return ValidationResult.invalid("Order must contain at least one item");
-        }
-
-        if (order.getCustomerEmail() == null || !order.getCustomerEmail().contains("@")) {
-            return ValidationResult.invalid("Invalid customer email address");
-        }
-
-        if (order.getShippingAddress() == null || order.getShippingAddress().getStreet() == null) {
-            return ValidationResult.invalid("Shipping address is required");
-        }
-
-        BigDecimal calculatedSubtotal = order.getItems().stream()
-                .map(OrderItem::getTotalPrice)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        if (order.getSubtotal().compareTo(calculatedSubtotal) != 0) {
-            return ValidationResult.invalid("Subtotal mismatch");
-        }
-
-        boolean hasInvalidQuantity = order.getItems().stream()
-                .anyMatch(item -> item.getQuantity() <= 0);
-
-        if (hasInvalidQuantity) {
-            return ValidationResult.invalid("Invalid item quantity");
-        }
+    @Override
+    public String handlerName() {
+        return "validation";
+    }
 
-        if (order.getTotalAmount().compareTo(BigDecimal.ZERO) <= 0) {
-            return ValidationResult.invalid("Total amount must be positive");
-        }
+    @Override
+    public String legacyGroupId() {
+        return "validation-group";
+    }
 
-        return ValidationResult.valid();
+    @Override
+    public void onOrderCreated(ConsumerRecord<String, Order> record) {
+        validateOrder(record.value());
     }
 
     private void sendValidationFailedNotification(Order order, String reason) {
         Notification notification = Notification.builder()
-                .notificationId(UUID.randomUUID().toString())
+                .notificationId(idGenerator.nextId())
                 .orderId(order.getOrderId())
                 .customerId(order.getCustomerId())
                 .recipient(order.getCustomerEmail())
@@ -135,19 +121,4 @@ public class ValidationConsumer {
 
         notificationProducer.sendNotification(notification);
     }
-
-    @lombok.Data
-    @lombok.AllArgsConstructor
-    private static class ValidationResult {
-        private boolean valid;
-        private String reason;
-
-        static ValidationResult valid() {
-            return new ValidationResult(true, null);
-        }
-
-        static ValidationResult invalid(String reason) {
-            return new ValidationResult(false, reason);
-        }
-    }
 }
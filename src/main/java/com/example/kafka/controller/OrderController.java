@@ -1,14 +1,22 @@
 package com.example.kafka.controller;
 
+import com.example.kafka.id.IdGenerator;
+import com.example.kafka.ingestion.AdmissionController;
+import com.example.kafka.ingestion.RawOrderIngestor;
 import com.example.kafka.model.*;
 import com.example.kafka.producer.OrderProducer;
+import com.example.kafka.validation.OrderValidator;
+import com.example.kafka.validation.ValidationRule;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -18,39 +26,67 @@ import java.util.*;
 @RequiredArgsConstructor
 public class OrderController {
 
+    private static final long TAX_RATE_BASIS_POINTS = 2000;
+    private static final Money DEFAULT_SHIPPING_COST = Money.of("10.00");
+
     private final OrderProducer orderProducer;
+    private final OrderValidator orderValidator;
+    private final RawOrderIngestor rawOrderIngestor;
+    private final AdmissionController admissionController;
+    private final IdGenerator idGenerator;
+
+    @Value("${app.ingestion.admission.retry-after-seconds:1}")
+    private int retryAfterSeconds;
 
     @PostMapping
     public ResponseEntity<Map<String, Object>> createOrder(@RequestBody Order order) {
         try {
-            order.setOrderId(UUID.randomUUID().toString());
+            ValidationRule violatedRule = orderValidator.checkContents(order);
+            if (violatedRule != null) {
+                return reject(violatedRule);
+            }
+
+            order.setOrderId(idGenerator.nextId());
             order.setStatus(OrderStatus.PENDING);
             order.setCreatedAt(LocalDateTime.now());
             order.setUpdatedAt(LocalDateTime.now());
 
-            BigDecimal subtotal = order.getItems().stream()
-                    .map(OrderItem::getTotalPrice)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            List<OrderItem> items = order.getItems();
+            Money subtotal = items.get(0).getTotalPrice();
+            for (int i = 1; i < items.size(); i++) {
+                subtotal = subtotal.plus(items.get(i).getTotalPrice());
+            }
             order.setSubtotal(subtotal);
 
             if (order.getTaxAmount() == null) {
-                order.setTaxAmount(subtotal.multiply(new BigDecimal("0.20")));
+                order.setTaxAmount(subtotal.percent(TAX_RATE_BASIS_POINTS));
             }
 
             if (order.getShippingCost() == null) {
-                order.setShippingCost(new BigDecimal("10.00"));
+                order.setShippingCost(DEFAULT_SHIPPING_COST);
             }
 
-            BigDecimal total = subtotal
-                    .add(order.getTaxAmount())
-                    .add(order.getShippingCost());
+            Money total = subtotal
+                    .plus(order.getTaxAmount())
+                    .plus(order.getShippingCost());
 
             if (order.getDiscountAmount() != null) {
-                total = total.subtract(order.getDiscountAmount());
+                total = total.minus(order.getDiscountAmount());
             }
 
             order.setTotalAmount(total);
 
+            violatedRule = orderValidator.checkTotal(order);
+            if (violatedRule != null) {
+                return reject(violatedRule);
+            }
+            orderValidator.record(OrderValidator.Stage.INGRESS, null);
+
+            AdmissionController.Decision decision = admissionController.admit(order.getPriority());
+            if (decision != AdmissionController.Decision.ADMITTED) {
+                return overloaded(decision);
+            }
+
             if (order.getPaymentInfo() == null) {
                 order.setPaymentInfo(PaymentInfo.builder()
                         .paymentMethod("CREDIT_CARD")
@@ -65,7 +101,9 @@ public class OrderController {
             log.info("🆕 Creating new order: orderId={}, customer={}, total={}",
                     order.getOrderId(), order.getCustomerName(), order.getTotalAmount());
 
-            orderProducer.sendOrderCreated(order);
+            if (admissionController.sendTimedOut(order.getPriority(), orderProducer.sendOrderCreated(order))) {
+                return overloaded(AdmissionController.Decision.SEND_TIMEOUT);
+            }
 
             Map<String, Object> response = new HashMap<>();
             response.put("orderId", order.getOrderId());
@@ -85,6 +123,82 @@ public class OrderController {
         }
     }
 
+    /**
+     * Same contract as {@link #createOrder}, but the body is streamed straight into the Kafka
+     * payload by {@link RawOrderIngestor} instead of being bound to an {@link Order} and
+     * serialized again.
+     */
+    @PostMapping(value = "/raw", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> createOrderRaw(@RequestBody byte[] body) {
+        try {
+            RawOrderIngestor.IngestedOrder order = rawOrderIngestor.ingest(body);
+            if (!order.isAccepted()) {
+                return rejectResponse(order.getViolatedRule());
+            }
+
+            OrderPriority priority = OrderPriority.valueOf(order.getPriority());
+            AdmissionController.Decision decision = admissionController.admit(priority);
+            if (decision != AdmissionController.Decision.ADMITTED) {
+                return overloaded(decision);
+            }
+
+            log.info("🆕 Creating new raw order: orderId={}, customer={}, total={}",
+                    order.getOrderId(), order.getCustomerId(), order.getTotalAmount());
+
+            if (admissionController.sendTimedOut(priority, orderProducer.sendRawOrderCreated(order))) {
+                return overloaded(AdmissionController.Decision.SEND_TIMEOUT);
+            }
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("orderId", order.getOrderId());
+            response.put("status", "PENDING");
+            response.put("totalAmount", order.getTotalAmount());
+            response.put("message", "Order created successfully and sent for processing");
+            response.put("estimatedDelivery", LocalDateTime.now().plusDays(5).toString());
+
+            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+
+        } catch (JsonProcessingException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Malformed order");
+            errorResponse.put("message", e.getOriginalMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
+        } catch (Exception e) {
+            log.error("❌ Error creating raw order: {}", e.getMessage(), e);
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Failed to create order");
+            errorResponse.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        }
+    }
+
+    private ResponseEntity<Map<String, Object>> overloaded(AdmissionController.Decision decision) {
+        log.warn("🚦 Order refused, ingestion saturated: reason={}", decision);
+
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("error", "Service saturated");
+        errorResponse.put("reason", decision.name());
+        errorResponse.put("message", "Please retry in " + retryAfterSeconds + "s");
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(errorResponse);
+    }
+
+    private ResponseEntity<Map<String, Object>> reject(ValidationRule violatedRule) {
+        orderValidator.record(OrderValidator.Stage.INGRESS, violatedRule);
+        return rejectResponse(violatedRule);
+    }
+
+    private ResponseEntity<Map<String, Object>> rejectResponse(ValidationRule violatedRule) {
+        log.debug("⛔ Order rejected at ingestion: rule={}", violatedRule);
+
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("error", "Invalid order");
+        errorResponse.put("rule", violatedRule.name());
+        errorResponse.put("message", violatedRule.getMessage());
+        return ResponseEntity.badRequest().body(errorResponse);
+    }
+
     @GetMapping("/example")
     public ResponseEntity<Order> getExampleOrder() {
         Order exampleOrder = Order.builder()
@@ -95,35 +209,35 @@ public class OrderController {
                 .priority(OrderPriority.NORMAL)
                 .items(Arrays.asList(
                         OrderItem.builder()
-                                .itemId(UUID.randomUUID().toString())
+                                .itemId(idGenerator.nextId())
                                 .productId("PROD-001")
                                 .productName("MacBook Pro 14\"")
                                 .sku("MBP14-256-SG")
                                 .quantity(1)
-                                .unitPrice(new BigDecimal("2499.99"))
-                                .totalPrice(new BigDecimal("2499.99"))
+                                .unitPrice(Money.of("2499.99"))
+                                .totalPrice(Money.of("2499.99"))
                                 .category("Electronics")
                                 .weight(1.6)
                                 .build(),
                         OrderItem.builder()
-                                .itemId(UUID.randomUUID().toString())
+                                .itemId(idGenerator.nextId())
                                 .productId("PROD-002")
                                 .productName("Magic Mouse")
                                 .sku("MM-WHT")
                                 .quantity(1)
-                                .unitPrice(new BigDecimal("99.99"))
-                                .totalPrice(new BigDecimal("99.99"))
+                                .unitPrice(Money.of("99.99"))
+                                .totalPrice(Money.of("99.99"))
                                 .category("Accessories")
                                 .weight(0.1)
                                 .build(),
                         OrderItem.builder()
-                                .itemId(UUID.randomUUID().toString())
+                                .itemId(idGenerator.nextId())
                                 .productId("PROD-003")
                                 .productName("USB-C Cable")
                                 .sku("USBC-2M")
                                 .quantity(2)
-                                .unitPrice(new BigDecimal("19.99"))
-                                .totalPrice(new BigDecimal("39.98"))
+                                .unitPrice(Money.of("19.99"))
+                                .totalPrice(Money.of("39.98"))
                                 .category("Accessories")
                                 .weight(0.05)
                                 .build()
@@ -166,13 +280,13 @@ public class OrderController {
                 .priority(OrderPriority.EXPRESS)
                 .items(Arrays.asList(
                         OrderItem.builder()
-                                .itemId(UUID.randomUUID().toString())
+                                .itemId(idGenerator.nextId())
                                 .productId("PROD-PREMIUM-001")
                                 .productName("MacBook Pro 16\" Max")
                                 .sku("MBP16-1TB-MAX")
                                 .quantity(3)
-                                .unitPrice(new BigDecimal("3999.99"))
-                                .totalPrice(new BigDecimal("11999.97"))
+                                .unitPrice(Money.of("3999.99"))
+                                .totalPrice(Money.of("11999.97"))
                                 .category("Electronics")
                                 .weight(2.1)
                                 .build()
@@ -0,0 +1,428 @@
+package com.example.kafka.dispatch;
+
+import com.example.kafka.model.Order;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Consumes {@code order.created} once and hands every record to all {@link OrderCreatedHandler}s,
+ * instead of one consumer group per handler fetching and deserializing the same bytes.
+ *
+ * <p>Each handler runs on its own lanes (one thread per lane, a partition always maps to the same
+ * lane), so a slow handler does not hold back the others, and keeps its own next offset per
+ * partition. The group commits the smallest of those offsets, with every handler's position in the
+ * commit metadata ({@code validation=1250,order-processing=1234}); after a rebalance or restart a
+ * handler skips the records it had already processed. On a partition this group never committed,
+ * each handler starts where its {@link OrderCreatedHandler#legacyGroupId() former group} stopped,
+ * or at the end of the partition if that group has no offset either.
+ *
+ * <p>A handler exception does not move the handler past the record: the handler stops on that
+ * partition, the partition is rewound to the record, and the exception is rethrown from the next
+ * {@link #dispatch} call so the container's error handler backs off before the record comes back.
+ * After {@code max-attempts} failures of the same record it is logged and skipped.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.dispatch.fan-out.enabled", havingValue = "true")
+public class OrderCreatedDispatcher implements ConsumerAwareRebalanceListener {
+
+    public static final String GROUP_ID = "order-created-dispatch-group";
+
+    private static final long SEED_TIMEOUT_SECONDS = 30;
+
+    private final List<HandlerLanes> handlers = new ArrayList<>();
+    private final long drainTimeoutMs;
+    private final KafkaAdmin kafkaAdmin;
+    private final Map<TopicPartition, OffsetAndMetadata> lastCommitted = new ConcurrentHashMap<>();
+    private final Queue<HandlerFailure> failures = new ConcurrentLinkedQueue<>();
+
+    public OrderCreatedDispatcher(
+            List<OrderCreatedHandler> handlers,
+            @Value("${app.dispatch.fan-out.lanes-per-handler:3}") int lanes,
+            @Value("${app.dispatch.fan-out.max-pending-per-handler:1000}") int maxPending,
+            @Value("${app.dispatch.fan-out.drain-timeout-ms:10000}") long drainTimeoutMs,
+            @Value("${app.dispatch.fan-out.max-attempts:10}") int maxAttempts,
+            KafkaAdmin kafkaAdmin,
+            MeterRegistry meterRegistry) {
+        this.drainTimeoutMs = drainTimeoutMs;
+        this.kafkaAdmin = kafkaAdmin;
+        for (OrderCreatedHandler handler : handlers) {
+            this.handlers.add(new HandlerLanes(handler, lanes, maxPending, maxAttempts, failures, meterRegistry));
+        }
+        log.info("🔀 order.created fan-out dispatcher: handlers={}, lanes={}", handlers.stream()
+                .map(OrderCreatedHandler::handlerName).toList(), lanes);
+    }
+
+    @KafkaListener(
+            topics = "order.created",
+            groupId = GROUP_ID,
+            containerFactory = "dispatchKafkaListenerContainerFactory",
+            autoStartup = "#{'${app.choreography.engine:listeners}' == 'listeners'}"
+    )
+    public void dispatch(List<ConsumerRecord<String, Order>> records, Consumer<?, ?> consumer) throws InterruptedException {
+        rethrowHandlerFailures(consumer);
+
+        for (ConsumerRecord<String, Order> record : records) {
+            if (record.value() == null) {
+                log.warn("⚠️ Skipping undeserializable order.created record: partition={}, offset={}",
+                        record.partition(), record.offset());
+                for (HandlerLanes handler : handlers) {
+                    handler.skip(record);
+                }
+                continue;
+            }
+
+            boolean first = true;
+            for (HandlerLanes handler : handlers) {
+                if (handler.alreadyProcessed(record)) {
+                    continue;
+                }
+                Order order = first ? record.value() : record.value().toBuilder().build();
+                first = false;
+                handler.submit(withValue(record, order));
+            }
+        }
+
+        commit(consumer, consumer.assignment(), false);
+    }
+
+    /**
+     * Rewinds every partition a handler failed on to the failed record (nothing of this batch has
+     * been handed out yet), then hands the failure to the container's error handler, which backs
+     * off and calls {@link #dispatch} again.
+     */
+    private void rethrowHandlerFailures(Consumer<?, ?> consumer) {
+        if (failures.isEmpty()) {
+            return;
+        }
+
+        Map<TopicPartition, Long> rewind = new HashMap<>();
+        HandlerFailure first = null;
+        HandlerFailure failure;
+        while ((failure = failures.poll()) != null) {
+            first = first == null ? failure : first;
+            rewind.merge(failure.partition(), failure.offset(), Math::min);
+        }
+        rewind.forEach((partition, offset) -> {
+            if (consumer.assignment().contains(partition)) {
+                consumer.seek(partition, offset);
+            }
+        });
+        throw new KafkaException(String.format("Handler %s failed on %s offset %d",
+                first.handler(), first.partition(), first.offset()), first.cause());
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        Map<TopicPartition, OffsetAndMetadata> committed = consumer.committed(new HashSet<>(partitions));
+        List<TopicPartition> unseeded = new ArrayList<>();
+        for (TopicPartition partition : partitions) {
+            OffsetAndMetadata offset = committed.get(partition);
+            if (offset == null) {
+                unseeded.add(partition);
+                continue;
+            }
+            lastCommitted.put(partition, offset);
+            Map<String, Long> positions = decode(offset.metadata());
+            for (HandlerLanes handler : handlers) {
+                handler.restore(partition, positions.getOrDefault(handler.name(), offset.offset()));
+            }
+        }
+        if (!unseeded.isEmpty()) {
+            seedFromLegacyGroups(consumer, unseeded);
+        }
+    }
+
+    /**
+     * First assignment of a partition to this group: continue each handler from its former group
+     * instead of replaying the topic, and start handlers without one at the end of the partition.
+     */
+    private void seedFromLegacyGroups(Consumer<?, ?> consumer, List<TopicPartition> partitions) {
+        Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+        Map<TopicPartition, Long> start = new HashMap<>();
+        try (Admin admin = Admin.create(kafkaAdmin.getConfigurationProperties())) {
+            for (HandlerLanes handler : handlers) {
+                Map<TopicPartition, OffsetAndMetadata> legacy = admin
+                        .listConsumerGroupOffsets(handler.legacyGroupId())
+                        .partitionsToOffsetAndMetadata()
+                        .get(SEED_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                for (TopicPartition partition : partitions) {
+                    OffsetAndMetadata offset = legacy.get(partition);
+                    long position = offset != null ? offset.offset() : endOffsets.get(partition);
+                    handler.restore(partition, position);
+                    start.merge(partition, position, Math::min);
+                    log.info("🌱 Handler {} starts {} at offset {} ({})", handler.name(), partition, position,
+                            offset != null ? "from " + handler.legacyGroupId() : "end of partition");
+                }
+            }
+        } catch (ExecutionException | TimeoutException e) {
+            throw new KafkaException("Cannot read the offsets of the former order.created groups", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KafkaException("Interrupted while reading the former order.created offsets", e);
+        }
+        start.forEach(consumer::seek);
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        long deadline = System.currentTimeMillis() + drainTimeoutMs;
+        for (HandlerLanes handler : handlers) {
+            if (!handler.awaitIdle(deadline)) {
+                log.warn("⏳ Handler {} still busy at revocation, its unfinished records will be replayed",
+                        handler.name());
+            }
+        }
+        commit(consumer, partitions, true);
+        for (TopicPartition partition : partitions) {
+            lastCommitted.remove(partition);
+            handlers.forEach(handler -> handler.forget(partition));
+        }
+        failures.removeIf(failure -> partitions.contains(failure.partition()));
+    }
+
+    private void commit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions, boolean sync) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (TopicPartition partition : partitions) {
+            long minimum = Long.MAX_VALUE;
+            StringBuilder metadata = new StringBuilder();
+            for (HandlerLanes handler : handlers) {
+                long next = handler.nextOffset(partition);
+                if (next < 0) {
+                    minimum = -1;
+                    break;
+                }
+                minimum = Math.min(minimum, next);
+                metadata.append(metadata.length() == 0 ? "" : ",").append(handler.name()).append('=').append(next);
+            }
+            if (minimum < 0 || minimum == Long.MAX_VALUE) {
+                continue;
+            }
+
+            OffsetAndMetadata offset = new OffsetAndMetadata(minimum, metadata.toString());
+            if (!offset.equals(lastCommitted.get(partition))) {
+                offsets.put(partition, offset);
+            }
+        }
+        if (offsets.isEmpty()) {
+            return;
+        }
+
+        if (sync) {
+            consumer.commitSync(offsets);
+            lastCommitted.putAll(offsets);
+        } else {
+            consumer.commitAsync(offsets, (committed, e) -> {
+                if (e == null) {
+                    lastCommitted.putAll(committed);
+                } else {
+                    log.warn("⚠️ Dispatcher offset commit failed: {}", e.getMessage());
+                }
+            });
+        }
+    }
+
+    private static Map<String, Long> decode(String metadata) {
+        Map<String, Long> positions = new HashMap<>();
+        if (metadata == null || metadata.isEmpty()) {
+            return positions;
+        }
+        for (String entry : metadata.split(",")) {
+            int separator = entry.indexOf('=');
+            if (separator > 0) {
+                positions.put(entry.substring(0, separator), Long.parseLong(entry.substring(separator + 1)));
+            }
+        }
+        return positions;
+    }
+
+    private static ConsumerRecord<String, Order> withValue(ConsumerRecord<String, Order> record, Order order) {
+        if (order == record.value()) {
+            return record;
+        }
+        return new ConsumerRecord<>(record.topic(), record.partition(), record.offset(), record.timestamp(),
+                record.timestampType(), record.serializedKeySize(), record.serializedValueSize(),
+                record.key(), order, record.headers(), record.leaderEpoch());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        handlers.forEach(HandlerLanes::shutdown);
+    }
+
+    private record HandlerFailure(String handler, TopicPartition partition, long offset, Exception cause) {
+    }
+
+    /**
+     * One handler's executors, bounded by a semaphore, and its next offset per partition. After a
+     * failure the handler ignores the partition until the failed record is delivered again.
+     */
+    private static final class HandlerLanes {
+
+        private final OrderCreatedHandler handler;
+        private final ExecutorService[] lanes;
+        private final Semaphore pending;
+        private final int maxPending;
+        private final int maxAttempts;
+        private final Queue<HandlerFailure> failures;
+        private final Map<TopicPartition, Long> nextOffsets = new ConcurrentHashMap<>();
+        private final Map<TopicPartition, Long> failedAt = new ConcurrentHashMap<>();
+        private final Map<TopicPartition, Integer> attempts = new ConcurrentHashMap<>();
+        private final Counter errors;
+
+        private HandlerLanes(OrderCreatedHandler handler, int laneCount, int maxPending, int maxAttempts,
+                             Queue<HandlerFailure> failures, MeterRegistry meterRegistry) {
+            this.handler = handler;
+            this.maxPending = maxPending;
+            this.maxAttempts = maxAttempts;
+            this.failures = failures;
+            this.pending = new Semaphore(maxPending);
+            this.lanes = new ExecutorService[laneCount];
+            for (int i = 0; i < laneCount; i++) {
+                String threadName = "dispatch-" + handler.handlerName() + "-" + i;
+                lanes[i] = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, threadName));
+            }
+            this.errors = Counter.builder("dispatch.handler.errors")
+                    .tag("handler", handler.handlerName())
+                    .register(meterRegistry);
+            Gauge.builder("dispatch.handler.pending", pending, semaphore -> maxPending - semaphore.availablePermits())
+                    .tag("handler", handler.handlerName())
+                    .register(meterRegistry);
+        }
+
+        private String name() {
+            return handler.handlerName();
+        }
+
+        private String legacyGroupId() {
+            return handler.legacyGroupId();
+        }
+
+        private boolean alreadyProcessed(ConsumerRecord<?, ?> record) {
+            Long next = nextOffsets.get(new TopicPartition(record.topic(), record.partition()));
+            return next != null && record.offset() < next;
+        }
+
+        private void submit(ConsumerRecord<String, Order> record) throws InterruptedException {
+            execute(record, true);
+        }
+
+        /**
+         * Advances past a record without calling the handler, in order with the records before it.
+         */
+        private void skip(ConsumerRecord<String, Order> record) throws InterruptedException {
+            if (!alreadyProcessed(record)) {
+                execute(record, false);
+            }
+        }
+
+        private void execute(ConsumerRecord<String, Order> record, boolean deliver) throws InterruptedException {
+            pending.acquire();
+            TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+            lanes[Math.floorMod(record.partition(), lanes.length)].execute(() -> {
+                try {
+                    run(partition, record, deliver);
+                } finally {
+                    pending.release();
+                }
+            });
+        }
+
+        private void run(TopicPartition partition, ConsumerRecord<String, Order> record, boolean deliver) {
+            Long failed = failedAt.get(partition);
+            if (failed != null) {
+                if (record.offset() != failed) {
+                    // Handed out before the rewind; it comes back after the failed record.
+                    return;
+                }
+                failedAt.remove(partition);
+            }
+
+            try {
+                if (deliver) {
+                    handler.onOrderCreated(record);
+                }
+            } catch (Exception e) {
+                errors.increment();
+                int attempt = attempts.merge(partition, 1, Integer::sum);
+                if (attempt < maxAttempts) {
+                    log.warn("⚠️ Handler {} failed on order.created {} offset {} (attempt {}/{}): {}",
+                            name(), partition, record.offset(), attempt, maxAttempts, e.getMessage());
+                    failedAt.put(partition, record.offset());
+                    failures.add(new HandlerFailure(name(), partition, record.offset(), e));
+                    return;
+                }
+                log.error("❌ Handler {} gave up on order.created {} offset {} after {} attempts: {}",
+                        name(), partition, record.offset(), attempt, e.getMessage(), e);
+            }
+            attempts.remove(partition);
+            nextOffsets.put(partition, record.offset() + 1);
+        }
+
+        private long nextOffset(TopicPartition partition) {
+            return Optional.ofNullable(nextOffsets.get(partition)).orElse(-1L);
+        }
+
+        private void restore(TopicPartition partition, long nextOffset) {
+            nextOffsets.put(partition, nextOffset);
+        }
+
+        private void forget(TopicPartition partition) {
+            nextOffsets.remove(partition);
+            failedAt.remove(partition);
+            attempts.remove(partition);
+        }
+
+        private boolean awaitIdle(long deadlineMs) {
+            try {
+                long remaining = Math.max(0, deadlineMs - System.currentTimeMillis());
+                if (!pending.tryAcquire(maxPending, remaining, TimeUnit.MILLISECONDS)) {
+                    return false;
+                }
+                pending.release(maxPending);
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        private void shutdown() {
+            for (ExecutorService lane : lanes) {
+                lane.shutdown();
+            }
+        }
+    }
+}
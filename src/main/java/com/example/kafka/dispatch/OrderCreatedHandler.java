@@ -0,0 +1,25 @@
+package com.example.kafka.dispatch;
+
+import com.example.kafka.model.Order;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+/**
+ * A consumer of {@code order.created} that can be fed by {@link OrderCreatedDispatcher} instead of
+ * its own listener container. Each handler receives its own shallow copy of the order: top-level
+ * fields may be changed, nested objects are shared and must be treated as read-only.
+ */
+public interface OrderCreatedHandler {
+
+    /**
+     * Stable name used to track the handler's progress in the committed offsets metadata.
+     */
+    String handlerName();
+
+    /**
+     * Group that consumed {@code order.created} for this handler before the dispatcher; its
+     * committed offsets are where the handler starts on a partition the dispatcher never committed.
+     */
+    String legacyGroupId();
+
+    void onOrderCreated(ConsumerRecord<String, Order> record);
+}
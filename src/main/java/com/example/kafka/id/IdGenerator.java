@@ -0,0 +1,10 @@
+package com.example.kafka.id;
+
+/**
+ * Source of the identifiers the application assigns (orders, items, events, notifications,
+ * transactions). Implementations must be safe to call from any thread.
+ */
+public interface IdGenerator {
+
+    String nextId();
+}
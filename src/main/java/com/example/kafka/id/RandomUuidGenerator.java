@@ -0,0 +1,14 @@
+package com.example.kafka.id;
+
+import java.util.UUID;
+
+/**
+ * The former behaviour: random version 4 UUIDs from {@code SecureRandom}, 36 characters.
+ */
+public class RandomUuidGenerator implements IdGenerator {
+
+    @Override
+    public String nextId() {
+        return UUID.randomUUID().toString();
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.kafka.id;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * 128-bit time-ordered identifier: 48-bit millisecond timestamp, 16-bit node, 16-bit thread slot
+ * and 48-bit per-thread counter. The text form is the 26-character Crockford base32 encoding of
+ * ULID, whose lexicographic order matches the numeric order; the binary form is 16 bytes.
+ */
+public final class Ulid implements Comparable<Ulid> {
+
+    public static final int BYTES = 16;
+    public static final int LENGTH = 26;
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final byte[] DECODING = new byte[128];
+
+    static {
+        Arrays.fill(DECODING, (byte) -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            DECODING[ALPHABET[i]] = (byte) i;
+            DECODING[Character.toLowerCase(ALPHABET[i])] = (byte) i;
+        }
+    }
+
+    private final long mostSignificantBits;
+    private final long leastSignificantBits;
+
+    public Ulid(long mostSignificantBits, long leastSignificantBits) {
+        this.mostSignificantBits = mostSignificantBits;
+        this.leastSignificantBits = leastSignificantBits;
+    }
+
+    public long getMostSignificantBits() {
+        return mostSignificantBits;
+    }
+
+    public long getLeastSignificantBits() {
+        return leastSignificantBits;
+    }
+
+    public long timestampMs() {
+        return mostSignificantBits >>> 16;
+    }
+
+    public int node() {
+        return (int) (mostSignificantBits & 0xFFFF);
+    }
+
+    public static Ulid parse(CharSequence text) {
+        if (text.length() != LENGTH) {
+            throw new IllegalArgumentException("ULID must have " + LENGTH + " characters: " + text);
+        }
+
+        long msb = 0;
+        long lsb = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            char c = text.charAt(i);
+            int value = c < DECODING.length ? DECODING[c] : -1;
+            if (value < 0 || (i == 0 && value > 7)) {
+                throw new IllegalArgumentException("Invalid ULID: " + text);
+            }
+            msb = (msb << 5) | (lsb >>> 59);
+            lsb = (lsb << 5) | value;
+        }
+        return new Ulid(msb, lsb);
+    }
+
+    @Override
+    public String toString() {
+        char[] chars = new char[LENGTH];
+        long lsb = leastSignificantBits;
+        long msb = mostSignificantBits;
+        for (int i = LENGTH - 1; i > 13; i--) {
+            chars[i] = ALPHABET[(int) (lsb & 31)];
+            lsb >>>= 5;
+        }
+        chars[13] = ALPHABET[(int) ((lsb & 15) | ((msb & 1) << 4))];
+        msb >>>= 1;
+        for (int i = 12; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (msb & 31)];
+            msb >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    @Override
+    public int compareTo(Ulid other) {
+        int result = Long.compareUnsigned(mostSignificantBits, other.mostSignificantBits);
+        return result != 0 ? result : Long.compareUnsigned(leastSignificantBits, other.leastSignificantBits);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Ulid ulid
+                && ulid.mostSignificantBits == mostSignificantBits
+                && ulid.leastSignificantBits == leastSignificantBits;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(mostSignificantBits ^ leastSignificantBits);
+    }
+
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putLong(mostSignificantBits).putLong(leastSignificantBits);
+    }
+
+    public static Ulid readFrom(ByteBuffer buffer) {
+        return new Ulid(buffer.getLong(), buffer.getLong());
+    }
+
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(BYTES);
+        writeTo(buffer);
+        return buffer.array();
+    }
+}
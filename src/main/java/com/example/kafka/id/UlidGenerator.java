@@ -0,0 +1,87 @@
+package com.example.kafka.id;
+
+import java.lang.ref.Cleaner;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Generates {@link Ulid}s without locks or {@code SecureRandom}: every live thread owns one of the
+ * 65536 slots and its counter, so IDs from one slot are strictly increasing and IDs from different
+ * threads of the node never collide. Across nodes, uniqueness relies on each instance having its
+ * own node id. If the clock steps back, a slot keeps its last timestamp.
+ *
+ * <p>A slot is returned to the pool once its thread has been garbage collected, and the next thread
+ * carries on with its timestamp and counter, so short-lived threads (pools that time out idle
+ * threads) never make two live threads share a slot.
+ */
+public class UlidGenerator implements IdGenerator {
+
+    private static final long COUNTER_MASK = (1L << 48) - 1;
+    private static final int MAX_SLOTS = 1 << 16;
+    private static final AtomicInteger NEXT_SLOT = new AtomicInteger();
+    private static final Queue<ThreadState> FREE_SLOTS = new ConcurrentLinkedQueue<>();
+    private static final Cleaner SLOT_CLEANER = Cleaner.create();
+
+    private final long node;
+    private final LongSupplier clock;
+    private final ThreadLocal<ThreadState> threadState = ThreadLocal.withInitial(UlidGenerator::acquireSlot);
+
+    public UlidGenerator(int node) {
+        this(node, System::currentTimeMillis);
+    }
+
+    UlidGenerator(int node, LongSupplier clock) {
+        if (node < 0 || node > 0xFFFF) {
+            throw new IllegalArgumentException("Node must be between 0 and 65535: " + node);
+        }
+        this.node = node;
+        this.clock = clock;
+    }
+
+    public Ulid next() {
+        ThreadState state = threadState.get();
+        long now = clock.getAsLong();
+        if (now > state.lastMs) {
+            state.lastMs = now;
+        }
+
+        state.counter = (state.counter + 1) & COUNTER_MASK;
+        if (state.counter == 0) {
+            // Counter wrapped within the same millisecond: borrow the next one to stay monotonic.
+            state.lastMs++;
+        }
+        return new Ulid(state.lastMs << 16 | node, state.slot << 48 | state.counter);
+    }
+
+    @Override
+    public String nextId() {
+        return next().toString();
+    }
+
+    private static ThreadState acquireSlot() {
+        ThreadState state = FREE_SLOTS.poll();
+        if (state == null) {
+            int slot = NEXT_SLOT.getAndIncrement();
+            if (slot >= MAX_SLOTS) {
+                throw new IllegalStateException("All " + MAX_SLOTS + " ULID thread slots are in use");
+            }
+            state = new ThreadState(slot);
+        }
+        ThreadState released = state;
+        SLOT_CLEANER.register(Thread.currentThread(), () -> FREE_SLOTS.add(released));
+        return state;
+    }
+
+    private static final class ThreadState {
+        private final long slot;
+        private long counter = ThreadLocalRandom.current().nextLong(1L << 47);
+        private long lastMs;
+
+        private ThreadState(int slot) {
+            this.slot = slot;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.kafka.ingestion;
+
+import com.example.kafka.model.Order;
+import com.example.kafka.model.OrderPriority;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decides whether {@code OrderController} may hand a new order to the producer. The buffer
+ * usage of the ingest producers (sampled from their {@code buffer-available-bytes} /
+ * {@code buffer-total-bytes} metrics) and the number of unacknowledged {@code order.created}
+ * sends are compared with a lower limit for standard orders than for EXPRESS ones, so EXPRESS
+ * keeps some headroom when the broker slows down. Decisions are counted as
+ * {@code order.admission} tagged with the priority class, the decision and the reason.
+ *
+ * <p>Sampling lags behind the producer, so an admitted send can still find the buffer full or
+ * the metadata unavailable. The ingest producers then give up after their short
+ * {@code max.block.ms} with a {@link TimeoutException}, which {@link #sendTimedOut} reports as
+ * {@link Decision#SEND_TIMEOUT}.
+ */
+@Slf4j
+@Component
+public class AdmissionController {
+
+    public enum Decision { ADMITTED, BUFFER_FULL, TOO_MANY_IN_FLIGHT, SEND_TIMEOUT }
+
+    private static final String PRODUCER_METRICS_GROUP = "producer-metrics";
+
+    private final List<KafkaTemplate<String, ?>> ingestTemplates;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<Boolean, Map<Decision, Counter>> counters;
+    private volatile double bufferUsedRatio;
+
+    @Value("${app.ingestion.admission.max-in-flight:5000}")
+    private int maxInFlight;
+
+    @Value("${app.ingestion.admission.standard-limit-ratio:0.8}")
+    private double standardLimitRatio;
+
+    @Value("${app.ingestion.admission.express-limit-ratio:0.95}")
+    private double expressLimitRatio;
+
+    public AdmissionController(KafkaTemplate<String, Order> orderKafkaTemplate,
+                               KafkaTemplate<String, byte[]> rawOrderKafkaTemplate,
+                               MeterRegistry meterRegistry) {
+        this.ingestTemplates = List.of(orderKafkaTemplate, rawOrderKafkaTemplate);
+        this.counters = Map.of(
+                true, decisionCounters(meterRegistry, "express"),
+                false, decisionCounters(meterRegistry, "standard"));
+
+        Gauge.builder("order.admission.buffer.used.ratio", this, controller -> controller.bufferUsedRatio)
+                .register(meterRegistry);
+        Gauge.builder("order.admission.in-flight", inFlight, AtomicInteger::get)
+                .register(meterRegistry);
+    }
+
+    public Decision admit(OrderPriority priority) {
+        boolean express = priority == OrderPriority.EXPRESS;
+        double limitRatio = express ? expressLimitRatio : standardLimitRatio;
+
+        Decision decision;
+        if (bufferUsedRatio > limitRatio) {
+            decision = Decision.BUFFER_FULL;
+        } else if (inFlight.get() >= maxInFlight * limitRatio) {
+            decision = Decision.TOO_MANY_IN_FLIGHT;
+        } else {
+            decision = Decision.ADMITTED;
+        }
+
+        counters.get(express).get(decision).increment();
+        return decision;
+    }
+
+    /**
+     * @return whether the send already failed because the producer could not get buffer space or
+     * metadata within {@code max.block.ms}; such sends are counted as {@link Decision#SEND_TIMEOUT}
+     */
+    public boolean sendTimedOut(OrderPriority priority, CompletableFuture<?> send) {
+        if (!send.isCompletedExceptionally()) {
+            return false;
+        }
+        Throwable failure = send.handle((result, ex) -> ex).join();
+        if (!isSendTimeout(failure)) {
+            return false;
+        }
+        counters.get(priority == OrderPriority.EXPRESS).get(Decision.SEND_TIMEOUT).increment();
+        return true;
+    }
+
+    public static boolean isSendTimeout(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void onSendStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    public void onSendCompleted() {
+        inFlight.decrementAndGet();
+    }
+
+    @Scheduled(fixedRateString = "${app.ingestion.admission.sample-interval-ms:100}")
+    public void sampleProducerBuffers() {
+        double maxUsed = 0.0;
+        for (KafkaTemplate<String, ?> template : ingestTemplates) {
+            try {
+                Map<MetricName, ? extends Metric> metrics = template.metrics();
+                Double available = producerMetric(metrics, "buffer-available-bytes");
+                Double total = producerMetric(metrics, "buffer-total-bytes");
+                if (available != null && total != null && total > 0) {
+                    maxUsed = Math.max(maxUsed, 1.0 - available / total);
+                }
+            } catch (Exception e) {
+                log.debug("Producer metrics unavailable: {}", e.getMessage());
+            }
+        }
+        bufferUsedRatio = maxUsed;
+    }
+
+    private static Double producerMetric(Map<MetricName, ? extends Metric> metrics, String name) {
+        for (Map.Entry<MetricName, ? extends Metric> metric : metrics.entrySet()) {
+            if (PRODUCER_METRICS_GROUP.equals(metric.getKey().group()) && name.equals(metric.getKey().name())) {
+                Object value = metric.getValue().metricValue();
+                return value instanceof Number ? ((Number) value).doubleValue() : null;
+            }
+        }
+        return null;
+    }
+
+    private static Map<Decision, Counter> decisionCounters(MeterRegistry meterRegistry, String priorityClass) {
+        Map<Decision, Counter> decisionCounters = new EnumMap<>(Decision.class);
+        for (Decision decision : Decision.values()) {
+            decisionCounters.put(decision, Counter.builder("order.admission")
+                    .tag("priority", priorityClass)
+                    .tag("decision", decision == Decision.ADMITTED ? "admitted" : "rejected")
+                    .tag("reason", decision.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        return decisionCounters;
+    }
+}
@@ -0,0 +1,461 @@
+package com.example.kafka.ingestion;
+
+import com.example.kafka.id.IdGenerator;
+import com.example.kafka.model.Money;
+import com.example.kafka.model.OrderPriority;
+import com.example.kafka.model.PaymentStatus;
+import com.example.kafka.validation.OrderValidator;
+import com.example.kafka.validation.ValidationRule;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Turns a raw {@code POST /api/orders} body into the {@code order.created} payload in a single
+ * streaming pass: tokens are copied from the request to the output buffer as they are read,
+ * server-owned and unknown fields sent by the client are dropped, the validation rules and amounts are
+ * evaluated on the fly, and the derived fields (orderId, status, timestamps, subtotal, tax,
+ * total and defaults) are appended before the closing brace. No {@code Order} object is built.
+ *
+ * <p>Each kept field is checked against its type in {@code Order} the way Jackson binds it for the
+ * typed endpoint (scalars are accepted as text, numeric text as numbers and amounts), and written
+ * in its bound form. A value that would not bind, or a field given twice, fails with a
+ * {@link JsonParseException}, which the controller answers with {@code 400}.
+ */
+@Component
+@RequiredArgsConstructor
+public class RawOrderIngestor {
+
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .enable(StreamReadFeature.STRICT_DUPLICATE_DETECTION)
+            .build();
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+    private static final long TAX_RATE_BASIS_POINTS = 2000;
+    private static final Money DEFAULT_SHIPPING_COST = Money.of("10.00");
+    private static final Set<String> PRIORITIES = Arrays.stream(OrderPriority.values())
+            .map(Enum::name)
+            .collect(Collectors.toUnmodifiableSet());
+    private static final Set<String> PAYMENT_STATUSES = Arrays.stream(PaymentStatus.values())
+            .map(Enum::name)
+            .collect(Collectors.toUnmodifiableSet());
+    /**
+     * Text fields of the client kept as they are; every other field that is not handled
+     * explicitly is dropped, so a client cannot smuggle fields the pipeline interprets
+     * (e.g. {@code claimCheck}).
+     */
+    private static final Set<String> TEXT_FIELDS = Set.of(
+            "customerName", "phoneNumber", "notes", "couponCode");
+    private static final Set<String> ITEM_TEXT_FIELDS = Set.of(
+            "itemId", "productId", "productName", "sku", "category");
+    private static final Set<String> ADDRESS_FIELDS = Set.of(
+            "street", "city", "state", "postalCode", "country", "phoneNumber");
+    private static final Set<String> PAYMENT_TEXT_FIELDS = Set.of(
+            "paymentMethod", "transactionId", "cardLastFour", "paymentProcessor");
+
+    private final OrderValidator orderValidator;
+    private final IdGenerator idGenerator;
+
+    public IngestedOrder ingest(byte[] body) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(body.length + 256);
+        ParseState state = new ParseState();
+
+        try (JsonParser parser = JSON_FACTORY.createParser(body);
+             JsonGenerator generator = JSON_FACTORY.createGenerator(output)) {
+
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Order body must be a JSON object");
+            }
+            generator.writeStartObject();
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+
+                switch (field) {
+                    case "items" -> copyItems(parser, generator, state);
+                    case "shippingAddress" -> state.hasShippingStreet = copyAddress(field, parser, generator);
+                    case "billingAddress" -> copyAddress(field, parser, generator);
+                    case "customerEmail" -> state.customerEmail = copyText(field, parser, generator);
+                    case "customerId" -> state.customerId = copyText(field, parser, generator);
+                    case "priority" -> {
+                        state.priority = copyText(field, parser, generator);
+                        state.invalidPriority = state.priority != null && !PRIORITIES.contains(state.priority);
+                    }
+                    case "paymentInfo" -> state.hasPaymentInfo = copyPaymentInfo(parser, generator);
+                    case "taxAmount" -> state.taxAmount = copyAmount(field, parser, generator, state);
+                    case "shippingCost" -> state.shippingCost = copyAmount(field, parser, generator, state);
+                    case "discountAmount" -> state.discountAmount = copyAmount(field, parser, generator, state);
+                    default -> {
+                        if (TEXT_FIELDS.contains(field)) {
+                            copyText(field, parser, generator);
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                }
+            }
+            if (parser.nextToken() != null) {
+                throw new JsonParseException(parser, "Unexpected content after the order object");
+            }
+
+            ValidationRule violatedRule = state.violatedRule();
+            if (violatedRule != null) {
+                orderValidator.record(OrderValidator.Stage.INGRESS, violatedRule);
+                return IngestedOrder.rejected(violatedRule);
+            }
+
+            Money total = appendDerivedFields(generator, state);
+            if (total.signum() <= 0) {
+                orderValidator.record(OrderValidator.Stage.INGRESS, ValidationRule.NON_POSITIVE_TOTAL);
+                return IngestedOrder.rejected(ValidationRule.NON_POSITIVE_TOTAL);
+            }
+
+            generator.writeEndObject();
+            generator.flush();
+            orderValidator.record(OrderValidator.Stage.INGRESS, null);
+            return new IngestedOrder(state.orderId, state.customerId, state.priority, total, output.toByteArray(), null);
+        }
+    }
+
+    private Money appendDerivedFields(JsonGenerator generator, ParseState state) throws IOException {
+        state.orderId = idGenerator.nextId();
+        String now = LocalDateTime.now().format(TIMESTAMP_FORMAT);
+
+        Money subtotal = Money.ofMinor(state.subtotalMinorUnits);
+        Money taxAmount = state.taxAmount != null ? state.taxAmount : subtotal.percent(TAX_RATE_BASIS_POINTS);
+        Money shippingCost = state.shippingCost != null ? state.shippingCost : DEFAULT_SHIPPING_COST;
+        Money total = subtotal.plus(taxAmount).plus(shippingCost);
+        if (state.discountAmount != null) {
+            total = total.minus(state.discountAmount);
+        }
+
+        generator.writeStringField("orderId", state.orderId);
+        generator.writeStringField("status", "PENDING");
+        generator.writeStringField("createdAt", now);
+        generator.writeStringField("updatedAt", now);
+        writeAmount(generator, "subtotal", subtotal);
+        if (state.taxAmount == null) {
+            writeAmount(generator, "taxAmount", taxAmount);
+        }
+        if (state.shippingCost == null) {
+            writeAmount(generator, "shippingCost", shippingCost);
+        }
+        writeAmount(generator, "totalAmount", total);
+
+        if (!state.hasPaymentInfo) {
+            generator.writeObjectFieldStart("paymentInfo");
+            generator.writeStringField("paymentMethod", "CREDIT_CARD");
+            generator.writeStringField("paymentStatus", "PENDING");
+            generator.writeEndObject();
+        }
+
+        if (state.priority == null) {
+            state.priority = "NORMAL";
+            generator.writeStringField("priority", state.priority);
+        }
+
+        return total;
+    }
+
+    private void copyItems(JsonParser parser, JsonGenerator generator, ParseState state) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return;
+        }
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw new JsonParseException(parser, "Order items must be a JSON array");
+        }
+
+        generator.writeArrayFieldStart("items");
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Order items must be JSON objects");
+            }
+            state.itemCount++;
+            int quantity = 0;
+            Money totalPrice = null;
+
+            generator.writeStartObject();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+
+                switch (field) {
+                    case "quantity" -> {
+                        quantity = readInt(parser);
+                        generator.writeNumberField(field, quantity);
+                    }
+                    case "unitPrice" -> copyAmount(field, parser, generator, state);
+                    case "totalPrice" -> totalPrice = copyAmount(field, parser, generator, state);
+                    case "weight" -> {
+                        Double weight = readDouble(parser);
+                        if (weight != null) {
+                            generator.writeNumberField(field, weight);
+                        }
+                    }
+                    default -> {
+                        if (ITEM_TEXT_FIELDS.contains(field)) {
+                            copyText(field, parser, generator);
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                }
+            }
+            generator.writeEndObject();
+
+            if (quantity <= 0) {
+                state.invalidQuantity = true;
+            }
+            if (totalPrice == null) {
+                state.missingItemPrice = true;
+            } else if (totalPrice.getCurrency() == Money.DEFAULT_CURRENCY) {
+                try {
+                    state.subtotalMinorUnits = Math.addExact(state.subtotalMinorUnits, totalPrice.getMinorUnits());
+                } catch (ArithmeticException e) {
+                    throw new JsonParseException(parser, "Order subtotal out of range");
+                }
+            }
+        }
+        generator.writeEndArray();
+    }
+
+    /**
+     * @return {@code true} if the address has a street
+     */
+    private static boolean copyAddress(String addressField, JsonParser parser, JsonGenerator generator) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return false;
+        }
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, addressField + " must be a JSON object");
+        }
+
+        boolean hasStreet = false;
+        generator.writeObjectFieldStart(addressField);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if (!ADDRESS_FIELDS.contains(field)) {
+                parser.skipChildren();
+                continue;
+            }
+            if (copyText(field, parser, generator) != null && "street".equals(field)) {
+                hasStreet = true;
+            }
+        }
+        generator.writeEndObject();
+        return hasStreet;
+    }
+
+    /**
+     * @return {@code true} if the order has payment info
+     */
+    private static boolean copyPaymentInfo(JsonParser parser, JsonGenerator generator) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return false;
+        }
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "paymentInfo must be a JSON object");
+        }
+
+        generator.writeObjectFieldStart("paymentInfo");
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if ("paymentStatus".equals(field)) {
+                String status = readText(parser);
+                if (status != null && !PAYMENT_STATUSES.contains(status)) {
+                    throw new JsonParseException(parser, "Unknown payment status: " + status);
+                }
+                if (status != null) {
+                    generator.writeStringField(field, status);
+                }
+            } else if (PAYMENT_TEXT_FIELDS.contains(field)) {
+                copyText(field, parser, generator);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        generator.writeEndObject();
+        return true;
+    }
+
+    private static String copyText(String field, JsonParser parser, JsonGenerator generator) throws IOException {
+        String text = readText(parser);
+        if (text != null) {
+            generator.writeStringField(field, text);
+        }
+        return text;
+    }
+
+    /**
+     * Reads a {@code String} field as Jackson binds it: any scalar is taken as its text, and
+     * {@code null} as absent.
+     */
+    private static String readText(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (!token.isScalarValue()) {
+            throw new JsonParseException(parser, "Expected a text value for " + parser.getCurrentName());
+        }
+        return parser.getText();
+    }
+
+    /**
+     * Reads an {@code int} field; {@code null} binds to 0, numeric text is accepted, fractions are not.
+     */
+    private static int readInt(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return 0;
+        }
+        if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_STRING) {
+            try {
+                return Integer.parseInt(parser.getText().trim());
+            } catch (NumberFormatException e) {
+                // reported below
+            }
+        }
+        throw new JsonParseException(parser, "Expected an integer for " + parser.getCurrentName());
+    }
+
+    private static Double readDouble(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token.isNumeric() || token == JsonToken.VALUE_STRING) {
+            try {
+                double value = Double.parseDouble(parser.getText().trim());
+                if (Double.isFinite(value)) {
+                    return value;
+                }
+            } catch (NumberFormatException e) {
+                // reported below
+            }
+        }
+        throw new JsonParseException(parser, "Expected a number for " + parser.getCurrentName());
+    }
+
+    /**
+     * Copies an amount; one in another currency than the store's is flagged, as the typed
+     * endpoint rejects it with {@link ValidationRule#UNSUPPORTED_CURRENCY}.
+     */
+    private static Money copyAmount(String field, JsonParser parser, JsonGenerator generator, ParseState state)
+            throws IOException {
+        Money amount = readAmount(parser);
+        if (amount == null) {
+            return null;
+        }
+        if (amount.getCurrency() != Money.DEFAULT_CURRENCY) {
+            state.foreignAmount = true;
+            generator.writeStringField(field, amount.toString());
+        } else {
+            writeAmount(generator, field, amount);
+        }
+        return amount;
+    }
+
+    /**
+     * Reads an amount like {@code Money}'s JSON reader: a number or text such as {@code "19.99"}
+     * or {@code "19.99 USD"}, {@code null} as absent. Amounts that do not fit in the minor units
+     * of their currency are rejected.
+     */
+    private static Money readAmount(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (!token.isNumeric() && token != JsonToken.VALUE_STRING) {
+            throw new JsonParseException(parser, "Expected an amount for " + parser.getCurrentName());
+        }
+        try {
+            return Money.of(parser.getText().trim());
+        } catch (ArithmeticException | IllegalArgumentException e) {
+            throw new JsonParseException(parser, "Invalid amount for " + parser.getCurrentName() + ": " + e.getMessage());
+        }
+    }
+
+    private static void writeAmount(JsonGenerator generator, String field, Money amount) throws IOException {
+        generator.writeFieldName(field);
+        generator.writeNumber(amount.toPlainString());
+    }
+
+    private static final class ParseState {
+        private String orderId;
+        private String customerId;
+        private String customerEmail;
+        private String priority;
+        private Money taxAmount;
+        private Money shippingCost;
+        private Money discountAmount;
+        private long subtotalMinorUnits;
+        private int itemCount;
+        private boolean invalidQuantity;
+        private boolean missingItemPrice;
+        private boolean foreignAmount;
+        private boolean hasShippingStreet;
+        private boolean hasPaymentInfo;
+        private boolean invalidPriority;
+
+        private ValidationRule violatedRule() {
+            if (itemCount == 0) {
+                return ValidationRule.NO_ITEMS;
+            }
+            if (customerEmail == null || customerEmail.indexOf('@') < 0) {
+                return ValidationRule.INVALID_EMAIL;
+            }
+            if (!hasShippingStreet) {
+                return ValidationRule.MISSING_SHIPPING_ADDRESS;
+            }
+            if (invalidQuantity) {
+                return ValidationRule.INVALID_QUANTITY;
+            }
+            if (missingItemPrice) {
+                return ValidationRule.MISSING_ITEM_PRICE;
+            }
+            if (foreignAmount) {
+                return ValidationRule.UNSUPPORTED_CURRENCY;
+            }
+            if (invalidPriority) {
+                return ValidationRule.INVALID_PRIORITY;
+            }
+            return null;
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class IngestedOrder {
+        private final String orderId;
+        private final String customerId;
+        private final String priority;
+        private final Money totalAmount;
+        private final byte[] payload;
+        private final ValidationRule violatedRule;
+
+        static IngestedOrder rejected(ValidationRule violatedRule) {
+            return new IngestedOrder(null, null, null, null, null, violatedRule);
+        }
+
+        public boolean isAccepted() {
+            return violatedRule == null;
+        }
+    }
+}
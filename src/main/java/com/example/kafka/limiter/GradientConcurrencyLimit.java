@@ -0,0 +1,72 @@
+package com.example.kafka.limiter;
+
+/**
+ * Concurrency limit driven by the latency gradient between a long-term RTT baseline and the
+ * recent RTT: while recent calls are as fast as the baseline the limit grows by a queue
+ * allowance of {@code sqrt(limit)}; when they slow down it shrinks proportionally (at most by
+ * half per sample), and a dropped call cuts it multiplicatively.
+ */
+public class GradientConcurrencyLimit {
+
+    private static final double SHORT_RTT_SMOOTHING = 0.2;
+    private static final double LONG_RTT_SMOOTHING = 2.0 / (600 + 1);
+    private static final double LIMIT_SMOOTHING = 0.2;
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+
+    private double estimatedLimit;
+    private double shortRtt;
+    private double longRtt;
+
+    public GradientConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double rttTolerance) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.rttTolerance = rttTolerance;
+        this.estimatedLimit = initialLimit;
+    }
+
+    public synchronized int getLimit() {
+        return (int) estimatedLimit;
+    }
+
+    /**
+     * @return the limit after taking the sample into account
+     */
+    public synchronized int onSample(long rttNanos, int inFlight, boolean dropped) {
+        if (dropped) {
+            estimatedLimit = clamp(estimatedLimit * BACKOFF_RATIO);
+            return getLimit();
+        }
+
+        if (longRtt == 0) {
+            shortRtt = rttNanos;
+            longRtt = rttNanos;
+            return getLimit();
+        }
+
+        shortRtt += SHORT_RTT_SMOOTHING * (rttNanos - shortRtt);
+        longRtt += LONG_RTT_SMOOTHING * (shortRtt - longRtt);
+
+        // Let the baseline follow a lasting latency drop instead of waiting for the slow average.
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+
+        // The stage is not using its current limit, so latency says nothing about it.
+        if (inFlight < estimatedLimit / 2) {
+            return getLimit();
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRtt / shortRtt));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        estimatedLimit = clamp(estimatedLimit * (1 - LIMIT_SMOOTHING) + newLimit * LIMIT_SMOOTHING);
+        return getLimit();
+    }
+
+    private double clamp(double limit) {
+        return Math.max(minLimit, Math.min(maxLimit, limit));
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.kafka.limiter;
+
+import com.example.kafka.model.Order;
+import com.example.kafka.model.OrderPriority;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Runs payment processing on two isolated pools: a fixed-size one reserved for EXPRESS orders and
+ * a standard one admitting at most the current {@link GradientConcurrencyLimit}, which is fed with
+ * the observed processing time and whether the backend answered. When a bulkhead is at capacity
+ * {@link #submit} waits for room until the caller's deadline, so a consumer is slowed down to
+ * the rate the backend sustains; it returns {@code false}, and the caller sheds the order, only
+ * once the deadline has passed.
+ */
+@Slf4j
+@Component
+public class PaymentBulkheads {
+
+    private final GradientConcurrencyLimit standardLimit;
+    private final AtomicInteger standardInFlight = new AtomicInteger();
+    private final AtomicInteger lastLoggedLimit = new AtomicInteger();
+    private final ReentrantLock admission = new ReentrantLock();
+    private final Condition permitReleased = admission.newCondition();
+    private final long admissionWaitMs;
+    private final ThreadPoolExecutor standardPool;
+    private final ThreadPoolExecutor expressPool;
+    private final Counter standardRejections;
+    private final Counter expressRejections;
+
+    public PaymentBulkheads(
+            @Value("${app.payment.limiter.initial-limit:4}") int initialLimit,
+            @Value("${app.payment.limiter.min-limit:1}") int minLimit,
+            @Value("${app.payment.limiter.max-limit:32}") int maxLimit,
+            @Value("${app.payment.limiter.rtt-tolerance:1.5}") double rttTolerance,
+            @Value("${app.payment.bulkhead.express.concurrency:4}") int expressConcurrency,
+            @Value("${app.payment.bulkhead.express.queue-capacity:20}") int expressQueueCapacity,
+            @Value("${app.payment.bulkhead.admission-wait-ms:30000}") long admissionWaitMs,
+            MeterRegistry meterRegistry) {
+        this.admissionWaitMs = admissionWaitMs;
+        this.standardLimit = new GradientConcurrencyLimit(initialLimit, minLimit, maxLimit, rttTolerance);
+        this.lastLoggedLimit.set(initialLimit);
+        // Admission is bounded by the limit in submit, so the queue only absorbs the moment between a
+        // task finishing and its thread polling again.
+        this.standardPool = pool("payment-standard", maxLimit, new LinkedBlockingQueue<>());
+        this.standardPool.allowCoreThreadTimeOut(true);
+        this.expressPool = pool("payment-express", expressConcurrency, new ArrayBlockingQueue<>(expressQueueCapacity));
+
+        Gauge.builder("payment.concurrency.limit", standardLimit, GradientConcurrencyLimit::getLimit)
+                .tag("bulkhead", "standard").register(meterRegistry);
+        Gauge.builder("payment.concurrency.limit", expressPool, ThreadPoolExecutor::getMaximumPoolSize)
+                .tag("bulkhead", "express").register(meterRegistry);
+        Gauge.builder("payment.concurrency.in-flight", standardInFlight, AtomicInteger::get)
+                .tag("bulkhead", "standard").register(meterRegistry);
+        Gauge.builder("payment.concurrency.in-flight", expressPool, ThreadPoolExecutor::getActiveCount)
+                .tag("bulkhead", "express").register(meterRegistry);
+        Gauge.builder("payment.queue.depth", expressPool, p -> p.getQueue().size())
+                .tag("bulkhead", "express").register(meterRegistry);
+        this.standardRejections = rejectionCounter(meterRegistry, "standard");
+        this.expressRejections = rejectionCounter(meterRegistry, "express");
+    }
+
+    /**
+     * Called by the payment consumer once per poll.
+     *
+     * @return the deadline to pass to {@link #submit} for every order of the poll
+     */
+    public long admissionDeadline() {
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(admissionWaitMs);
+    }
+
+    /**
+     * @param task          the payment; returns {@code false} when the backend did not answer (error
+     *                      or unavailable), which shrinks the standard limit
+     * @param deadlineNanos the {@link #admissionDeadline} until which to wait for room in the bulkhead
+     * @return {@code false} if the order's bulkhead was still full at the deadline
+     */
+    public boolean submit(Order order, BooleanSupplier task, long deadlineNanos) {
+        boolean express = order.getPriority() == OrderPriority.EXPRESS;
+        admission.lock();
+        try {
+            while (!(express ? tryExpress(task) : tryStandard(task))) {
+                long remaining = deadlineNanos - System.nanoTime();
+                if (remaining <= 0) {
+                    (express ? expressRejections : standardRejections).increment();
+                    return false;
+                }
+                permitReleased.awaitNanos(remaining);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            (express ? expressRejections : standardRejections).increment();
+            return false;
+        } finally {
+            admission.unlock();
+        }
+    }
+
+    private boolean tryExpress(BooleanSupplier task) {
+        try {
+            expressPool.execute(task::getAsBoolean);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    private boolean tryStandard(BooleanSupplier task) {
+        if (standardInFlight.incrementAndGet() > standardLimit.getLimit()) {
+            standardInFlight.decrementAndGet();
+            return false;
+        }
+        try {
+            standardPool.execute(() -> runMeasured(task));
+            return true;
+        } catch (RejectedExecutionException e) {
+            standardInFlight.decrementAndGet();
+            return false;
+        }
+    }
+
+    private void runMeasured(BooleanSupplier task) {
+        long start = System.nanoTime();
+        boolean dropped = true;
+        try {
+            dropped = !task.getAsBoolean();
+        } finally {
+            int limit = standardLimit.onSample(System.nanoTime() - start, standardInFlight.getAndDecrement(), dropped);
+            logLimitChange(limit);
+            signalPermitReleased();
+        }
+    }
+
+    private void signalPermitReleased() {
+        admission.lock();
+        try {
+            permitReleased.signalAll();
+        } finally {
+            admission.unlock();
+        }
+    }
+
+    private void logLimitChange(int limit) {
+        int previous = lastLoggedLimit.getAndSet(limit);
+        if (previous != limit) {
+            log.debug("🎚️ Payment concurrency limit: {} -> {}", previous, limit);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        standardPool.shutdown();
+        expressPool.shutdown();
+        standardPool.awaitTermination(10, TimeUnit.SECONDS);
+        expressPool.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private ThreadPoolExecutor pool(String name, int size, BlockingQueue<Runnable> queue) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS, queue,
+                runnable -> new Thread(runnable, name + "-" + threadCount.incrementAndGet())) {
+            @Override
+            protected void beforeExecute(Thread thread, Runnable runnable) {
+                // A worker taking a task off the queue frees a slot in a bounded queue.
+                signalPermitReleased();
+            }
+        };
+    }
+
+    private static Counter rejectionCounter(MeterRegistry meterRegistry, String bulkhead) {
+        return Counter.builder("payment.rejected")
+                .tag("bulkhead", bulkhead)
+                .register(meterRegistry);
+    }
+}
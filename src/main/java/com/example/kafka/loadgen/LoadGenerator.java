@@ -0,0 +1,141 @@
+package com.example.kafka.loadgen;
+
+import com.example.kafka.controller.OrderController;
+import com.example.kafka.id.IdGenerator;
+import com.example.kafka.model.Order;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Submits random orders through {@link OrderController#createOrder} at a fixed target rate for
+ * a fixed duration, waits for the pipeline to drain and logs a {@link LoadReport}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.loadgen.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class LoadGenerator {
+
+    private final OrderController orderController;
+    private final PipelineLatencyTracker latencyTracker;
+    private final ObjectMapper objectMapper;
+    private final IdGenerator idGenerator;
+    private final MeterRegistry meterRegistry;
+    private final CompletableFuture<LoadReport> report = new CompletableFuture<>();
+
+    @Value("${app.loadgen.rate-per-second:50}")
+    private int ratePerSecond;
+
+    @Value("${app.loadgen.duration-seconds:60}")
+    private int durationSeconds;
+
+    @Value("${app.loadgen.drain-seconds:60}")
+    private int drainSeconds;
+
+    @Value("${app.loadgen.min-items:1}")
+    private int minItems;
+
+    @Value("${app.loadgen.max-items:5}")
+    private int maxItems;
+
+    @Value("${app.loadgen.high-value-ratio:0.1}")
+    private double highValueRatio;
+
+    @Value("${app.loadgen.customer-pool-size:10000}")
+    private int customerPoolSize;
+
+    @Value("${app.loadgen.priority-mix:LOW:10,NORMAL:60,HIGH:15,URGENT:5,EXPRESS:10}")
+    private String priorityMix;
+
+    @Value("${app.loadgen.raw-ingestion:false}")
+    private boolean rawIngestion;
+
+    @Value("${app.choreography.engine:listeners}")
+    private String engine;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread generator = new Thread(this::run, "load-generator");
+        generator.setDaemon(true);
+        generator.start();
+    }
+
+    public CompletableFuture<LoadReport> getReport() {
+        return report;
+    }
+
+    private void run() {
+        try {
+            RandomOrderFactory orderFactory = new RandomOrderFactory(minItems, maxItems, highValueRatio,
+                    customerPoolSize, RandomOrderFactory.parsePriorityMix(priorityMix), idGenerator);
+
+            log.info("🚀 Load generator started: rate={}/s, duration={}s, items={}-{}, highValueRatio={}, raw={}, engine={}",
+                    ratePerSecond, durationSeconds, minItems, maxItems, highValueRatio, rawIngestion, engine);
+
+            long intervalNanos = 1_000_000_000L / ratePerSecond;
+            long start = System.nanoTime();
+            long end = start + durationSeconds * 1_000_000_000L;
+            long nextSend = start;
+            long submitted = 0;
+            long rejected = 0;
+
+            while (System.nanoTime() < end) {
+                ResponseEntity<Map<String, Object>> response = submit(orderFactory.nextOrder());
+                if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
+                    latencyTracker.orderSubmitted((String) response.getBody().get("orderId"), System.currentTimeMillis());
+                    submitted++;
+                } else {
+                    rejected++;
+                }
+
+                nextSend += intervalNanos;
+                long waitNanos = nextSend - System.nanoTime();
+                if (waitNanos > 0) {
+                    LockSupport.parkNanos(waitNanos);
+                }
+            }
+
+            log.info("⏳ Load generation finished: submitted={}, rejected={}, waiting up to {}s for the pipeline to drain",
+                    submitted, rejected, drainSeconds);
+
+            long drainDeadline = System.nanoTime() + drainSeconds * 1_000_000_000L;
+            while (latencyTracker.inFlight() > 0 && System.nanoTime() < drainDeadline) {
+                Thread.sleep(500);
+            }
+
+            LoadReport loadReport = latencyTracker.report(engine, submitted, rejected, ratePerSecond,
+                    (System.nanoTime() - start) / 1e9);
+            DistributionSummary inventoryBatches = meterRegistry.find("inventory.batch.orders").summary();
+            loadReport.setInventoryBatchOrders(inventoryBatches == null ? 0 : inventoryBatches.mean());
+            log.info("{}", loadReport.format());
+            report.complete(loadReport);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            report.completeExceptionally(e);
+        } catch (Exception e) {
+            log.error("❌ Load generator failed: {}", e.getMessage(), e);
+            report.completeExceptionally(e);
+        }
+    }
+
+    private ResponseEntity<Map<String, Object>> submit(Order order) throws Exception {
+        if (rawIngestion) {
+            return orderController.createOrderRaw(objectMapper.writeValueAsBytes(order));
+        }
+        return orderController.createOrder(order);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.kafka.loadgen;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@Builder
+public class LoadReport {
+    private String engine;
+    private long submitted;
+    private long rejected;
+    private long completed;
+    private long failed;
+    private long inFlight;
+    private double offeredRate;
+    private double elapsedSeconds;
+    private double sustainedThroughput;
+    /** Mean orders per coalesced inventory call; about 1 with the streams engine, see the README. */
+    private double inventoryBatchOrders;
+    private LatencySummary endToEnd;
+    private Map<String, LatencySummary> stages;
+
+    @Data
+    @Builder
+    public static class LatencySummary {
+        private long count;
+        private double p50;
+        private double p95;
+        private double p99;
+    }
+
+    public String format() {
+        StringBuilder report = new StringBuilder()
+                .append(String.format("%n📈 Load test report (%.1fs)%n", elapsedSeconds))
+                .append(String.format("  choreography engine : %s%n", engine))
+                .append(String.format("  offered rate        : %.1f orders/s%n", offeredRate))
+                .append(String.format("  submitted / rejected: %d / %d%n", submitted, rejected))
+                .append(String.format("  completed / failed  : %d / %d (in flight: %d)%n", completed, failed, inFlight))
+                .append(String.format("  sustained throughput: %.1f orders/s%n", sustainedThroughput))
+                .append(String.format("  inventory batch size: %.1f orders/call%n", inventoryBatchOrders))
+                .append(String.format("  %-28s %8s %10s %10s %10s%n", "latency (ms)", "count", "p50", "p95", "p99"));
+
+        stages.forEach((stage, summary) -> report.append(formatLine(stage, summary)));
+        report.append(formatLine("END_TO_END", endToEnd));
+        return report.toString();
+    }
+
+    private static String formatLine(String name, LatencySummary summary) {
+        return String.format("  %-28s %8d %10.1f %10.1f %10.1f%n",
+                name, summary.getCount(), summary.getP50(), summary.getP95(), summary.getP99());
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.kafka.loadgen;
+
+import com.example.kafka.streams.sketch.QuantileSketch;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures how long generated orders take to reach each pipeline stage, using the producer
+ * timestamps of their {@code order.events} records relative to the moment they were submitted.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.loadgen.enabled", havingValue = "true")
+public class PipelineLatencyTracker {
+
+    private static final Set<String> SUCCESS_EVENTS = Set.of("ORDER_TRACKING_READY");
+    private static final Set<String> FAILURE_EVENTS = Set.of(
+            "ORDER_VALIDATION_FAILED",
+            "INVENTORY_UNAVAILABLE",
+            "PAYMENT_FAILED"
+    );
+
+    private static final double LATENCY_ACCURACY = 0.01;
+    private static final double MAX_LATENCY_MS = 3_600_000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Long> submittedAt = new ConcurrentHashMap<>();
+    private final Map<String, QuantileSketch> stageLatencies = new TreeMap<>();
+    private final QuantileSketch endToEndLatency = new QuantileSketch(LATENCY_ACCURACY, MAX_LATENCY_MS);
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile long firstSubmittedAt;
+    private volatile long lastCompletedAt;
+
+    public void orderSubmitted(String orderId, long timestamp) {
+        if (firstSubmittedAt == 0) {
+            firstSubmittedAt = timestamp;
+        }
+        submittedAt.put(orderId, timestamp);
+    }
+
+    public int inFlight() {
+        return submittedAt.size();
+    }
+
+    @KafkaListener(
+            topics = "order.events",
+            groupId = "loadgen-latency-group",
+            containerFactory = "latencyTrackingKafkaListenerContainerFactory"
+    )
+    public void onEvent(ConsumerRecord<String, String> record) {
+        Long submitted = submittedAt.get(record.key());
+        if (submitted == null) {
+            return;
+        }
+
+        String eventType = eventType(record.value());
+        if (eventType == null) {
+            return;
+        }
+
+        double latencyMs = Math.max(0, record.timestamp() - submitted);
+        synchronized (this) {
+            stageLatencies.computeIfAbsent(eventType, type -> new QuantileSketch(LATENCY_ACCURACY, MAX_LATENCY_MS))
+                    .add(latencyMs);
+
+            boolean success = SUCCESS_EVENTS.contains(eventType);
+            if (success || FAILURE_EVENTS.contains(eventType)) {
+                submittedAt.remove(record.key());
+                endToEndLatency.add(latencyMs);
+                (success ? completed : failed).incrementAndGet();
+                lastCompletedAt = Math.max(lastCompletedAt, record.timestamp());
+            }
+        }
+    }
+
+    public synchronized LoadReport report(String engine, long submittedCount, long rejectedCount, double offeredRate, double elapsedSeconds) {
+        Map<String, LoadReport.LatencySummary> stages = new TreeMap<>();
+        stageLatencies.forEach((stage, sketch) -> stages.put(stage, summarize(sketch)));
+
+        long finished = completed.get() + failed.get();
+        double activeSeconds = (lastCompletedAt - firstSubmittedAt) / 1000.0;
+
+        return LoadReport.builder()
+                .engine(engine)
+                .submitted(submittedCount)
+                .rejected(rejectedCount)
+                .completed(completed.get())
+                .failed(failed.get())
+                .inFlight(submittedAt.size())
+                .offeredRate(offeredRate)
+                .elapsedSeconds(elapsedSeconds)
+                .sustainedThroughput(activeSeconds > 0 ? finished / activeSeconds : 0)
+                .endToEnd(summarize(endToEndLatency))
+                .stages(stages)
+                .build();
+    }
+
+    private static LoadReport.LatencySummary summarize(QuantileSketch sketch) {
+        return LoadReport.LatencySummary.builder()
+                .count(sketch.count())
+                .p50(sketch.quantile(0.50))
+                .p95(sketch.quantile(0.95))
+                .p99(sketch.quantile(0.99))
+                .build();
+    }
+
+    private String eventType(String value) {
+        try {
+            JsonNode event = objectMapper.readTree(value);
+            return event.hasNonNull("eventType") ? event.get("eventType").asText() : null;
+        } catch (Exception e) {
+            log.debug("Unreadable event: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.kafka.loadgen;
+
+import com.example.kafka.id.IdGenerator;
+import com.example.kafka.model.*;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Builds random orders shaped like the {@code /api/orders/example} payloads, with a configurable
+ * item count range, priority mix and share of high-value orders.
+ */
+public class RandomOrderFactory {
+
+    private static final CatalogItem[] STANDARD_ITEMS = {
+            new CatalogItem("PROD-001", "MacBook Pro 14\"", "MBP14-256-SG", "2499.99", "Electronics", 1.6),
+            new CatalogItem("PROD-002", "Magic Mouse", "MM-WHT", "99.99", "Accessories", 0.1),
+            new CatalogItem("PROD-003", "USB-C Cable", "USBC-2M", "19.99", "Accessories", 0.05),
+            new CatalogItem("PROD-004", "iPhone 15 Pro", "IPH15P-256-BLK", "1299.99", "Smartphones", 0.3),
+    };
+
+    private static final CatalogItem HIGH_VALUE_ITEM =
+            new CatalogItem("PROD-PREMIUM-001", "MacBook Pro 16\" Max", "MBP16-1TB-MAX", "3999.99", "Electronics", 2.1);
+
+    private static final String[][] CUSTOMERS = {
+            {"Marie Dubois", "marie.dubois@example.com", "Paris", "75008"},
+            {"Jean Dupont", "jean.dupont@example.com", "Lyon", "69001"},
+            {"Sophie Martin", "sophie.martin@example.com", "Paris", "75001"},
+    };
+
+    private final int minItems;
+    private final int maxItems;
+    private final double highValueRatio;
+    private final int customerPoolSize;
+    private final OrderPriority[] priorities;
+    private final int[] cumulativeWeights;
+    private final IdGenerator idGenerator;
+
+    public RandomOrderFactory(int minItems, int maxItems, double highValueRatio, int customerPoolSize,
+                              Map<OrderPriority, Integer> priorityMix, IdGenerator idGenerator) {
+        this.minItems = minItems;
+        this.maxItems = maxItems;
+        this.highValueRatio = highValueRatio;
+        this.customerPoolSize = customerPoolSize;
+        this.idGenerator = idGenerator;
+
+        Map<OrderPriority, Integer> mix = new EnumMap<>(priorityMix);
+        this.priorities = mix.keySet().toArray(new OrderPriority[0]);
+        this.cumulativeWeights = new int[priorities.length];
+        int total = 0;
+        for (int i = 0; i < priorities.length; i++) {
+            total += mix.get(priorities[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    public static Map<OrderPriority, Integer> parsePriorityMix(String spec) {
+        Map<OrderPriority, Integer> mix = new EnumMap<>(OrderPriority.class);
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.trim().split(":");
+            mix.put(OrderPriority.valueOf(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+        }
+        return mix;
+    }
+
+    public Order nextOrder() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        boolean highValue = random.nextDouble() < highValueRatio;
+        String[] customer = CUSTOMERS[random.nextInt(CUSTOMERS.length)];
+
+        List<OrderItem> items = new ArrayList<>();
+        int itemCount = minItems + random.nextInt(maxItems - minItems + 1);
+        for (int i = 0; i < itemCount; i++) {
+            CatalogItem catalogItem = highValue && i == 0
+                    ? HIGH_VALUE_ITEM
+                    : STANDARD_ITEMS[random.nextInt(STANDARD_ITEMS.length)];
+            int quantity = highValue && i == 0 ? 3 : 1 + random.nextInt(3);
+            items.add(catalogItem.toOrderItem(idGenerator.nextId(), quantity));
+        }
+
+        Address address = Address.builder()
+                .street((1 + random.nextInt(200)) + " Rue de la Paix")
+                .city(customer[2])
+                .postalCode(customer[3])
+                .country("France")
+                .phoneNumber("+33 6 12 34 56 78")
+                .build();
+
+        return Order.builder()
+                .customerId("CUST-LOAD-" + random.nextInt(customerPoolSize))
+                .customerName(customer[0])
+                .customerEmail(customer[1])
+                .phoneNumber("+33 6 12 34 56 78")
+                .priority(nextPriority(random))
+                .items(items)
+                .shippingAddress(address)
+                .billingAddress(address)
+                .paymentInfo(PaymentInfo.builder()
+                        .paymentMethod("CREDIT_CARD")
+                        .cardLastFour(String.format("%04d", random.nextInt(10000)))
+                        .paymentProcessor("Stripe")
+                        .paymentStatus(PaymentStatus.PENDING)
+                        .build())
+                .notes("Load generator order")
+                .build();
+    }
+
+    private OrderPriority nextPriority(ThreadLocalRandom random) {
+        int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                return priorities[i];
+            }
+        }
+        return OrderPriority.NORMAL;
+    }
+
+    private static final class CatalogItem {
+        private final String productId;
+        private final String productName;
+        private final String sku;
+        private final Money unitPrice;
+        private final String category;
+        private final double weight;
+
+        private CatalogItem(String productId, String productName, String sku, String unitPrice, String category, double weight) {
+            this.productId = productId;
+            this.productName = productName;
+            this.sku = sku;
+            this.unitPrice = Money.of(unitPrice);
+            this.category = category;
+            this.weight = weight;
+        }
+
+        private OrderItem toOrderItem(String itemId, int quantity) {
+            return OrderItem.builder()
+                    .itemId(itemId)
+                    .productId(productId)
+                    .productName(productName)
+                    .sku(sku)
+                    .quantity(quantity)
+                    .unitPrice(unitPrice)
+                    .totalPrice(unitPrice.times(quantity))
+                    .category(category)
+                    .weight(weight)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.example.kafka.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Currency;
+
+/**
+ * Monetary amount held as a {@code long} count of minor units (cents for EUR) plus its currency,
+ * so sums and comparisons on the order path are plain integer arithmetic. In JSON an amount in
+ * the default currency stays a bare decimal number ({@code 2499.99}); other currencies are
+ * written as {@code "2499.99 USD"}. The binary form of {@link #serde()} is 11 bytes.
+ */
+@JsonSerialize(using = Money.JsonWriter.class)
+@JsonDeserialize(using = Money.JsonReader.class)
+public final class Money implements Comparable<Money> {
+
+    public static final Currency DEFAULT_CURRENCY = Currency.getInstance("EUR");
+    public static final Money ZERO = new Money(0, DEFAULT_CURRENCY);
+
+    private static final int SERIALIZED_SIZE = Long.BYTES + 3;
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000};
+    private static final long BASIS_POINTS = 10_000;
+
+    private final long minorUnits;
+    private final Currency currency;
+
+    private Money(long minorUnits, Currency currency) {
+        this.minorUnits = minorUnits;
+        this.currency = currency;
+    }
+
+    public static Money ofMinor(long minorUnits) {
+        return new Money(minorUnits, DEFAULT_CURRENCY);
+    }
+
+    public static Money ofMinor(long minorUnits, Currency currency) {
+        return new Money(minorUnits, requireSupported(currency));
+    }
+
+    /**
+     * Parses {@code "19.99"} (default currency) or {@code "19.99 USD"}. Amounts with more
+     * decimals than the currency allows are rejected rather than rounded.
+     */
+    public static Money of(String amount) {
+        int space = amount.lastIndexOf(' ');
+        if (space < 0) {
+            return of(amount, DEFAULT_CURRENCY);
+        }
+        return of(amount.substring(0, space).trim(), Currency.getInstance(amount.substring(space + 1)));
+    }
+
+    public static Money of(String amount, Currency currency) {
+        int scale = requireSupported(currency).getDefaultFractionDigits();
+        int length = amount.length();
+        int i = 0;
+        boolean negative = false;
+        if (length > 0 && (amount.charAt(0) == '-' || amount.charAt(0) == '+')) {
+            negative = amount.charAt(0) == '-';
+            i++;
+        }
+
+        long units = 0;
+        int fractionDigits = -1;
+        boolean hasDigits = false;
+        for (; i < length; i++) {
+            char c = amount.charAt(i);
+            if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else if (c >= '0' && c <= '9') {
+                hasDigits = true;
+                if (fractionDigits >= 0 && ++fractionDigits > scale) {
+                    if (c != '0') {
+                        throw new ArithmeticException("More than " + scale + " decimals in amount: " + amount);
+                    }
+                    continue;
+                }
+                units = Math.addExact(Math.multiplyExact(units, 10), c - '0');
+            } else {
+                // Exponents and other unusual notations go through BigDecimal.
+                return of(new BigDecimal(amount), currency);
+            }
+        }
+        if (!hasDigits) {
+            throw new NumberFormatException("Not an amount: " + amount);
+        }
+
+        units = Math.multiplyExact(units, POWERS_OF_TEN[scale - Math.min(Math.max(fractionDigits, 0), scale)]);
+        return new Money(negative ? -units : units, currency);
+    }
+
+    public static Money of(BigDecimal amount) {
+        return of(amount, DEFAULT_CURRENCY);
+    }
+
+    public static Money of(BigDecimal amount, Currency currency) {
+        int scale = requireSupported(currency).getDefaultFractionDigits();
+        return new Money(amount.setScale(scale, RoundingMode.UNNECESSARY).unscaledValue().longValueExact(), currency);
+    }
+
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public Money plus(Money other) {
+        requireSameCurrency(other);
+        return new Money(Math.addExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money minus(Money other) {
+        requireSameCurrency(other);
+        return new Money(Math.subtractExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money times(long quantity) {
+        return new Money(Math.multiplyExact(minorUnits, quantity), currency);
+    }
+
+    /**
+     * This amount times {@code basisPoints / 10000}, rounded half-up to the minor unit
+     * (2000 basis points is a 20% tax).
+     */
+    public Money percent(long basisPoints) {
+        long product = Math.multiplyExact(minorUnits, basisPoints);
+        long rounded = (Math.abs(product) + BASIS_POINTS / 2) / BASIS_POINTS;
+        return new Money(product < 0 ? -rounded : rounded, currency);
+    }
+
+    public boolean isSameCurrency(Money other) {
+        return currency == other.currency;
+    }
+
+    public boolean isGreaterThan(Money other) {
+        return compareTo(other) > 0;
+    }
+
+    public int signum() {
+        return Long.signum(minorUnits);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        requireSameCurrency(other);
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, currency.getDefaultFractionDigits());
+    }
+
+    /**
+     * The amount in major units without the currency, e.g. {@code "-0.05"}.
+     */
+    public String toPlainString() {
+        int scale = currency.getDefaultFractionDigits();
+        if (scale == 0) {
+            return Long.toString(minorUnits);
+        }
+
+        String digits = Long.toString(Math.abs(minorUnits));
+        StringBuilder text = new StringBuilder(digits.length() + scale + 2);
+        if (minorUnits < 0) {
+            text.append('-');
+        }
+        int integerDigits = digits.length() - scale;
+        if (integerDigits <= 0) {
+            text.append("0.");
+            text.append("0".repeat(-integerDigits));
+            text.append(digits);
+        } else {
+            text.append(digits, 0, integerDigits).append('.').append(digits, integerDigits, digits.length());
+        }
+        return text.toString();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Money money && money.minorUnits == minorUnits && money.currency == currency;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(minorUnits) + currency.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return toPlainString() + " " + currency.getCurrencyCode();
+    }
+
+    private static Currency requireSupported(Currency currency) {
+        int digits = currency.getDefaultFractionDigits();
+        if (digits < 0 || digits >= POWERS_OF_TEN.length) {
+            throw new IllegalArgumentException("Unsupported currency: " + currency.getCurrencyCode());
+        }
+        return currency;
+    }
+
+    private void requireSameCurrency(Money other) {
+        if (currency != other.currency) {
+            throw new IllegalArgumentException("Currency mismatch: " + currency.getCurrencyCode()
+                    + " vs " + other.currency.getCurrencyCode());
+        }
+    }
+
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putLong(minorUnits).put(currency.getCurrencyCode().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public static Money readFrom(ByteBuffer buffer) {
+        long minorUnits = buffer.getLong();
+        byte[] code = new byte[3];
+        buffer.get(code);
+        return ofMinor(minorUnits, Currency.getInstance(new String(code, StandardCharsets.US_ASCII)));
+    }
+
+    public static Serde<Money> serde() {
+        return Serdes.serdeFrom(
+                (topic, money) -> {
+                    if (money == null) {
+                        return null;
+                    }
+                    ByteBuffer buffer = ByteBuffer.allocate(SERIALIZED_SIZE);
+                    money.writeTo(buffer);
+                    return buffer.array();
+                },
+                (topic, bytes) -> bytes == null ? null : readFrom(ByteBuffer.wrap(bytes)));
+    }
+
+    static final class JsonWriter extends JsonSerializer<Money> {
+        @Override
+        public void serialize(Money money, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            if (money.currency == DEFAULT_CURRENCY) {
+                generator.writeNumber(money.toPlainString());
+            } else {
+                generator.writeString(money.toString());
+            }
+        }
+    }
+
+    static final class JsonReader extends JsonDeserializer<Money> {
+        @Override
+        public Money deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            JsonToken token = parser.currentToken();
+            if (token != JsonToken.VALUE_NUMBER_INT && token != JsonToken.VALUE_NUMBER_FLOAT
+                    && token != JsonToken.VALUE_STRING) {
+                return (Money) context.handleUnexpectedToken(Money.class, parser);
+            }
+
+            String text = parser.getText().trim();
+            try {
+                return Money.of(text);
+            } catch (ArithmeticException | IllegalArgumentException e) {
+                throw context.weirdStringException(text, Money.class, e.getMessage());
+            }
+        }
+    }
+}
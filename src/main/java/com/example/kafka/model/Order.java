@@ -6,12 +6,11 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class Order {
@@ -23,10 +22,10 @@ public class Order {
 
     private List<OrderItem> items;
 
-    private BigDecimal subtotal;
-    private BigDecimal taxAmount;
-    private BigDecimal shippingCost;
-    private BigDecimal totalAmount;
+    private Money subtotal;
+    private Money taxAmount;
+    private Money shippingCost;
+    private Money totalAmount;
 
     private OrderStatus status;
     private OrderPriority priority;
@@ -44,5 +43,5 @@ public class Order {
 
     private String notes;
     private String couponCode;
-    private BigDecimal discountAmount;
+    private Money discountAmount;
 }
@@ -1,18 +1,27 @@
 package com.example.kafka.model;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * Order state transition published to {@code order.events}. Details specific to an event type
+ * are flat, typed fields that stay absent from the JSON when unset; {@code attributes} is the
+ * escape hatch for rare extra values.
+ */
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class OrderEvent {
     private String eventId;
     private String orderId;
@@ -25,5 +34,32 @@ public class OrderEvent {
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
     private LocalDateTime timestamp;
 
-    private Map<String, Object> metadata;
+    // ORDER_CONFIRMED: position of the order.created record
+    private Integer sourcePartition;
+    private Long sourceOffset;
+    private Long sourceTimestamp;
+    private Integer itemsCount;
+
+    // INVENTORY_RESERVED
+    private List<ItemQuantity> reservedItems;
+
+    // PAYMENT_COMPLETED
+    private String transactionId;
+    private Money amount;
+    private String paymentMethod;
+
+    private Map<String, String> attributes;
+
+    /**
+     * Serialized as a two-element array, {@code ["PROD-001", 2]}.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonFormat(shape = JsonFormat.Shape.ARRAY)
+    @JsonPropertyOrder({"productId", "quantity"})
+    public static class ItemQuantity {
+        private String productId;
+        private int quantity;
+    }
 }
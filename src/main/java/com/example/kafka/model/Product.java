@@ -0,0 +1,18 @@
+package com.example.kafka.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Product {
+    private String productId;
+    private String sku;
+    private String name;
+    private String category;
+    private Money unitPrice;
+}
@@ -0,0 +1,306 @@
+package com.example.kafka.pipeline;
+
+import com.example.kafka.id.IdGenerator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * In-JVM fast path between co-located stages. The upstream stage still writes every transition
+ * to the stage topic, but the same bytes are also put on a bounded ring and handed straight to
+ * the downstream stage, without waiting for the broker round trip.
+ *
+ * <p>The record carries a {@value #HEADER} header; when the stage consumer later reads it from
+ * the topic, {@link #await} waits for the in-memory delivery to finish and tells the consumer to
+ * skip it, so its offsets only move past transitions that were really processed. If the in-memory
+ * delivery failed, the consumer processes the topic copy instead. The waits of one poll share a
+ * single {@code await-timeout-ms} budget ({@link #pollDeadline}), so a batch of handed-off records
+ * cannot hold the consumer past {@code max.poll.interval.ms}; a delivery still running once the
+ * budget is spent stops the batch there, and the consumer commits only the records before it and
+ * reads it again on the next poll.
+ * After a crash the ids are gone: the consumer then processes everything after its committed
+ * offset from the topic, as without the fast path. When a ring is full, or too many handoffs are
+ * still waiting for their topic copy, the transition simply goes through the broker.
+ *
+ * <p>Handoff ids live in this JVM only, so the fast path is used for a stage only while
+ * {@link StagePartitionOwnership} reports that all partitions of its topic are consumed here. With
+ * several replicas the copy could be read by an instance that never saw the id and the stage would
+ * run twice; in that case, and while the stage listeners are not running, everything goes through
+ * the broker. Handoffs still in flight when a rebalance moves a partition away are the only ones
+ * that can be processed again by the new owner.
+ */
+@Slf4j
+@Component
+public class LocalHandoff {
+
+    public static final String HEADER = "local-handoff";
+    /** Pause before a stage consumer reads again a record whose in-memory delivery is still running. */
+    public static final Duration REDELIVERY_DELAY = Duration.ofMillis(100);
+
+    /**
+     * What the stage consumer does with a record it read from the topic.
+     */
+    public enum Outcome {
+        /** Delivered in memory: skip the record. */
+        DELIVERED,
+        /** Not handed off, handed off by a previous run, or failed in memory: process the record. */
+        PROCESS,
+        /** Still being delivered once the poll's wait budget is spent: do not commit past the record. */
+        RUNNING
+    }
+
+    private static final long FULL_WARNING_INTERVAL_MS = 10_000;
+
+    private final boolean enabled;
+    private final int ringCapacity;
+    private final int workers;
+    private final int maxTracked;
+    private final long awaitTimeoutMs;
+    private final StagePartitionOwnership ownership;
+    private final IdGenerator idGenerator;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<PipelineStage, Ring> rings = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Void>> tracked = new ConcurrentHashMap<>();
+    private final AtomicLong lastFullWarning = new AtomicLong();
+
+    public LocalHandoff(
+            @Value("${app.pipeline.local-handoff.enabled:false}") boolean enabled,
+            @Value("${app.pipeline.local-handoff.ring-capacity:1024}") int ringCapacity,
+            @Value("${app.pipeline.local-handoff.workers-per-stage:4}") int workers,
+            @Value("${app.pipeline.local-handoff.max-tracked:20000}") int maxTracked,
+            @Value("${app.pipeline.local-handoff.await-timeout-ms:30000}") long awaitTimeoutMs,
+            StagePartitionOwnership ownership,
+            IdGenerator idGenerator,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.ringCapacity = ringCapacity;
+        this.workers = workers;
+        this.maxTracked = maxTracked;
+        this.awaitTimeoutMs = awaitTimeoutMs;
+        this.ownership = ownership;
+        this.idGenerator = idGenerator;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("pipeline.handoff.tracked", tracked, Map::size).register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Called by a stage consumer at startup to receive the payloads of its topic in memory.
+     */
+    public void register(PipelineStage stage, Consumer<byte[]> handler) {
+        registerAsync(stage, payload -> {
+            handler.accept(payload);
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    /**
+     * Like {@link #register}, for a stage that processes a payload asynchronously: a worker moves on
+     * to the next payload as soon as the handler returns, and the handoff is done once the returned
+     * future completes. The number of payloads in progress is then bounded by the stage itself.
+     */
+    public void registerAsync(PipelineStage stage, Function<byte[], CompletableFuture<?>> handler) {
+        if (!enabled) {
+            return;
+        }
+        rings.computeIfAbsent(stage, s -> new Ring(s, handler));
+        log.info("⚡ Local handoff enabled for stage {} (ring={}, workers={})", stage, ringCapacity, workers);
+    }
+
+    /**
+     * Puts the record value on the ring of {@code stage} and tags the record with the handoff id.
+     *
+     * @return the handoff id, or {@code null} if the record was left to go through the broker
+     */
+    public String offer(PipelineStage stage, ProducerRecord<String, byte[]> record) {
+        Ring ring = enabled ? rings.get(stage) : null;
+        if (ring == null) {
+            return null;
+        }
+        if (!ownership.ownsAllPartitions(stage)) {
+            ring.brokerPath.increment();
+            return null;
+        }
+        if (tracked.size() >= maxTracked) {
+            warnTrackingFull();
+            ring.brokerPath.increment();
+            return null;
+        }
+
+        String handoffId = idGenerator.nextId();
+        Handoff handoff = new Handoff(handoffId, record.value(), new CompletableFuture<>());
+        tracked.put(handoffId, handoff.done);
+        if (!ring.queue.offer(handoff)) {
+            tracked.remove(handoffId);
+            ring.brokerPath.increment();
+            return null;
+        }
+
+        ring.localPath.increment();
+        record.headers().add(new RecordHeader(HEADER, handoffId.getBytes(StandardCharsets.UTF_8)));
+        return handoffId;
+    }
+
+    /**
+     * Drops a handoff whose topic copy could not be written; the consumer will never see it.
+     */
+    public void forget(String handoffId) {
+        if (handoffId != null && tracked.remove(handoffId) != null) {
+            log.warn("⚠️ Local handoff {} has no durable copy, the topic write failed", handoffId);
+        }
+    }
+
+    /**
+     * Called by the stage consumer once per poll.
+     *
+     * @return the deadline to pass to {@link #await} for every record of the poll
+     */
+    public long pollDeadline() {
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(awaitTimeoutMs);
+    }
+
+    /**
+     * Called by the stage consumer for every record it reads. The handoff stays tracked while it
+     * is {@link Outcome#RUNNING}, so the record is waited for again when it is read again.
+     *
+     * @param deadlineNanos the {@link #pollDeadline} of the poll the record belongs to
+     */
+    public Outcome await(String handoffId, long deadlineNanos) {
+        if (handoffId == null) {
+            return Outcome.PROCESS;
+        }
+        CompletableFuture<Void> done = tracked.get(handoffId);
+        if (done == null) {
+            // Unknown id: handed off by a previous run of this process, recover from the topic.
+            return Outcome.PROCESS;
+        }
+
+        try {
+            done.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+            tracked.remove(handoffId);
+            return Outcome.DELIVERED;
+        } catch (TimeoutException e) {
+            log.warn("⏳ Local handoff {} still running after the {} ms wait budget of this poll, reading it again",
+                    handoffId, awaitTimeoutMs);
+            return Outcome.RUNNING;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Outcome.RUNNING;
+        } catch (ExecutionException e) {
+            log.warn("↩️ Local handoff {} failed, processing its topic copy", handoffId);
+            tracked.remove(handoffId);
+            return Outcome.PROCESS;
+        }
+    }
+
+    private void warnTrackingFull() {
+        long now = System.currentTimeMillis();
+        long last = lastFullWarning.get();
+        if (now - last >= FULL_WARNING_INTERVAL_MS && lastFullWarning.compareAndSet(last, now)) {
+            log.warn("⚠️ {} local handoffs are waiting for their topic copy (max-tracked), using the broker path;"
+                    + " are the stage listeners keeping up?", tracked.size());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rings.values().forEach(Ring::stop);
+    }
+
+    private record Handoff(String id, byte[] payload, CompletableFuture<Void> done) {
+    }
+
+    private final class Ring {
+
+        private final PipelineStage stage;
+        private final Function<byte[], CompletableFuture<?>> handler;
+        private final BlockingQueue<Handoff> queue = new ArrayBlockingQueue<>(ringCapacity);
+        private final List<Thread> threads = new ArrayList<>();
+        private final Counter localPath;
+        private final Counter brokerPath;
+        private final Counter errors;
+        private volatile boolean running = true;
+
+        private Ring(PipelineStage stage, Function<byte[], CompletableFuture<?>> handler) {
+            this.stage = stage;
+            this.handler = handler;
+            this.localPath = Counter.builder("pipeline.handoff").tag("stage", stage.name()).tag("path", "local")
+                    .register(meterRegistry);
+            this.brokerPath = Counter.builder("pipeline.handoff").tag("stage", stage.name()).tag("path", "broker")
+                    .register(meterRegistry);
+            this.errors = Counter.builder("pipeline.handoff.errors").tag("stage", stage.name())
+                    .register(meterRegistry);
+            Gauge.builder("pipeline.handoff.ring.depth", queue, BlockingQueue::size)
+                    .tag("stage", stage.name())
+                    .register(meterRegistry);
+
+            for (int i = 0; i < workers; i++) {
+                Thread thread = new Thread(this::run, "handoff-" + stage.name().toLowerCase() + "-" + i);
+                thread.setDaemon(true);
+                thread.start();
+                threads.add(thread);
+            }
+        }
+
+        private void run() {
+            while (running) {
+                Handoff handoff;
+                try {
+                    handoff = queue.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                try {
+                    handler.apply(handoff.payload()).whenComplete((result, ex) -> {
+                        if (ex == null) {
+                            handoff.done().complete(null);
+                        } else {
+                            fail(handoff, ex);
+                        }
+                    });
+                } catch (Exception e) {
+                    fail(handoff, e);
+                }
+            }
+        }
+
+        private void fail(Handoff handoff, Throwable e) {
+            // The stage consumer sees the failure through await() and processes the topic copy.
+            errors.increment();
+            log.error("❌ Local handoff to {} failed: id={}, error={}", stage, handoff.id(), e.getMessage(), e);
+            handoff.done().completeExceptionally(e);
+        }
+
+        private void stop() {
+            running = false;
+            threads.forEach(Thread::interrupt);
+        }
+    }
+}
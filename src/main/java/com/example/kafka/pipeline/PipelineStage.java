@@ -0,0 +1,18 @@
+package com.example.kafka.pipeline;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Stages that can receive a transition over {@link LocalHandoff}, with the topic that keeps the
+ * durable copy of that transition.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum PipelineStage {
+    INVENTORY("order.inventory"),
+    PAYMENT("order.payment"),
+    NOTIFICATION("order.notifications");
+
+    private final String topic;
+}
@@ -0,0 +1,74 @@
+package com.example.kafka.pipeline;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks which partitions of the stage topics are assigned to the listener containers of this
+ * JVM. A handed-off id is only known by the instance that produced it, so {@link LocalHandoff}
+ * may only take the fast path for a stage while every partition of its topic is consumed here:
+ * as soon as another replica owns one of them (or the stage listeners are not running), the
+ * transitions go through the broker again.
+ */
+@Slf4j
+@Component
+public class StagePartitionOwnership implements ConsumerAwareRebalanceListener {
+
+    private final Map<String, Set<Integer>> owned = new ConcurrentHashMap<>();
+    private final Map<String, Integer> partitionCounts = new ConcurrentHashMap<>();
+
+    public boolean ownsAllPartitions(PipelineStage stage) {
+        Integer count = partitionCounts.get(stage.getTopic());
+        Set<Integer> partitions = owned.get(stage.getTopic());
+        return count != null && partitions != null && partitions.size() >= count;
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        for (TopicPartition partition : partitions) {
+            owned.computeIfAbsent(partition.topic(), t -> ConcurrentHashMap.newKeySet()).add(partition.partition());
+            partitionCounts.computeIfAbsent(partition.topic(), t -> consumer.partitionsFor(t).size());
+        }
+        logOwnership(partitions);
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        release(partitions);
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        release(partitions);
+    }
+
+    private void release(Collection<TopicPartition> partitions) {
+        for (TopicPartition partition : partitions) {
+            Set<Integer> topicPartitions = owned.get(partition.topic());
+            if (topicPartitions != null) {
+                topicPartitions.remove(partition.partition());
+            }
+            // Re-read on the next assignment, the topic may have been expanded meanwhile.
+            partitionCounts.remove(partition.topic());
+        }
+        logOwnership(partitions);
+    }
+
+    private void logOwnership(Collection<TopicPartition> partitions) {
+        for (PipelineStage stage : PipelineStage.values()) {
+            if (partitions.stream().anyMatch(p -> p.topic().equals(stage.getTopic()))) {
+                log.info("🧭 Stage {} partitions owned here: {} -> local handoff {}", stage,
+                        owned.getOrDefault(stage.getTopic(), Set.of()),
+                        ownsAllPartitions(stage) ? "possible" : "off, using the broker");
+            }
+        }
+    }
+}
@@ -4,8 +4,11 @@ import com.example.kafka.model.OrderEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+
 @Slf4j
 @Service
 @RequiredArgsConstructor
@@ -13,14 +16,17 @@ public class EventProducer {
 
     private final KafkaTemplate<String, OrderEvent> eventKafkaTemplate;
 
-    public void publishEvent(OrderEvent event) {
+    /**
+     * @return completes once {@code order.events} acknowledged the event
+     */
+    public CompletableFuture<SendResult<String, OrderEvent>> publishEvent(OrderEvent event) {
         log.info("📢 Publishing event: type={}, orderId={}, status: {} -> {}",
                 event.getEventType(),
                 event.getOrderId(),
                 event.getPreviousStatus(),
                 event.getNewStatus());
 
-        eventKafkaTemplate.send("order.events", event.getOrderId(), event)
+        return eventKafkaTemplate.send("order.events", event.getOrderId(), event)
                 .whenComplete((result, ex) -> {
                     if (ex == null) {
                         log.info("✅ Event published: eventId={}, partition={}",
@@ -1,18 +1,29 @@
 package com.example.kafka.producer;
 
 import com.example.kafka.model.Notification;
+import com.example.kafka.pipeline.LocalHandoff;
+import com.example.kafka.pipeline.PipelineStage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.JacksonUtils;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import java.io.UncheckedIOException;
+
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class NotificationProducer {
 
     private final KafkaTemplate<String, Notification> notificationKafkaTemplate;
+    private final KafkaTemplate<String, byte[]> rawOrderKafkaTemplate;
+    private final LocalHandoff localHandoff;
+    private final ObjectMapper objectMapper = JacksonUtils.enhancedObjectMapper();
 
     @Async
     public void sendNotification(Notification notification) {
@@ -21,6 +32,11 @@ public class NotificationProducer {
                 notification.getRecipient(),
                 notification.getOrderId());
 
+        if (localHandoff.isEnabled()) {
+            sendWithHandoff(notification);
+            return;
+        }
+
         notificationKafkaTemplate.send("order.notifications", notification.getNotificationId(), notification)
                 .whenComplete((result, ex) -> {
                     if (ex == null) {
@@ -32,4 +48,30 @@ public class NotificationProducer {
                     }
                 });
     }
+
+    private void sendWithHandoff(Notification notification) {
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(notification);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        ProducerRecord<String, byte[]> record =
+                new ProducerRecord<>("order.notifications", notification.getNotificationId(), payload);
+        String handoffId = localHandoff.offer(PipelineStage.NOTIFICATION, record);
+
+        rawOrderKafkaTemplate.send(record)
+                .whenComplete((result, ex) -> {
+                    if (ex == null) {
+                        log.info("✅ Notification sent: notificationId={}, offset={}, local={}",
+                                notification.getNotificationId(),
+                                result.getRecordMetadata().offset(),
+                                handoffId != null);
+                    } else {
+                        localHandoff.forget(handoffId);
+                        log.error("❌ Failed to send notification: {}", ex.getMessage());
+                    }
+                });
+    }
 }
@@ -1,16 +1,26 @@
 package com.example.kafka.producer;
 
+import com.example.kafka.ingestion.AdmissionController;
+import com.example.kafka.ingestion.RawOrderIngestor.IngestedOrder;
 import com.example.kafka.model.Order;
+import com.example.kafka.pipeline.LocalHandoff;
+import com.example.kafka.pipeline.PipelineStage;
+import com.example.kafka.projection.OrderProjection;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.common.header.internals.RecordHeader;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.JacksonUtils;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 @Slf4j
 @Service
@@ -18,8 +28,15 @@ import java.util.concurrent.CompletableFuture;
 public class OrderProducer {
 
     private final KafkaTemplate<String, Order> orderKafkaTemplate;
+    private final KafkaTemplate<String, byte[]> rawOrderKafkaTemplate;
+    private final AdmissionController admissionController;
+    private final LocalHandoff localHandoff;
+    private final ObjectMapper objectMapper = JacksonUtils.enhancedObjectMapper();
 
-    public void sendOrderCreated(Order order) {
+    /**
+     * @return the send, already failed if the producer gave up on {@code max.block.ms}
+     */
+    public CompletableFuture<SendResult<String, Order>> sendOrderCreated(Order order) {
         log.info("📤 Sending order to 'order.created': orderId={}, customer={}, total={}",
                 order.getOrderId(), order.getCustomerName(), order.getTotalAmount());
 
@@ -34,9 +51,10 @@ public class OrderProducer {
         record.headers().add(new RecordHeader("priority", order.getPriority().name().getBytes(StandardCharsets.UTF_8)));
         record.headers().add(new RecordHeader("customer-id", order.getCustomerId().getBytes(StandardCharsets.UTF_8)));
 
-        CompletableFuture<SendResult<String, Order>> future = orderKafkaTemplate.send(record);
+        CompletableFuture<SendResult<String, Order>> future = trackInFlight(() -> orderKafkaTemplate.send(record));
 
-        future.whenComplete((result, ex) -> {
+        return future.whenComplete((result, ex) -> {
+            admissionController.onSendCompleted();
             if (ex == null) {
                 log.info("✅ Order sent successfully: orderId={}, partition={}, offset={}",
                         order.getOrderId(),
@@ -49,6 +67,41 @@ public class OrderProducer {
         });
     }
 
+    /**
+     * @return the send, already failed if the producer gave up on {@code max.block.ms}
+     */
+    public CompletableFuture<SendResult<String, byte[]>> sendRawOrderCreated(IngestedOrder order) {
+        log.info("📤 Sending raw order to 'order.created': orderId={}, customer={}, total={}, bytes={}",
+                order.getOrderId(), order.getCustomerId(), order.getTotalAmount(), order.getPayload().length);
+
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>(
+                "order.created",
+                null,
+                order.getOrderId(),
+                order.getPayload()
+        );
+
+        record.headers().add(new RecordHeader("event-type", "ORDER_CREATED".getBytes(StandardCharsets.UTF_8)));
+        record.headers().add(new RecordHeader("priority", order.getPriority().getBytes(StandardCharsets.UTF_8)));
+        if (order.getCustomerId() != null) {
+            record.headers().add(new RecordHeader("customer-id", order.getCustomerId().getBytes(StandardCharsets.UTF_8)));
+        }
+
+        return trackInFlight(() -> rawOrderKafkaTemplate.send(record))
+                .whenComplete((result, ex) -> {
+                    admissionController.onSendCompleted();
+                    if (ex == null) {
+                        log.info("✅ Raw order sent successfully: orderId={}, partition={}, offset={}",
+                                order.getOrderId(),
+                                result.getRecordMetadata().partition(),
+                                result.getRecordMetadata().offset());
+                    } else {
+                        log.error("❌ Failed to send raw order: orderId={}, error={}",
+                                order.getOrderId(), ex.getMessage(), ex);
+                    }
+                });
+    }
+
     public void sendOrderValidated(Order order) {
         log.info("📤 Sending validated order: orderId={}", order.getOrderId());
 
@@ -63,32 +116,46 @@ public class OrderProducer {
                 });
     }
 
-    public void sendOrderToPayment(Order order) {
-        log.info("📤 Sending order to payment: orderId={}, amount={}",
-                order.getOrderId(), order.getTotalAmount());
+    /**
+     * @return completes once {@code order.payment} acknowledged the record
+     */
+    public CompletableFuture<SendResult<String, byte[]>> sendOrderToPayment(OrderProjection projection) {
+        Order order = projection.getOrder();
+        log.info("📤 Sending order to payment: orderId={}", order.getOrderId());
 
-        orderKafkaTemplate.send("order.payment", order.getOrderId(), order)
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>(
+                "order.payment",
+                order.getOrderId(),
+                projection.toBytes()
+        );
+        projection.addClaimCheckHeader(record.headers());
+        String handoffId = localHandoff.offer(PipelineStage.PAYMENT, record);
+
+        return rawOrderKafkaTemplate.send(record)
                 .whenComplete((result, ex) -> {
                     if (ex == null) {
                         log.info("✅ Order sent to payment: orderId={}", order.getOrderId());
                     } else {
+                        localHandoff.forget(handoffId);
                         log.error("❌ Failed to send to payment: {}", ex.getMessage());
                     }
                 });
     }
 
-    public void sendOrderShipped(Order order) {
+    public void sendOrderShipped(OrderProjection projection) {
+        Order order = projection.getOrder();
         log.info("📤 Sending shipped order: orderId={}", order.getOrderId());
 
-        ProducerRecord<String, Order> record = new ProducerRecord<>(
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>(
                 "order.shipped",
                 order.getOrderId(),
-                order
+                projection.toBytes()
         );
+        projection.addClaimCheckHeader(record.headers());
 
         record.headers().add(new RecordHeader("tracking-enabled", "true".getBytes(StandardCharsets.UTF_8)));
 
-        orderKafkaTemplate.send(record)
+        rawOrderKafkaTemplate.send(record)
                 .whenComplete((result, ex) -> {
                     if (ex == null) {
                         log.info("✅ Shipped order sent: orderId={}", order.getOrderId());
@@ -102,6 +169,11 @@ public class OrderProducer {
         log.info("📤 Sending order to inventory: orderId={}, items={}",
                 order.getOrderId(), order.getItems().size());
 
+        if (localHandoff.isEnabled()) {
+            sendToInventoryWithHandoff(order);
+            return;
+        }
+
         orderKafkaTemplate.send("order.inventory", order.getOrderId(), order)
                 .whenComplete((result, ex) -> {
                     if (ex == null) {
@@ -111,4 +183,104 @@ public class OrderProducer {
                     }
                 });
     }
+
+    /**
+     * Serializes the order once: the same bytes go to the topic and, if there is room, to the
+     * inventory stage in memory.
+     */
+    private void sendToInventoryWithHandoff(Order order) {
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(order);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>("order.inventory", order.getOrderId(), payload);
+        String handoffId = localHandoff.offer(PipelineStage.INVENTORY, record);
+
+        rawOrderKafkaTemplate.send(record)
+                .whenComplete((result, ex) -> {
+                    if (ex == null) {
+                        log.info("✅ Order sent to inventory: orderId={}, local={}", order.getOrderId(), handoffId != null);
+                    } else {
+                        localHandoff.forget(handoffId);
+                        log.error("❌ Failed to send to inventory: {}", ex.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * @return completes once the retry topic acknowledged the record
+     */
+    public CompletableFuture<SendResult<String, byte[]>> sendToRetry(OrderProjection projection, String targetTopic,
+                                                                     int attempt, String reason) {
+        Order order = projection.getOrder();
+        log.info("🔁 Sending order to retry: orderId={}, target={}, attempt={}, reason={}",
+                order.getOrderId(), targetTopic, attempt, reason);
+
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>(
+                "order.retry",
+                order.getOrderId(),
+                projection.toBytes()
+        );
+        projection.addClaimCheckHeader(record.headers());
+
+        record.headers().add(new RecordHeader("retry-target", targetTopic.getBytes(StandardCharsets.UTF_8)));
+        record.headers().add(new RecordHeader("retry-attempt", String.valueOf(attempt).getBytes(StandardCharsets.UTF_8)));
+        record.headers().add(new RecordHeader("retry-reason", reason.getBytes(StandardCharsets.UTF_8)));
+
+        return rawOrderKafkaTemplate.send(record)
+                .whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        log.error("❌ Failed to send to retry: orderId={}, error={}", order.getOrderId(), ex.getMessage());
+                    }
+                });
+    }
+
+    public void sendToDeadLetter(Order order, String reason) {
+        log.warn("☠️ Sending order to dead letter: orderId={}, reason={}", order.getOrderId(), reason);
+
+        ProducerRecord<String, Order> record = new ProducerRecord<>(
+                "order.dead-letter",
+                order.getOrderId(),
+                order
+        );
+
+        record.headers().add(new RecordHeader("dead-letter-reason", reason.getBytes(StandardCharsets.UTF_8)));
+
+        orderKafkaTemplate.send(record)
+                .whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        log.error("❌ Failed to send to dead letter: orderId={}, error={}", order.getOrderId(), ex.getMessage());
+                    }
+                });
+    }
+
+    public void resend(Order order, String topic, int attempt) {
+        ProducerRecord<String, Order> record = new ProducerRecord<>(topic, order.getOrderId(), order);
+        record.headers().add(new RecordHeader("retry-attempt", String.valueOf(attempt).getBytes(StandardCharsets.UTF_8)));
+
+        orderKafkaTemplate.send(record)
+                .whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        log.error("❌ Failed to resend order: orderId={}, topic={}, error={}",
+                                order.getOrderId(), topic, ex.getMessage());
+                    }
+                });
+    }
+
+    private <T> CompletableFuture<T> trackInFlight(Supplier<CompletableFuture<T>> send) {
+        admissionController.onSendStarted();
+        try {
+            return send.get();
+        } catch (RuntimeException e) {
+            if (AdmissionController.isSendTimeout(e)) {
+                // Reported like an asynchronous failure, so that the caller answers 429.
+                return CompletableFuture.failedFuture(e);
+            }
+            admissionController.onSendCompleted();
+            throw e;
+        }
+    }
 }
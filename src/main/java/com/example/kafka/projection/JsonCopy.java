@@ -0,0 +1,43 @@
+package com.example.kafka.projection;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * Token-level JSON copy used wherever a payload is forwarded without being bound to objects.
+ */
+public final class JsonCopy {
+
+    private JsonCopy() {
+    }
+
+    /**
+     * Copies the value at the current token, keeping numbers exactly as they were written.
+     */
+    public static void copyValue(JsonParser parser, JsonGenerator generator) throws IOException {
+        JsonToken token = parser.currentToken();
+        switch (token) {
+            case START_OBJECT -> {
+                generator.writeStartObject();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    generator.writeFieldName(parser.getCurrentName());
+                    parser.nextToken();
+                    copyValue(parser, generator);
+                }
+                generator.writeEndObject();
+            }
+            case START_ARRAY -> {
+                generator.writeStartArray();
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    copyValue(parser, generator);
+                }
+                generator.writeEndArray();
+            }
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> generator.writeNumber(parser.getText());
+            default -> generator.copyCurrentEvent(parser);
+        }
+    }
+}
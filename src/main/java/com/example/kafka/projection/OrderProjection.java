@@ -0,0 +1,100 @@
+package com.example.kafka.projection;
+
+import com.example.kafka.claimcheck.ClaimCheck;
+import com.example.kafka.model.Order;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.header.Headers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * An order as seen by one pipeline stage: {@link #getOrder()} only has the projected fields set,
+ * while the original record bytes are kept. {@link #toBytes()} rebuilds the payload for the next
+ * topic by copying every other field from those bytes unchanged and writing the projected fields
+ * from their current values, so a stage never needs the parts of the order it does not touch.
+ */
+public final class OrderProjection {
+
+    /**
+     * Fields every stage updates when it forwards an order.
+     */
+    private static final Set<String> TRANSITION_FIELDS = Set.of("orderId", "status", "updatedAt");
+
+    public static final Set<String> INVENTORY = with("items");
+
+    public static final Set<String> PAYMENT = with(
+            "customerId", "customerEmail", "priority", "totalAmount", "paymentInfo");
+
+    private final byte[] raw;
+    private final String claimCheckReference;
+    private final Order order;
+    private final Set<String> fields;
+    private final ObjectMapper objectMapper;
+
+    OrderProjection(byte[] raw, String claimCheckReference, Order order, Set<String> fields, ObjectMapper objectMapper) {
+        this.raw = raw;
+        this.claimCheckReference = claimCheckReference;
+        this.order = order;
+        this.fields = fields;
+        this.objectMapper = objectMapper;
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+
+    /**
+     * Marks the next record as a claim-check envelope when this projection forwards an unresolved one.
+     */
+    public void addClaimCheckHeader(Headers headers) {
+        if (claimCheckReference != null) {
+            ClaimCheck.markEnvelope(headers, claimCheckReference);
+        }
+    }
+
+    public byte[] toBytes() {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(raw.length + 64);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+            generator.writeStartObject();
+            copyFields(raw, generator, false);
+            copyFields(objectMapper.writeValueAsBytes(order), generator, true);
+            generator.writeEndObject();
+        } catch (IOException e) {
+            // Both inputs are JSON objects that were parsed or written moments ago.
+            throw new UncheckedIOException(e);
+        }
+        return output.toByteArray();
+    }
+
+    private void copyFields(byte[] source, JsonGenerator generator, boolean projected) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(source)) {
+            parser.nextToken();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                boolean keep = projected
+                        ? fields.contains(field) && parser.currentToken() != JsonToken.VALUE_NULL
+                        : !fields.contains(field);
+                if (!keep) {
+                    parser.skipChildren();
+                    continue;
+                }
+                generator.writeFieldName(field);
+                JsonCopy.copyValue(parser, generator);
+            }
+        }
+    }
+
+    private static Set<String> with(String... fields) {
+        Set<String> all = new HashSet<>(TRANSITION_FIELDS);
+        all.addAll(Set.of(fields));
+        return Set.copyOf(all);
+    }
+}
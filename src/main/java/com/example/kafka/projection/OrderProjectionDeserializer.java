@@ -0,0 +1,89 @@
+package com.example.kafka.projection;
+
+import com.example.kafka.claimcheck.ClaimCheck;
+import com.example.kafka.model.Order;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.JacksonUtils;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Reads an {@code Order} record into an {@link OrderProjection}: the top-level fields in the
+ * projection are buffered as tokens and bound, every other field is skipped by the streaming
+ * parser without building any object (addresses, notes, timestamps...).
+ *
+ * <p>A claim-check envelope is only resolved when the projection reads one of the offloaded
+ * {@link ClaimCheck#BODY_FIELDS}; otherwise the envelope itself is projected and forwarded, and
+ * the projection remembers its reference to mark the next record.
+ */
+public class OrderProjectionDeserializer implements Deserializer<OrderProjection> {
+
+    private final Set<String> fields;
+    private final ObjectMapper objectMapper;
+    private final ClaimCheck claimCheck;
+    private final boolean readsBody;
+
+    public OrderProjectionDeserializer(Set<String> fields) {
+        this(fields, JacksonUtils.enhancedObjectMapper(), null);
+    }
+
+    public OrderProjectionDeserializer(Set<String> fields, ClaimCheck claimCheck) {
+        this(fields, JacksonUtils.enhancedObjectMapper(), claimCheck);
+    }
+
+    public OrderProjectionDeserializer(Set<String> fields, ObjectMapper objectMapper, ClaimCheck claimCheck) {
+        this.fields = fields;
+        this.objectMapper = objectMapper;
+        this.claimCheck = claimCheck;
+        this.readsBody = fields.stream().anyMatch(ClaimCheck.BODY_FIELDS::contains);
+    }
+
+    @Override
+    public OrderProjection deserialize(String topic, byte[] data) {
+        return deserialize(topic, null, data);
+    }
+
+    @Override
+    public OrderProjection deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        String reference = ClaimCheck.envelopeReference(headers);
+        if (reference != null && claimCheck != null && readsBody) {
+            data = claimCheck.resolve(reference, data);
+            reference = null;
+        }
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(data)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new SerializationException("Order payload on " + topic + " is not a JSON object");
+            }
+
+            TokenBuffer projected = new TokenBuffer(parser, null);
+            projected.writeStartObject();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if (fields.contains(field)) {
+                    projected.writeFieldName(field);
+                    projected.copyCurrentStructure(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            projected.writeEndObject();
+
+            Order order = objectMapper.readValue(projected.asParser(objectMapper), Order.class);
+            return new OrderProjection(data, reference, order, fields, objectMapper);
+        } catch (IOException e) {
+            throw new SerializationException("Cannot project order from " + topic, e);
+        }
+    }
+}
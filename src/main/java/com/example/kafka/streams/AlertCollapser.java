@@ -0,0 +1,77 @@
+package com.example.kafka.streams;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.processor.PunctuationType;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorContext;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.KeyValueStore;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds alerts keyed by orderId for a short delay, merging the reasons of every alert raised
+ * for the same order, then forwards a single alert per order. Pending alerts are the only
+ * state, so the store stays as small as the number of alerts raised within the delay.
+ */
+public class AlertCollapser implements Processor<String, JsonNode, String, JsonNode> {
+
+    private static final String RECEIVED_AT = "receivedAt";
+
+    private final String storeName;
+    private final Duration collapseDelay;
+
+    private ProcessorContext<String, JsonNode> context;
+    private KeyValueStore<String, JsonNode> pendingAlerts;
+
+    public AlertCollapser(String storeName, Duration collapseDelay) {
+        this.storeName = storeName;
+        this.collapseDelay = collapseDelay;
+    }
+
+    @Override
+    public void init(ProcessorContext<String, JsonNode> context) {
+        this.context = context;
+        this.pendingAlerts = context.getStateStore(storeName);
+        context.schedule(collapseDelay, PunctuationType.WALL_CLOCK_TIME, this::emitDueAlerts);
+    }
+
+    @Override
+    public void process(Record<String, JsonNode> record) {
+        if (record.key() == null || record.value() == null) {
+            return;
+        }
+
+        ObjectNode pending = (ObjectNode) pendingAlerts.get(record.key());
+        if (pending == null) {
+            pending = ((ObjectNode) record.value()).deepCopy();
+            pending.put(RECEIVED_AT, context.currentSystemTimeMs());
+        } else {
+            ((ArrayNode) pending.get("reasons")).addAll((ArrayNode) record.value().get("reasons"));
+        }
+        pendingAlerts.put(record.key(), pending);
+    }
+
+    private void emitDueAlerts(long now) {
+        List<KeyValue<String, JsonNode>> due = new ArrayList<>();
+        try (KeyValueIterator<String, JsonNode> iterator = pendingAlerts.all()) {
+            iterator.forEachRemaining(alert -> {
+                if (now - alert.value.get(RECEIVED_AT).asLong() >= collapseDelay.toMillis()) {
+                    due.add(alert);
+                }
+            });
+        }
+
+        for (KeyValue<String, JsonNode> alert : due) {
+            ((ObjectNode) alert.value).remove(RECEIVED_AT);
+            context.forward(new Record<>(alert.key, alert.value, now));
+            pendingAlerts.delete(alert.key);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.kafka.streams;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorContext;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.state.KeyValueStore;
+
+/**
+ * Scores order amounts against the rolling statistics of their key (a customer or a category)
+ * and forwards an alert keyed by orderId when the z-score exceeds the threshold. Keys with too
+ * little history fall back to a static amount threshold. One store read and write per record.
+ */
+public class AmountAnomalyDetector implements Processor<String, JsonNode, String, JsonNode> {
+
+    private final String dimension;
+    private final String storeName;
+    private final double alpha;
+    private final double zScoreThreshold;
+    private final long minSamples;
+    private final double fallbackThreshold;
+
+    private ProcessorContext<String, JsonNode> context;
+    private KeyValueStore<String, RollingStats> statsStore;
+
+    public AmountAnomalyDetector(String dimension,
+                                 String storeName,
+                                 double alpha,
+                                 double zScoreThreshold,
+                                 long minSamples,
+                                 double fallbackThreshold) {
+        this.dimension = dimension;
+        this.storeName = storeName;
+        this.alpha = alpha;
+        this.zScoreThreshold = zScoreThreshold;
+        this.minSamples = minSamples;
+        this.fallbackThreshold = fallbackThreshold;
+    }
+
+    @Override
+    public void init(ProcessorContext<String, JsonNode> context) {
+        this.context = context;
+        this.statsStore = context.getStateStore(storeName);
+    }
+
+    @Override
+    public void process(Record<String, JsonNode> record) {
+        if (record.key() == null || record.value() == null) {
+            return;
+        }
+
+        double amount = record.value().get("amount").asDouble();
+        RollingStats stats = statsStore.get(record.key());
+        if (stats == null) {
+            stats = new RollingStats();
+        }
+
+        boolean warmedUp = stats.count() >= minSamples;
+        double zScore = warmedUp ? stats.zScore(amount) : 0;
+        boolean anomalous = warmedUp ? zScore > zScoreThreshold : amount > fallbackThreshold;
+
+        if (anomalous) {
+            ObjectNode reason = JsonNodeFactory.instance.objectNode()
+                    .put("dimension", dimension)
+                    .put("key", record.key())
+                    .put("amount", amount)
+                    .put("mean", stats.mean())
+                    .put("stdDev", stats.stdDev())
+                    .put("zScore", zScore)
+                    .put("samples", stats.count());
+
+            ObjectNode alert = JsonNodeFactory.instance.objectNode();
+            alert.put("type", "HIGH_VALUE_ORDER");
+            alert.set("orderId", record.value().get("orderId"));
+            alert.set("customerId", record.value().get("customerId"));
+            alert.set("customer", record.value().get("customer"));
+            alert.set("amount", record.value().get("orderAmount"));
+            alert.putArray("reasons").add(reason);
+
+            context.forward(record.withKey(record.value().get("orderId").asText()).withValue(alert));
+        }
+
+        stats.update(amount, alpha);
+        statsStore.put(record.key(), stats);
+    }
+}
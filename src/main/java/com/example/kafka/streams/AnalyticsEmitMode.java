@@ -0,0 +1,34 @@
+package com.example.kafka.streams;
+
+import org.apache.kafka.streams.kstream.KTable;
+import org.apache.kafka.streams.kstream.Suppressed;
+import org.apache.kafka.streams.kstream.Windowed;
+
+import java.time.Duration;
+
+public enum AnalyticsEmitMode {
+
+    /** Every window update is forwarded downstream. */
+    ON_UPDATE,
+
+    /** Only the final result is forwarded, once the window (and its grace period) has closed. */
+    ON_WINDOW_CLOSE,
+
+    /** The latest result per window is forwarded at most once per rate-limit interval of stream time. */
+    RATE_LIMITED;
+
+    private static final long RATE_LIMIT_BUFFER_RECORDS = 10_000;
+
+    public <V> KTable<Windowed<String>, V> apply(KTable<Windowed<String>, V> windowedTable, Duration rateLimit) {
+        switch (this) {
+            case ON_WINDOW_CLOSE:
+                return windowedTable.suppress(Suppressed.untilWindowCloses(Suppressed.BufferConfig.unbounded()));
+            case RATE_LIMITED:
+                return windowedTable.suppress(Suppressed.untilTimeLimit(
+                        rateLimit,
+                        Suppressed.BufferConfig.maxRecords(RATE_LIMIT_BUFFER_RECORDS).emitEarlyWhenFull()));
+            default:
+                return windowedTable;
+        }
+    }
+}
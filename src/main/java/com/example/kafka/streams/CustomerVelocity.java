@@ -0,0 +1,91 @@
+package com.example.kafka.streams;
+
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Sliding one-hour order count and amount of a customer, kept as a ring of one-minute
+ * buckets: recording and querying are constant time and the serialized form is 728 bytes.
+ */
+public class CustomerVelocity {
+
+    public static final int BUCKETS = 60;
+    public static final long BUCKET_MS = 60_000;
+
+    private static final int SERIALIZED_SIZE = Long.BYTES + BUCKETS * (Integer.BYTES + Double.BYTES);
+
+    private long headBucket;
+    private final int[] counts = new int[BUCKETS];
+    private final double[] amounts = new double[BUCKETS];
+
+    public void record(long timestampMs, double amount) {
+        long bucket = timestampMs / BUCKET_MS;
+        if (bucket > headBucket) {
+            advanceTo(bucket);
+        } else if (bucket <= headBucket - BUCKETS) {
+            return;
+        }
+
+        int index = (int) (bucket % BUCKETS);
+        counts[index]++;
+        amounts[index] += amount;
+    }
+
+    public int orderCount(long nowMs) {
+        long oldestBucket = nowMs / BUCKET_MS - BUCKETS;
+        int total = 0;
+        for (int i = 0; i < BUCKETS && headBucket - i > oldestBucket; i++) {
+            total += counts[(int) ((headBucket - i) % BUCKETS)];
+        }
+        return total;
+    }
+
+    public double totalAmount(long nowMs) {
+        long oldestBucket = nowMs / BUCKET_MS - BUCKETS;
+        double total = 0;
+        for (int i = 0; i < BUCKETS && headBucket - i > oldestBucket; i++) {
+            total += amounts[(int) ((headBucket - i) % BUCKETS)];
+        }
+        return total;
+    }
+
+    private void advanceTo(long bucket) {
+        long steps = Math.min(bucket - headBucket, BUCKETS);
+        for (long i = 1; i <= steps; i++) {
+            int index = (int) ((headBucket + i) % BUCKETS);
+            counts[index] = 0;
+            amounts[index] = 0;
+        }
+        headBucket = bucket;
+    }
+
+    public static Serde<CustomerVelocity> serde() {
+        return Serdes.serdeFrom(
+                (topic, velocity) -> {
+                    if (velocity == null) {
+                        return null;
+                    }
+                    ByteBuffer buffer = ByteBuffer.allocate(SERIALIZED_SIZE).putLong(velocity.headBucket);
+                    for (int i = 0; i < BUCKETS; i++) {
+                        buffer.putInt(velocity.counts[i]).putDouble(velocity.amounts[i]);
+                    }
+                    return buffer.array();
+                },
+                (topic, bytes) -> {
+                    if (bytes == null) {
+                        return null;
+                    }
+                    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                    CustomerVelocity velocity = new CustomerVelocity();
+                    velocity.headBucket = buffer.getLong();
+                    for (int i = 0; i < BUCKETS; i++) {
+                        velocity.counts[i] = buffer.getInt();
+                        velocity.amounts[i] = buffer.getDouble();
+                    }
+                    return velocity;
+                }
+        );
+    }
+}
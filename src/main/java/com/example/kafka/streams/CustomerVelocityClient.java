@@ -0,0 +1,103 @@
+package com.example.kafka.streams;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.StoreQueryParameters;
+import org.apache.kafka.streams.errors.InvalidStateStoreException;
+import org.apache.kafka.streams.state.QueryableStoreTypes;
+import org.apache.kafka.streams.state.ReadOnlyKeyValueStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Interactive-query client for {@code customer-velocity-store}. Lookups are served from a
+ * short-TTL near cache, then from the local RocksDB store; a customer whose partition is not
+ * hosted by this instance, or a store that is not queryable yet, yields an empty result.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CustomerVelocityClient {
+
+    private final StreamsBuilderFactoryBean streamsBuilderFactoryBean;
+    private final ConcurrentMap<String, CachedVelocity> nearCache = new ConcurrentHashMap<>();
+
+    @Value("${app.payment.velocity.cache-ttl-ms:1000}")
+    private long cacheTtlMs;
+
+    @Value("${app.payment.velocity.cache-max-entries:100000}")
+    private int cacheMaxEntries;
+
+    private volatile ReadOnlyKeyValueStore<String, CustomerVelocity> store;
+
+    public Optional<CustomerVelocity> lookup(String customerId) {
+        if (customerId == null) {
+            return Optional.empty();
+        }
+
+        long now = System.nanoTime();
+        CachedVelocity cached = nearCache.get(customerId);
+        if (cached != null && now < cached.expiresAt) {
+            return Optional.ofNullable(cached.velocity);
+        }
+
+        ReadOnlyKeyValueStore<String, CustomerVelocity> velocityStore = store();
+        if (velocityStore == null) {
+            return Optional.empty();
+        }
+
+        CustomerVelocity velocity;
+        try {
+            velocity = velocityStore.get(customerId);
+        } catch (InvalidStateStoreException e) {
+            log.debug("Velocity store not queryable: {}", e.getMessage());
+            store = null;
+            return Optional.empty();
+        }
+
+        if (nearCache.size() >= cacheMaxEntries) {
+            nearCache.clear();
+        }
+        nearCache.put(customerId, new CachedVelocity(velocity, now + cacheTtlMs * 1_000_000));
+        return Optional.ofNullable(velocity);
+    }
+
+    private ReadOnlyKeyValueStore<String, CustomerVelocity> store() {
+        ReadOnlyKeyValueStore<String, CustomerVelocity> current = store;
+        if (current != null) {
+            return current;
+        }
+
+        KafkaStreams kafkaStreams = streamsBuilderFactoryBean.getKafkaStreams();
+        if (kafkaStreams == null || kafkaStreams.state() != KafkaStreams.State.RUNNING) {
+            return null;
+        }
+
+        try {
+            current = kafkaStreams.store(StoreQueryParameters.fromNameAndType(
+                    CustomerVelocityStreams.VELOCITY_STORE,
+                    QueryableStoreTypes.<String, CustomerVelocity>keyValueStore()));
+            store = current;
+            return current;
+        } catch (InvalidStateStoreException e) {
+            log.debug("Velocity store not available yet: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static final class CachedVelocity {
+        private final CustomerVelocity velocity;
+        private final long expiresAt;
+
+        private CachedVelocity(CustomerVelocity velocity, long expiresAt) {
+            this.velocity = velocity;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
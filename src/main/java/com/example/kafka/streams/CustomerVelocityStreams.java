@@ -0,0 +1,57 @@
+package com.example.kafka.streams;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.kstream.KStream;
+import org.apache.kafka.streams.kstream.Repartitioned;
+import org.apache.kafka.streams.state.Stores;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sliding one-hour order count and amount per customer, read by {@code CustomerVelocityClient}.
+ * Always registered, unlike {@link OrderAnalyticsStreams} (behind
+ * {@code app.streams.analytics.enabled}): the payment stage's velocity check needs its store.
+ */
+@Slf4j
+@Component
+public class CustomerVelocityStreams {
+
+    public static final String VELOCITY_STORE = "customer-velocity-store";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    public void buildCustomerVelocityStream(StreamsBuilder streamsBuilder,
+                                            @Qualifier("orderCreatedStream") KStream<String, String> orderCreatedStream) {
+        streamsBuilder.addStateStore(Stores.keyValueStoreBuilder(
+                Stores.persistentKeyValueStore(VELOCITY_STORE),
+                Serdes.String(),
+                CustomerVelocity.serde()));
+
+        orderCreatedStream
+                .mapValues(this::parseJson)
+                .filter((key, order) -> order != null && order.has("customerId") && order.has("totalAmount"))
+                .map((key, order) -> KeyValue.pair(
+                        order.get("customerId").asText(),
+                        order.get("totalAmount").asDouble()))
+                .repartition(Repartitioned.with(Serdes.String(), Serdes.Double()).withName("velocity-by-customer"))
+                .process(CustomerVelocityUpdater::new, VELOCITY_STORE);
+
+        log.info("🔧 Kafka Streams: Customer velocity store configured");
+    }
+
+    private JsonNode parseJson(String value) {
+        try {
+            return objectMapper.readTree(value);
+        } catch (Exception e) {
+            log.error("Error parsing JSON: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.kafka.streams;
+
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorContext;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.state.KeyValueStore;
+
+public class CustomerVelocityUpdater implements Processor<String, Double, Void, Void> {
+
+    private KeyValueStore<String, CustomerVelocity> velocityStore;
+
+    @Override
+    public void init(ProcessorContext<Void, Void> context) {
+        this.velocityStore = context.getStateStore(CustomerVelocityStreams.VELOCITY_STORE);
+    }
+
+    @Override
+    public void process(Record<String, Double> record) {
+        if (record.key() == null || record.value() == null) {
+            return;
+        }
+
+        CustomerVelocity velocity = velocityStore.get(record.key());
+        if (velocity == null) {
+            velocity = new CustomerVelocity();
+        }
+        velocity.record(record.timestamp(), record.value());
+        velocityStore.put(record.key(), velocity);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.kafka.streams;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.streams.KafkaStreams;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports the Kafka Streams instance as OUT_OF_SERVICE while a store is being restored from its
+ * changelog (with progress) or before it first starts. A rebalance alone keeps it UP: the other
+ * tasks keep processing, and a rebalance that needs a restore is caught by the tracker.
+ */
+@Component
+@RequiredArgsConstructor
+public class KafkaStreamsHealthIndicator implements HealthIndicator {
+
+    private final StreamsBuilderFactoryBean streamsBuilderFactoryBean;
+    private final StateRestoreTracker stateRestoreTracker;
+
+    @Override
+    public Health health() {
+        KafkaStreams kafkaStreams = streamsBuilderFactoryBean.getKafkaStreams();
+        if (kafkaStreams == null) {
+            return Health.unknown().withDetail("state", "NOT_CREATED").build();
+        }
+
+        KafkaStreams.State state = kafkaStreams.state();
+        if (stateRestoreTracker.isRestoring()) {
+            return Health.outOfService()
+                    .withDetail("state", state)
+                    .withDetail("restoring", stateRestoreTracker.getActiveRestores())
+                    .build();
+        }
+
+        switch (state) {
+            case RUNNING:
+            case REBALANCING:
+                return Health.up().withDetail("state", state).build();
+            case CREATED:
+                return Health.outOfService().withDetail("state", state).build();
+            default:
+                return Health.down().withDetail("state", state).build();
+        }
+    }
+}
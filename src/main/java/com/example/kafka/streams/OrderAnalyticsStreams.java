@@ -1,78 +1,134 @@
 package com.example.kafka.streams;
 
+import com.example.kafka.config.AnalyticsStreamsProperties;
+import com.example.kafka.model.Money;
+import com.example.kafka.model.OrderPriority;
+import com.example.kafka.streams.sketch.OrderStatsSketch;
+import com.example.kafka.streams.sketch.TopKSketch;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.utils.Bytes;
 import org.apache.kafka.streams.KeyValue;
 import org.apache.kafka.streams.StreamsBuilder;
 import org.apache.kafka.streams.kstream.*;
+import org.apache.kafka.streams.state.Stores;
+import org.apache.kafka.streams.state.WindowStore;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.support.serializer.JsonSerde;
 import org.springframework.stereotype.Component;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * Analytics published to {@code order.analytics}. Only registered with
+ * {@code app.streams.analytics.enabled=true}: its windows, sketches and state stores add their
+ * own RocksDB instances and changelog topics to the streams application.
+ */
 @Slf4j
+@Component
+@ConditionalOnProperty(name = "app.streams.analytics.enabled", havingValue = "true")
 public class OrderAnalyticsStreams {
 
+    private static final String CUSTOMER_AMOUNT_STATS_STORE = "customer-amount-stats-store";
+    private static final String CATEGORY_AMOUNT_STATS_STORE = "category-amount-stats-store";
+    private static final String HIGH_VALUE_ALERTS_STORE = "high-value-alerts-store";
+    private static final double STATS_ALPHA = 0.05;
+    private static final double Z_SCORE_THRESHOLD = 3.0;
+    private static final long STATS_MIN_SAMPLES = 10;
+    private static final double HIGH_VALUE_FALLBACK_THRESHOLD = 1000.0;
+    private static final Duration ALERT_COLLAPSE_DELAY = Duration.ofSeconds(5);
+
+    private static final Duration REVENUE_WINDOW = Duration.ofMinutes(10);
+    private static final Duration REVENUE_FLUSH_INTERVAL = Duration.ofSeconds(5);
+    private static final Duration REVENUE_MERGE_GRACE = Duration.ofMinutes(1);
+
+    private static final Duration POPULAR_PRODUCTS_WINDOW = Duration.ofMinutes(15);
+    private static final Duration POPULAR_PRODUCTS_FLUSH_INTERVAL = Duration.ofSeconds(30);
+    private static final Duration POPULAR_PRODUCTS_MERGE_GRACE = Duration.ofMinutes(1);
+    private static final int SKETCH_DEPTH = 4;
+    private static final int SKETCH_WIDTH = 1024;
+    private static final int SKETCH_CANDIDATES = 50;
+    private static final int TOP_K = 10;
+    private static final String TOP_PRODUCTS_KEY = "TOP_PRODUCTS";
+    private static final String POPULAR_PRODUCTS_DELTAS_STORE = "product-popularity-deltas-store";
+
+    private static final Duration ORDER_STATS_WINDOW = Duration.ofHours(1);
+    private static final Duration ORDER_STATS_FLUSH_INTERVAL = Duration.ofSeconds(30);
+    private static final Duration ORDER_STATS_MERGE_GRACE = Duration.ofMinutes(1);
+    private static final String ORDER_STATS_KEY = "ORDER_STATS";
+    private static final String ORDER_STATS_DELTAS_STORE = "order-stats-deltas-store";
+    private static final int HLL_PRECISION = 12;
+    private static final double AMOUNT_RELATIVE_ACCURACY = 0.01;
+    private static final double AMOUNT_MAX_TRACKED = 10_000_000.0;
+
+    private static final String ORDER_SLA_PENDING_STORE = "order-sla-pending-store";
+    private static final Duration SLA_CHECK_INTERVAL = Duration.ofSeconds(10);
+    private static final Duration SLA_PENDING_TTL = Duration.ofHours(24);
+
     private final ObjectMapper objectMapper;
+    private final Map<OrderPriority, Duration> stageSlaByPriority;
+    private final AnalyticsEmitMode statusCountEmitMode;
+    private final AnalyticsEmitMode revenueEmitMode;
+    private final Duration emitRateLimit;
 
-    public OrderAnalyticsStreams() {
+    public OrderAnalyticsStreams(AnalyticsStreamsProperties properties) {
+        this.stageSlaByPriority = new EnumMap<>(properties.getSla());
+        this.statusCountEmitMode = properties.getEmit().getStatusCount();
+        this.revenueEmitMode = properties.getEmit().getRevenue();
+        this.emitRateLimit = properties.getEmit().getRateLimit();
         this.objectMapper = new ObjectMapper();
         this.objectMapper.registerModule(new JavaTimeModule());
     }
 
+    /**
+     * All analytics hang off the shared {@code order.created} and {@code order.events} sources
+     * (see {@code KafkaStreamsConfig}): a topic can only be subscribed once per topology.
+     */
     @Autowired
-    public void buildOrderStatusStream(StreamsBuilder streamsBuilder) {
-        KStream<String, String> orderEventsStream = streamsBuilder
-                .stream("order.events", Consumed.with(Serdes.String(), Serdes.String()));
-
+    public void buildAnalyticsTopology(StreamsBuilder streamsBuilder,
+                                       @Qualifier("orderCreatedStream") KStream<String, String> orderCreatedStream,
+                                       @Qualifier("orderEventsStream") KStream<String, String> orderEventsStream) {
         countOrdersByStatus(orderEventsStream);
         log.info("🔧 Kafka Streams: Order status counting configured");
-    }
-
-    @Autowired
-    public void buildOrderValueStream(StreamsBuilder streamsBuilder) {
-        KStream<String, String> orderCreatedStream = streamsBuilder
-                .stream("order.created", Consumed.with(Serdes.String(), Serdes.String()));
 
-        detectHighValueOrders(orderCreatedStream);
-        calculateTotalRevenue(orderCreatedStream);
+        detectHighValueOrders(streamsBuilder, orderCreatedStream);
+        calculateTotalRevenue(streamsBuilder, orderCreatedStream);
         log.info("🔧 Kafka Streams: Order value analysis configured");
-    }
-
-    @Autowired
-    public void buildCustomerAnalyticsStream(StreamsBuilder streamsBuilder) {
-        KStream<String, String> orderCreatedStream = streamsBuilder
-                .stream("order.created", Consumed.with(Serdes.String(), Serdes.String()));
 
         countOrdersByCustomer(orderCreatedStream);
+        analyzeOrderStatistics(streamsBuilder, orderCreatedStream);
         log.info("🔧 Kafka Streams: Customer analytics configured");
-    }
-
-    @Autowired
-    public void buildProductAnalyticsStream(StreamsBuilder streamsBuilder) {
-        KStream<String, String> orderCreatedStream = streamsBuilder
-                .stream("order.created", Consumed.with(Serdes.String(), Serdes.String()));
 
-        analyzePopularProducts(orderCreatedStream);
+        analyzePopularProducts(streamsBuilder, orderCreatedStream);
         log.info("🔧 Kafka Streams: Product analytics configured");
+
+        monitorOrderSla(streamsBuilder, orderCreatedStream, orderEventsStream);
+        log.info("🔧 Kafka Streams: Order SLA monitoring configured");
     }
 
     private void countOrdersByStatus(KStream<String, String> orderEventsStream) {
-        orderEventsStream
+        KTable<Windowed<String>, Long> statusCounts = orderEventsStream
                 .mapValues(this::parseJson)
                 .filter((key, event) -> event != null && event.has("newStatus"))
                 .groupBy(
                         (key, event) -> event.get("newStatus").asText(),
-                        Grouped.with(Serdes.String(), new JsonSerde<>(JsonNode.class, objectMapper))
+                        Grouped.with(Serdes.String(), jsonSerde(JsonNode.class))
                 )
                 .windowedBy(TimeWindows.ofSizeWithNoGrace(Duration.ofMinutes(5)))
-                .count(Materialized.as("order-status-counts-store"))
+                .count(Materialized.as("order-status-counts-store"));
+
+        statusCountEmitMode.apply(statusCounts, emitRateLimit)
                 .toStream()
                 .map((windowedKey, count) -> {
                     String status = windowedKey.key();
@@ -99,32 +155,89 @@ public class OrderAnalyticsStreams {
                 .to("order.analytics", Produced.with(Serdes.String(), Serdes.String()));
     }
 
-    private void detectHighValueOrders(KStream<String, String> orderCreatedStream) {
-        orderCreatedStream
+    private void monitorOrderSla(StreamsBuilder streamsBuilder,
+                                 KStream<String, String> orderCreatedStream,
+                                 KStream<String, String> orderEventsStream) {
+        streamsBuilder.addStateStore(Stores.keyValueStoreBuilder(
+                Stores.persistentKeyValueStore(ORDER_SLA_PENDING_STORE),
+                Serdes.String(),
+                jsonSerde(PendingOrder.class)));
+
+        KStream<String, JsonNode> created = orderCreatedStream
                 .mapValues(this::parseJson)
-                .filter((key, order) -> {
-                    if (order != null && order.has("totalAmount")) {
-                        double amount = order.get("totalAmount").asDouble();
-                        return amount > 1000.0;
-                    }
-                    return false;
-                })
-                .peek((key, order) -> {
-                    String orderId = order.has("orderId") ? order.get("orderId").asText() : "unknown";
-                    double amount = order.has("totalAmount") ? order.get("totalAmount").asDouble() : 0;
-                    String customer = order.has("customerName") ? order.get("customerName").asText() : "unknown";
+                .filter((orderId, order) -> orderId != null && order != null)
+                .mapValues(order -> (JsonNode) objectMapper.createObjectNode()
+                        .put("stage", OrderSlaMonitor.CREATED_STAGE)
+                        .put("priority", order.has("priority") ? order.get("priority").asText() : null));
+
+        KStream<String, JsonNode> transitions = orderEventsStream
+                .mapValues(this::parseJson)
+                .filter((orderId, event) -> orderId != null && event != null && event.hasNonNull("newStatus"))
+                .mapValues(event -> (JsonNode) objectMapper.createObjectNode()
+                        .put("stage", event.get("newStatus").asText()));
+
+        created
+                .merge(transitions)
+                .process(() -> new OrderSlaMonitor(
+                                ORDER_SLA_PENDING_STORE, stageSlaByPriority, SLA_CHECK_INTERVAL, SLA_PENDING_TTL),
+                        ORDER_SLA_PENDING_STORE)
+                .peek((orderId, breach) -> log.warn("⏱️ SLA BREACH: orderId={}, priority={}, stage={}, elapsedMs={}",
+                        orderId, breach.get("priority").asText(), breach.get("stage").asText(), breach.get("elapsedMs").asLong()))
+                .mapValues(breach -> breach.toString())
+                .to("order.analytics", Produced.with(Serdes.String(), Serdes.String()));
+    }
+
+    private void detectHighValueOrders(StreamsBuilder streamsBuilder, KStream<String, String> orderCreatedStream) {
+        JsonSerde<JsonNode> jsonSerde = jsonSerde(JsonNode.class);
+
+        streamsBuilder.addStateStore(Stores.keyValueStoreBuilder(
+                Stores.persistentKeyValueStore(CUSTOMER_AMOUNT_STATS_STORE), Serdes.String(), RollingStats.serde()));
+        streamsBuilder.addStateStore(Stores.keyValueStoreBuilder(
+                Stores.persistentKeyValueStore(CATEGORY_AMOUNT_STATS_STORE), Serdes.String(), RollingStats.serde()));
+        streamsBuilder.addStateStore(Stores.keyValueStoreBuilder(
+                Stores.persistentKeyValueStore(HIGH_VALUE_ALERTS_STORE), Serdes.String(), jsonSerde));
 
-                    log.warn("🚨 HIGH VALUE ORDER: orderId={}, amount={}, customer={}",
-                            orderId, amount, customer);
+        KStream<String, JsonNode> orders = orderCreatedStream
+                .mapValues(this::parseJson)
+                .filter((key, order) -> order != null && order.has("orderId") && order.has("totalAmount"));
+
+        KStream<String, JsonNode> customerAlerts = orders
+                .filter((key, order) -> order.has("customerId"))
+                .map((key, order) -> KeyValue.pair(
+                        order.get("customerId").asText(),
+                        amountObservation(order, order.get("totalAmount").asDouble())))
+                .repartition(Repartitioned.with(Serdes.String(), jsonSerde).withName("high-value-by-customer"))
+                .process(() -> new AmountAnomalyDetector("CUSTOMER", CUSTOMER_AMOUNT_STATS_STORE,
+                                STATS_ALPHA, Z_SCORE_THRESHOLD, STATS_MIN_SAMPLES, HIGH_VALUE_FALLBACK_THRESHOLD),
+                        CUSTOMER_AMOUNT_STATS_STORE);
+
+        KStream<String, JsonNode> categoryAlerts = orders
+                .filter((key, order) -> order.has("items") && order.get("items").isArray())
+                .flatMap((key, order) -> {
+                    Map<String, Double> amountByCategory = new HashMap<>();
+                    order.get("items").forEach(item -> {
+                        if (item.has("category") && item.has("totalPrice")) {
+                            amountByCategory.merge(item.get("category").asText(), item.get("totalPrice").asDouble(), Double::sum);
+                        }
+                    });
+
+                    List<KeyValue<String, JsonNode>> observations = new ArrayList<>();
+                    amountByCategory.forEach((category, amount) ->
+                            observations.add(KeyValue.pair(category, amountObservation(order, amount))));
+                    return observations;
                 })
-                .mapValues(order -> {
-                    Map<String, Object> alert = new HashMap<>();
-                    alert.put("type", "HIGH_VALUE_ORDER");
-                    alert.put("orderId", order.has("orderId") ? order.get("orderId").asText() : "unknown");
-                    alert.put("amount", order.has("totalAmount") ? order.get("totalAmount").asDouble() : 0);
-                    alert.put("customer", order.has("customerName") ? order.get("customerName").asText() : "unknown");
-                    alert.put("customerId", order.has("customerId") ? order.get("customerId").asText() : "unknown");
+                .repartition(Repartitioned.with(Serdes.String(), jsonSerde).withName("high-value-by-category"))
+                .process(() -> new AmountAnomalyDetector("CATEGORY", CATEGORY_AMOUNT_STATS_STORE,
+                                STATS_ALPHA, Z_SCORE_THRESHOLD, STATS_MIN_SAMPLES, HIGH_VALUE_FALLBACK_THRESHOLD),
+                        CATEGORY_AMOUNT_STATS_STORE);
 
+        customerAlerts
+                .merge(categoryAlerts)
+                .repartition(Repartitioned.with(Serdes.String(), jsonSerde).withName("high-value-by-order"))
+                .process(() -> new AlertCollapser(HIGH_VALUE_ALERTS_STORE, ALERT_COLLAPSE_DELAY), HIGH_VALUE_ALERTS_STORE)
+                .peek((orderId, alert) -> log.warn("🚨 HIGH VALUE ORDER: orderId={}, amount={}, customer={}, reasons={}",
+                        orderId, alert.get("amount"), alert.get("customer"), alert.get("reasons").size()))
+                .mapValues(alert -> {
                     try {
                         return objectMapper.writeValueAsString(alert);
                     } catch (Exception e) {
@@ -135,23 +248,41 @@ public class OrderAnalyticsStreams {
                 .to("order.analytics", Produced.with(Serdes.String(), Serdes.String()));
     }
 
-    private void calculateTotalRevenue(KStream<String, String> orderCreatedStream) {
-        orderCreatedStream
+    private JsonNode amountObservation(JsonNode order, double amount) {
+        ObjectNode observation = objectMapper.createObjectNode();
+        observation.put("orderId", order.get("orderId").asText());
+        observation.put("customerId", order.has("customerId") ? order.get("customerId").asText() : "unknown");
+        observation.put("customer", order.has("customerName") ? order.get("customerName").asText() : "unknown");
+        observation.put("orderAmount", order.get("totalAmount").asDouble());
+        observation.put("amount", amount);
+        return observation;
+    }
+
+    private void calculateTotalRevenue(StreamsBuilder streamsBuilder, KStream<String, String> orderCreatedStream) {
+        streamsBuilder.addStateStore(Stores.keyValueStoreBuilder(
+                Stores.persistentKeyValueStore(RevenuePreAggregator.STORE_NAME),
+                Serdes.Long(),
+                Money.serde()));
+
+        KTable<Windowed<String>, Money> revenue = orderCreatedStream
                 .mapValues(this::parseJson)
                 .filter((key, order) -> order != null && order.has("totalAmount"))
-                .groupBy(
-                        (key, order) -> "TOTAL_REVENUE",
-                        Grouped.with(Serdes.String(), new JsonSerde<>(JsonNode.class, objectMapper))
-                )
-                .windowedBy(TimeWindows.ofSizeWithNoGrace(Duration.ofMinutes(10)))
-                .aggregate(
-                        () -> 0.0,
-                        (key, orderJson, aggregate) -> {
-                            double amount = orderJson.get("totalAmount").asDouble();
-                            return aggregate + amount;
-                        },
-                        Materialized.with(Serdes.String(), Serdes.Double())
+                .mapValues(order -> parseAmount(order.get("totalAmount")))
+                .filter((key, amount) -> amount != null && amount.getCurrency() == Money.DEFAULT_CURRENCY)
+                .process(
+                        () -> new RevenuePreAggregator(REVENUE_WINDOW, REVENUE_FLUSH_INTERVAL),
+                        RevenuePreAggregator.STORE_NAME
                 )
+                .groupByKey(Grouped.with(Serdes.String(), Money.serde()))
+                .windowedBy(TimeWindows.ofSizeAndGrace(REVENUE_WINDOW, REVENUE_MERGE_GRACE))
+                .reduce(
+                        Money::plus,
+                        Materialized.<String, Money, WindowStore<Bytes, byte[]>>as("revenue-totals-store")
+                                .withKeySerde(Serdes.String())
+                                .withValueSerde(Money.serde())
+                );
+
+        revenueEmitMode.apply(revenue, emitRateLimit)
                 .toStream()
                 .peek((windowedKey, totalRevenue) -> {
                     log.info("💰 Revenue Analytics: total={}, window=[{} - {}]",
@@ -182,7 +313,7 @@ public class OrderAnalyticsStreams {
                 .filter((key, order) -> order != null && order.has("customerId"))
                 .groupBy(
                         (key, order) -> order.get("customerId").asText(),
-                        Grouped.with(Serdes.String(), new JsonSerde<>(JsonNode.class, objectMapper))
+                        Grouped.with(Serdes.String(), jsonSerde(JsonNode.class))
                 )
                 .count(Materialized.as("orders-by-customer-store"))
                 .toStream()
@@ -196,7 +327,73 @@ public class OrderAnalyticsStreams {
                 });
     }
 
-    private void analyzePopularProducts(KStream<String, String> orderCreatedStream) {
+    private void analyzeOrderStatistics(StreamsBuilder streamsBuilder, KStream<String, String> orderCreatedStream) {
+        streamsBuilder.addStateStore(Stores.timestampedKeyValueStoreBuilder(
+                Stores.persistentTimestampedKeyValueStore(ORDER_STATS_DELTAS_STORE),
+                Serdes.Long(),
+                jsonSerde(JsonNode.class)));
+
+        orderCreatedStream
+                .mapValues(this::parseJson)
+                .filter((key, order) -> order != null && order.has("totalAmount"))
+                .mapValues(this::orderStatsSample)
+                .process(() -> new SketchPreAggregator<JsonNode, OrderStatsSketch>(
+                        ORDER_STATS_DELTAS_STORE,
+                        ORDER_STATS_KEY,
+                        ORDER_STATS_WINDOW,
+                        ORDER_STATS_FLUSH_INTERVAL,
+                        () -> new OrderStatsSketch(HLL_PRECISION, AMOUNT_RELATIVE_ACCURACY, AMOUNT_MAX_TRACKED),
+                        (sketch, order) -> sketch.add(
+                                order.has("customerId") ? order.get("customerId").asText() : null,
+                                order.get("totalAmount").asDouble())),
+                        ORDER_STATS_DELTAS_STORE)
+                .groupByKey(Grouped.with(Serdes.String(), OrderStatsSketch.serde()))
+                .windowedBy(TimeWindows.ofSizeAndGrace(ORDER_STATS_WINDOW, ORDER_STATS_MERGE_GRACE))
+                .emitStrategy(EmitStrategy.onWindowClose())
+                .aggregate(
+                        () -> new OrderStatsSketch(HLL_PRECISION, AMOUNT_RELATIVE_ACCURACY, AMOUNT_MAX_TRACKED),
+                        (key, partial, sketch) -> sketch.merge(partial),
+                        Materialized.<String, OrderStatsSketch, WindowStore<Bytes, byte[]>>as("order-stats-store")
+                                .withKeySerde(Serdes.String())
+                                .withValueSerde(OrderStatsSketch.serde())
+                )
+                .toStream()
+                .map((windowedKey, sketch) -> {
+                    Map<String, Object> analytics = new HashMap<>();
+                    analytics.put("type", ORDER_STATS_KEY);
+                    analytics.put("orderCount", sketch.orderCount());
+                    analytics.put("distinctCustomers", sketch.distinctCustomers());
+                    analytics.put("totalAmount", sketch.totalAmount());
+                    analytics.put("p50", sketch.amountQuantile(0.50));
+                    analytics.put("p95", sketch.amountQuantile(0.95));
+                    analytics.put("p99", sketch.amountQuantile(0.99));
+                    analytics.put("windowStart", windowedKey.window().startTime().toString());
+                    analytics.put("windowEnd", windowedKey.window().endTime().toString());
+
+                    log.info("📈 Order Statistics: orders={}, distinctCustomers={}, p50={}, p95={}, window=[{} - {}]",
+                            sketch.orderCount(),
+                            sketch.distinctCustomers(),
+                            analytics.get("p50"),
+                            analytics.get("p95"),
+                            windowedKey.window().startTime(),
+                            windowedKey.window().endTime());
+
+                    try {
+                        return KeyValue.pair(ORDER_STATS_KEY, objectMapper.writeValueAsString(analytics));
+                    } catch (Exception e) {
+                        log.error("Error serializing order statistics", e);
+                        return KeyValue.pair(ORDER_STATS_KEY, "{}");
+                    }
+                })
+                .to("order.analytics", Produced.with(Serdes.String(), Serdes.String()));
+    }
+
+    private void analyzePopularProducts(StreamsBuilder streamsBuilder, KStream<String, String> orderCreatedStream) {
+        streamsBuilder.addStateStore(Stores.timestampedKeyValueStoreBuilder(
+                Stores.persistentTimestampedKeyValueStore(POPULAR_PRODUCTS_DELTAS_STORE),
+                Serdes.Long(),
+                Serdes.String()));
+
         orderCreatedStream
                 .mapValues(this::parseJson)
                 .filter((key, order) -> order != null && order.has("items"))
@@ -211,21 +408,77 @@ public class OrderAnalyticsStreams {
                     }
                     return items;
                 })
-                .groupBy(
-                        (key, productId) -> productId,
-                        Grouped.with(Serdes.String(), Serdes.String())
+                .process(() -> new SketchPreAggregator<String, TopKSketch>(
+                        POPULAR_PRODUCTS_DELTAS_STORE,
+                        TOP_PRODUCTS_KEY,
+                        POPULAR_PRODUCTS_WINDOW,
+                        POPULAR_PRODUCTS_FLUSH_INTERVAL,
+                        () -> new TopKSketch(SKETCH_DEPTH, SKETCH_WIDTH, SKETCH_CANDIDATES),
+                        (sketch, productId) -> sketch.add(productId, 1)),
+                        POPULAR_PRODUCTS_DELTAS_STORE)
+                .groupByKey(Grouped.with(Serdes.String(), TopKSketch.serde()))
+                .windowedBy(TimeWindows.ofSizeAndGrace(POPULAR_PRODUCTS_WINDOW, POPULAR_PRODUCTS_MERGE_GRACE))
+                .emitStrategy(EmitStrategy.onWindowClose())
+                .aggregate(
+                        () -> new TopKSketch(SKETCH_DEPTH, SKETCH_WIDTH, SKETCH_CANDIDATES),
+                        (key, partial, sketch) -> sketch.merge(partial),
+                        Materialized.<String, TopKSketch, WindowStore<Bytes, byte[]>>as("product-popularity-store")
+                                .withKeySerde(Serdes.String())
+                                .withValueSerde(TopKSketch.serde())
                 )
-                .windowedBy(TimeWindows.ofSizeWithNoGrace(Duration.ofMinutes(15)))
-                .count(Materialized.as("product-popularity-store"))
                 .toStream()
-                .filter((windowedKey, count) -> count >= 3)
-                .peek((windowedKey, count) -> {
-                    log.info("🔥 POPULAR PRODUCT: productId={}, orders={}, window=[{} - {}]",
-                            windowedKey.key(),
-                            count,
+                .map((windowedKey, sketch) -> {
+                    Map<String, Long> topProducts = sketch.topK(TOP_K);
+
+                    log.info("🔥 POPULAR PRODUCTS: top={}, totalItems={}, window=[{} - {}]",
+                            topProducts,
+                            sketch.total(),
                             windowedKey.window().startTime(),
                             windowedKey.window().endTime());
-                });
+
+                    List<Map<String, Object>> products = new ArrayList<>();
+                    topProducts.forEach((productId, count) -> {
+                        Map<String, Object> product = new HashMap<>();
+                        product.put("productId", productId);
+                        product.put("count", count);
+                        products.add(product);
+                    });
+
+                    Map<String, Object> analytics = new HashMap<>();
+                    analytics.put("type", "TOP_PRODUCTS");
+                    analytics.put("products", products);
+                    analytics.put("totalItems", sketch.total());
+                    analytics.put("windowStart", windowedKey.window().startTime().toString());
+                    analytics.put("windowEnd", windowedKey.window().endTime().toString());
+
+                    try {
+                        return KeyValue.pair(TOP_PRODUCTS_KEY, objectMapper.writeValueAsString(analytics));
+                    } catch (Exception e) {
+                        log.error("Error serializing popular products analytics", e);
+                        return KeyValue.pair(TOP_PRODUCTS_KEY, "{}");
+                    }
+                })
+                .to("order.analytics", Produced.with(Serdes.String(), Serdes.String()));
+    }
+
+    /**
+     * Without type headers: the target type is fixed, and a {@code __TypeId__} naming a Jackson
+     * node class would be rejected as untrusted when read back from a repartition topic.
+     */
+    private <T> JsonSerde<T> jsonSerde(Class<T> type) {
+        return new JsonSerde<>(type, objectMapper).noTypeInfo().ignoreTypeHeaders();
+    }
+
+    /**
+     * Only the fields the order statistics read, so each delta logged by the pre-aggregator stays small.
+     */
+    private JsonNode orderStatsSample(JsonNode order) {
+        ObjectNode sample = objectMapper.createObjectNode();
+        if (order.has("customerId")) {
+            sample.set("customerId", order.get("customerId"));
+        }
+        sample.set("totalAmount", order.get("totalAmount"));
+        return sample;
     }
 
     private JsonNode parseJson(String value) {
@@ -236,4 +489,13 @@ public class OrderAnalyticsStreams {
             return null;
         }
     }
+
+    private Money parseAmount(JsonNode amount) {
+        try {
+            return Money.of(amount.asText());
+        } catch (RuntimeException e) {
+            log.error("Error parsing amount '{}': {}", amount, e.getMessage());
+            return null;
+        }
+    }
 }
@@ -0,0 +1,331 @@
+package com.example.kafka.streams;
+
+import com.example.kafka.backend.CoalescingInventoryReserver;
+import com.example.kafka.backend.PaymentAuthorizer;
+import com.example.kafka.id.IdGenerator;
+import com.example.kafka.model.Notification;
+import com.example.kafka.model.NotificationStatus;
+import com.example.kafka.model.NotificationType;
+import com.example.kafka.model.Order;
+import com.example.kafka.model.OrderEvent;
+import com.example.kafka.model.OrderStatus;
+import com.example.kafka.model.PaymentInfo;
+import com.example.kafka.model.PaymentStatus;
+import com.example.kafka.validation.OrderValidator;
+import com.example.kafka.validation.ValidationResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.processor.PunctuationType;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorContext;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.KeyValueStore;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs the validate → reserve → pay → ship state machine of the listener engine for each
+ * {@code order.created} record, keeping the order's latest state in {@link #ORDER_STORE} keyed by
+ * orderId. Everything the listener engine publishes ({@code order.validated},
+ * {@code order.shipped}, {@code order.events}, {@code order.notifications}) is forwarded to sinks,
+ * so with {@code exactly_once_v2} the store update, the outputs and the input offset commit
+ * together. Backend calls are side effects outside that transaction and may be repeated if a
+ * transaction aborts, so both are idempotent per orderId and bounded by the backend timeout (see
+ * {@code KafkaStreamsConfig#choreographyStreamsConfig}). A call that times out keeps running on
+ * the backend executor, so it is compensated: a reservation that still succeeds is released and a
+ * late payment approval is voided. A replayed orderId already in the store is skipped.
+ *
+ * <p>The stream thread waits for each reservation before the next record, so the
+ * {@link CoalescingInventoryReserver} only ever sees one order per stream thread and each
+ * reservation pays its coalescing window alone.
+ */
+@Slf4j
+public class OrderChoreographyProcessor implements Processor<String, Order, String, Object> {
+
+    public static final String ORDER_STORE = "order-choreography-store";
+    /** Secondary index {@code <zero-padded store time>:<orderId>}, ordered by time for the purge. */
+    public static final String EXPIRY_STORE = "order-choreography-expiry";
+
+    public static final String VALIDATED_SINK = "order-validated-sink";
+    public static final String SHIPPED_SINK = "order-shipped-sink";
+    public static final String EVENTS_SINK = "order-events-sink";
+    public static final String NOTIFICATIONS_SINK = "order-notifications-sink";
+
+    private static final Duration RETENTION_CHECK_INTERVAL = Duration.ofMinutes(1);
+    private static final String TRIGGERED_BY = "OrderChoreographyStreams";
+
+    private final OrderValidator orderValidator;
+    private final CoalescingInventoryReserver inventoryReserver;
+    private final PaymentAuthorizer paymentAuthorizer;
+    private final IdGenerator idGenerator;
+    private final Executor backendExecutor;
+    private final Duration backendTimeout;
+    private final Duration retention;
+    private final Counter duplicates;
+
+    private ProcessorContext<String, Object> context;
+    private KeyValueStore<String, Order> orders;
+    private KeyValueStore<String, String> expiry;
+
+    public OrderChoreographyProcessor(OrderValidator orderValidator,
+                                      CoalescingInventoryReserver inventoryReserver,
+                                      PaymentAuthorizer paymentAuthorizer,
+                                      IdGenerator idGenerator,
+                                      Executor backendExecutor,
+                                      Duration backendTimeout,
+                                      Duration retention,
+                                      MeterRegistry meterRegistry) {
+        this.orderValidator = orderValidator;
+        this.inventoryReserver = inventoryReserver;
+        this.paymentAuthorizer = paymentAuthorizer;
+        this.idGenerator = idGenerator;
+        this.backendExecutor = backendExecutor;
+        this.backendTimeout = backendTimeout;
+        this.retention = retention;
+        this.duplicates = Counter.builder("choreography.orders.duplicates").register(meterRegistry);
+    }
+
+    @Override
+    public void init(ProcessorContext<String, Object> context) {
+        this.context = context;
+        this.orders = context.getStateStore(ORDER_STORE);
+        this.expiry = context.getStateStore(EXPIRY_STORE);
+        context.schedule(RETENTION_CHECK_INTERVAL, PunctuationType.WALL_CLOCK_TIME, now -> purgeExpired());
+    }
+
+    @Override
+    public void process(Record<String, Order> record) {
+        Order order = record.value();
+        if (order == null || order.getOrderId() == null) {
+            return;
+        }
+        if (orders.get(order.getOrderId()) != null) {
+            duplicates.increment();
+            log.debug("Order {} already in the choreography store, skipping", order.getOrderId());
+            return;
+        }
+
+        confirm(order, record);
+        if (validate(order) && reserveInventory(order) && pay(order)) {
+            ship(order);
+        }
+        orders.put(order.getOrderId(), order);
+        expiry.put(expiryKey(context.currentSystemTimeMs()) + ":" + order.getOrderId(), order.getOrderId());
+    }
+
+    private void confirm(Order order, Record<String, Order> record) {
+        transition(order, OrderStatus.CONFIRMED);
+        OrderEvent.OrderEventBuilder event = event(order, "ORDER_CONFIRMED", OrderStatus.PENDING,
+                "Order received and confirmed")
+                .sourceTimestamp(record.timestamp())
+                .itemsCount(order.getItems() == null ? 0 : order.getItems().size());
+        context.recordMetadata().ifPresent(metadata ->
+                event.sourcePartition(metadata.partition()).sourceOffset(metadata.offset()));
+        emit(order, event);
+    }
+
+    private boolean validate(Order order) {
+        ValidationResult result = orderValidator.validate(order, OrderValidator.Stage.STREAMS);
+        if (!result.isValid()) {
+            transition(order, OrderStatus.CANCELLED);
+            emit(order, event(order, "ORDER_VALIDATION_FAILED", OrderStatus.CONFIRMED,
+                    "Validation failed: " + result.getReason()));
+            notify(order, NotificationType.ORDER_CANCELLED, "Order Cancelled - Validation Failed",
+                    "Your order " + order.getOrderId() + " was cancelled: " + result.getReason());
+            return false;
+        }
+
+        transition(order, OrderStatus.VALIDATED);
+        context.forward(new Record<>(order.getOrderId(), (Object) order, context.currentSystemTimeMs()), VALIDATED_SINK);
+        emit(order, event(order, "ORDER_VALIDATED", OrderStatus.CONFIRMED, "Order validation successful"));
+        return true;
+    }
+
+    private boolean reserveInventory(Order order) {
+        CompletableFuture<Boolean> reservation;
+        boolean reserved;
+        try {
+            reservation = inventoryReserver.reserve(order);
+            reserved = reservation.get(backendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reserving inventory for " + order.getOrderId(), e);
+        } catch (ExecutionException | TimeoutException e) {
+            if (e instanceof TimeoutException) {
+                // The order is cancelled below: stock reserved after this point must go back.
+                inventoryReserver.abandon(order, backendExecutor);
+            }
+            // The store entry makes replays skip this order, so it must not stay VALIDATED: cancel it
+            // like an unavailable reservation, with the failure in the event.
+            log.error("❌ Error checking inventory: orderId={}, error={}", order.getOrderId(), failureReason(e));
+            cancelUnavailable(order, "Inventory check failed: " + failureReason(e));
+            return false;
+        }
+
+        if (!reserved) {
+            cancelUnavailable(order, "Inventory not available for order items");
+            return false;
+        }
+
+        transition(order, OrderStatus.INVENTORY_RESERVED);
+        List<OrderEvent.ItemQuantity> reservedItems = new ArrayList<>(order.getItems().size());
+        order.getItems().forEach(item ->
+                reservedItems.add(new OrderEvent.ItemQuantity(item.getProductId(), item.getQuantity())));
+        emit(order, event(order, "INVENTORY_RESERVED", OrderStatus.VALIDATED, "Inventory reserved successfully")
+                .reservedItems(reservedItems));
+        return true;
+    }
+
+    private void cancelUnavailable(Order order, String description) {
+        transition(order, OrderStatus.CANCELLED);
+        emit(order, event(order, "INVENTORY_UNAVAILABLE", OrderStatus.VALIDATED, description));
+    }
+
+    private static String failureReason(Exception e) {
+        if (e instanceof TimeoutException) {
+            return "no answer within the backend timeout";
+        }
+        Throwable cause = e.getCause() != null ? e.getCause() : e;
+        return cause.getMessage();
+    }
+
+    private boolean pay(Order order) {
+        transition(order, OrderStatus.PAYMENT_PROCESSING);
+        PaymentInfo paymentInfo = order.getPaymentInfo();
+
+        boolean approved;
+        try {
+            approved = CompletableFuture.supplyAsync(() -> paymentAuthorizer.authorize(order), backendExecutor)
+                    .get(backendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Never sent to the gateway, so there is nothing to void.
+            log.error("🚦 Payment backend executor saturated, failing payment: orderId={}", order.getOrderId());
+            approved = false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while authorizing payment for " + order.getOrderId(), e);
+        } catch (TimeoutException e) {
+            // Failing it keeps the transaction short. The call keeps running, so the charge is voided:
+            // the gateway then declines it even if it approves later, including on a replay.
+            log.error("⏳ Payment not answered within {} ms, failing and voiding it: orderId={}",
+                    backendTimeout.toMillis(), order.getOrderId());
+            voidPayment(order);
+            approved = false;
+        } catch (ExecutionException e) {
+            log.error("❌ Error processing payment: orderId={}, error={}", order.getOrderId(), failureReason(e));
+            approved = false;
+        }
+
+        if (!approved) {
+            transition(order, OrderStatus.PAYMENT_FAILED);
+            paymentInfo.setPaymentStatus(PaymentStatus.DECLINED);
+            emit(order, event(order, "PAYMENT_FAILED", OrderStatus.PAYMENT_PROCESSING, "Payment processing failed"));
+            notify(order, NotificationType.PAYMENT_FAILED, "Payment Failed",
+                    "Payment processing failed for order " + order.getOrderId());
+            return false;
+        }
+
+        transition(order, OrderStatus.PAYMENT_COMPLETED);
+        paymentInfo.setPaymentStatus(PaymentStatus.CAPTURED);
+        paymentInfo.setTransactionId("TXN-" + idGenerator.nextId());
+        emit(order, event(order, "PAYMENT_COMPLETED", OrderStatus.PAYMENT_PROCESSING, "Payment processed successfully")
+                .transactionId(paymentInfo.getTransactionId())
+                .amount(order.getTotalAmount())
+                .paymentMethod(paymentInfo.getPaymentMethod()));
+        notify(order, NotificationType.PAYMENT_SUCCESS, "Payment Successful",
+                "Your payment of " + order.getTotalAmount() + " has been processed successfully.");
+        return true;
+    }
+
+    private void voidPayment(Order order) {
+        try {
+            CompletableFuture.runAsync(() -> paymentAuthorizer.voidAuthorization(order), backendExecutor)
+                    .exceptionally(ex -> {
+                        log.error("❌ Failed to void payment: orderId={}, error={}", order.getOrderId(), ex.getMessage());
+                        return null;
+                    });
+        } catch (RejectedExecutionException e) {
+            log.error("❌ Failed to void payment, backend executor saturated: orderId={}", order.getOrderId());
+        }
+    }
+
+    private void ship(Order order) {
+        context.forward(new Record<>(order.getOrderId(), (Object) order, context.currentSystemTimeMs()), SHIPPED_SINK);
+        transition(order, OrderStatus.SHIPPED);
+        emit(order, event(order, "ORDER_TRACKING_READY", OrderStatus.READY_TO_SHIP, "Order shipped and tracking available"));
+    }
+
+    private void transition(Order order, OrderStatus status) {
+        order.setStatus(status);
+        order.setUpdatedAt(LocalDateTime.now());
+    }
+
+    private OrderEvent.OrderEventBuilder event(Order order, String eventType, OrderStatus previousStatus, String description) {
+        return OrderEvent.builder()
+                .eventId(idGenerator.nextId())
+                .orderId(order.getOrderId())
+                .eventType(eventType)
+                .previousStatus(previousStatus)
+                .newStatus(order.getStatus())
+                .description(description)
+                .triggeredBy(TRIGGERED_BY)
+                .timestamp(LocalDateTime.now());
+    }
+
+    private void emit(Order order, OrderEvent.OrderEventBuilder event) {
+        context.forward(new Record<>(order.getOrderId(), (Object) event.build(), context.currentSystemTimeMs()), EVENTS_SINK);
+    }
+
+    private void notify(Order order, NotificationType type, String subject, String message) {
+        Notification notification = Notification.builder()
+                .notificationId(idGenerator.nextId())
+                .orderId(order.getOrderId())
+                .customerId(order.getCustomerId())
+                .recipient(order.getCustomerEmail())
+                .type(type)
+                .channel("EMAIL")
+                .subject(subject)
+                .message(message)
+                .status(NotificationStatus.PENDING)
+                .createdAt(LocalDateTime.now())
+                .build();
+
+        context.forward(new Record<>(notification.getNotificationId(), (Object) notification,
+                context.currentSystemTimeMs()), NOTIFICATIONS_SINK);
+    }
+
+    /**
+     * Drops orders stored longer than the retention ago; replays of older orderIds are then
+     * processed again. Only the expired prefix of {@link #EXPIRY_STORE} is read: a key
+     * {@code <time>:<orderId>} sorts before the bare {@code <cutoff>} exactly when time < cutoff.
+     */
+    private void purgeExpired() {
+        String cutoff = expiryKey(context.currentSystemTimeMs() - retention.toMillis());
+        List<KeyValue<String, String>> expired = new ArrayList<>();
+
+        try (KeyValueIterator<String, String> iterator = expiry.range(expiryKey(0), cutoff)) {
+            iterator.forEachRemaining(expired::add);
+        }
+
+        for (KeyValue<String, String> entry : expired) {
+            orders.delete(entry.value);
+            expiry.delete(entry.key);
+        }
+    }
+
+    private static String expiryKey(long timestampMs) {
+        return String.format("%019d", timestampMs);
+    }
+}
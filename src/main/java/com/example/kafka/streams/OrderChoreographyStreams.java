@@ -0,0 +1,139 @@
+package com.example.kafka.streams;
+
+import com.example.kafka.backend.CoalescingInventoryReserver;
+import com.example.kafka.backend.PaymentAuthorizer;
+import com.example.kafka.claimcheck.ClaimCheck;
+import com.example.kafka.claimcheck.ClaimCheckDeserializer;
+import com.example.kafka.claimcheck.ClaimCheckSerializer;
+import com.example.kafka.config.KafkaStreamsConfig;
+import com.example.kafka.id.IdGenerator;
+import com.example.kafka.model.Order;
+import com.example.kafka.validation.OrderValidator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.kafka.KafkaStreamsMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.Topology;
+import org.apache.kafka.streams.processor.api.ProcessorSupplier;
+import org.apache.kafka.streams.state.Stores;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.config.KafkaStreamsConfiguration;
+import org.springframework.kafka.support.JacksonUtils;
+import org.springframework.kafka.support.serializer.JsonSerde;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Alternative choreography engine ({@code app.choreography.engine: streams}): one Kafka Streams
+ * application with exactly-once processing replaces the validation, order-processing, inventory
+ * and payment listener groups, which do not start in this mode. It runs as its own
+ * {@link KafkaStreams} instance because the processing guarantee is per application.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.choreography.engine", havingValue = "streams")
+public class OrderChoreographyStreams {
+
+    private static final String SOURCE = "order-created-source";
+    private static final String PROCESSOR = "order-choreography";
+
+    private final KafkaStreams kafkaStreams;
+    private final KafkaStreamsMetrics kafkaStreamsMetrics;
+    private final ThreadPoolExecutor backendExecutor;
+
+    public OrderChoreographyStreams(
+            @Qualifier("choreographyStreamsConfig") KafkaStreamsConfiguration streamsConfig,
+            OrderValidator orderValidator,
+            CoalescingInventoryReserver inventoryReserver,
+            PaymentAuthorizer paymentAuthorizer,
+            IdGenerator idGenerator,
+            StateRestoreTracker stateRestoreTracker,
+            ClaimCheck claimCheck,
+            @Value("${app.choreography.streams.backend-timeout-ms:5000}") long backendTimeoutMs,
+            @Value("${app.choreography.streams.backend-threads:32}") int backendThreads,
+            @Value("${app.choreography.streams.state-retention-hours:24}") long stateRetentionHours,
+            MeterRegistry meterRegistry) {
+        Duration backendTimeout = Duration.ofMillis(backendTimeoutMs);
+        Duration retention = Duration.ofHours(stateRetentionHours);
+        // The payment gateway call is blocking: it runs here so a stream thread only waits backendTimeout.
+        // Calls that time out keep running, as do their compensations, so the pool is bounded: a call
+        // it rejects fails the payment without reaching the gateway.
+        AtomicInteger threadCount = new AtomicInteger();
+        this.backendExecutor = new ThreadPoolExecutor(backendThreads, backendThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(backendThreads),
+                runnable -> new Thread(runnable, "choreography-backend-" + threadCount.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.backendExecutor.allowCoreThreadTimeOut(true);
+        Topology topology = buildTopology(() -> new OrderChoreographyProcessor(orderValidator, inventoryReserver,
+                paymentAuthorizer, idGenerator, backendExecutor, backendTimeout, retention, meterRegistry), claimCheck);
+
+        this.kafkaStreams = new KafkaStreams(topology, streamsConfig.asProperties());
+        StateRestoreTracker.ApplicationRestores restores =
+                stateRestoreTracker.forApplication(KafkaStreamsConfig.CHOREOGRAPHY_APPLICATION_ID);
+        this.kafkaStreams.setGlobalStateRestoreListener(restores);
+        this.kafkaStreams.setStateListener(restores);
+        this.kafkaStreamsMetrics = new KafkaStreamsMetrics(kafkaStreams);
+        this.kafkaStreamsMetrics.bindTo(meterRegistry);
+
+        log.info("🔧 Kafka Streams: order choreography engine configured\n{}", topology.describe());
+    }
+
+    private static Topology buildTopology(ProcessorSupplier<String, Order, String, Object> processor,
+                                          ClaimCheck claimCheck) {
+        ObjectMapper objectMapper = JacksonUtils.enhancedObjectMapper();
+        JsonSerde<Order> orderSerde = new JsonSerde<>(Order.class, objectMapper).ignoreTypeHeaders().noTypeInfo();
+        Serializer<Object> valueSerializer = new JsonSerializer<>(objectMapper);
+        Serializer<Object> orderSerializer = new ClaimCheckSerializer<>(valueSerializer, claimCheck);
+        Serializer<String> keySerializer = Serdes.String().serializer();
+
+        Topology topology = new Topology();
+        topology.addSource(SOURCE, Serdes.String().deserializer(),
+                new ClaimCheckDeserializer<>(orderSerde.deserializer(), claimCheck), "order.created");
+        topology.addProcessor(PROCESSOR, processor, SOURCE);
+        topology.addStateStore(Stores.keyValueStoreBuilder(
+                Stores.persistentKeyValueStore(OrderChoreographyProcessor.ORDER_STORE),
+                Serdes.String(),
+                orderSerde), PROCESSOR);
+        topology.addStateStore(Stores.keyValueStoreBuilder(
+                Stores.persistentKeyValueStore(OrderChoreographyProcessor.EXPIRY_STORE),
+                Serdes.String(),
+                Serdes.String()), PROCESSOR);
+
+        topology.addSink(OrderChoreographyProcessor.VALIDATED_SINK, "order.validated",
+                keySerializer, orderSerializer, PROCESSOR);
+        topology.addSink(OrderChoreographyProcessor.SHIPPED_SINK, "order.shipped",
+                keySerializer, orderSerializer, PROCESSOR);
+        topology.addSink(OrderChoreographyProcessor.EVENTS_SINK, "order.events",
+                keySerializer, valueSerializer, PROCESSOR);
+        topology.addSink(OrderChoreographyProcessor.NOTIFICATIONS_SINK, "order.notifications",
+                keySerializer, valueSerializer, PROCESSOR);
+        return topology;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        kafkaStreams.start();
+        log.info("▶️ Order choreography engine started (exactly-once)");
+    }
+
+    @PreDestroy
+    public void close() {
+        kafkaStreamsMetrics.close();
+        kafkaStreams.close(Duration.ofSeconds(30));
+        backendExecutor.shutdown();
+    }
+}
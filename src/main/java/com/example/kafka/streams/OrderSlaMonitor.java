@@ -0,0 +1,165 @@
+package com.example.kafka.streams;
+
+import com.example.kafka.model.OrderPriority;
+import com.example.kafka.model.OrderStatus;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.processor.PunctuationType;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorContext;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.KeyValueStore;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Follows each order from {@code order.created} through its {@code order.events} transitions and
+ * emits one SLA_BREACH record when an order stays in a stage longer than the SLA of its priority.
+ * Orders leave the store when they reach a final status or exceed the pending TTL, so the store
+ * only holds in-flight orders.
+ *
+ * <p>The check runs on wall-clock time, so stage durations are measured on the same clock: an
+ * order enters a stage when the monitor sees it, not at its record timestamp. Replaying a backlog
+ * after a restore or restart therefore starts every order's clock afresh instead of reporting it
+ * as breached (or evicting it) at once; record timestamps only order transitions of an order.
+ */
+public class OrderSlaMonitor implements Processor<String, JsonNode, String, JsonNode> {
+
+    public static final String CREATED_STAGE = "CREATED";
+
+    private static final Set<OrderStatus> FINAL_STATUSES = EnumSet.of(
+            OrderStatus.SHIPPED,
+            OrderStatus.DELIVERED,
+            OrderStatus.CANCELLED,
+            OrderStatus.PAYMENT_FAILED,
+            OrderStatus.REFUNDED,
+            OrderStatus.RETURNED
+    );
+
+    private final String storeName;
+    private final Map<OrderPriority, Duration> slaByPriority;
+    private final Duration checkInterval;
+    private final Duration pendingTtl;
+
+    private ProcessorContext<String, JsonNode> context;
+    private KeyValueStore<String, PendingOrder> pendingOrders;
+
+    public OrderSlaMonitor(String storeName,
+                           Map<OrderPriority, Duration> slaByPriority,
+                           Duration checkInterval,
+                           Duration pendingTtl) {
+        this.storeName = storeName;
+        this.slaByPriority = slaByPriority;
+        this.checkInterval = checkInterval;
+        this.pendingTtl = pendingTtl;
+    }
+
+    @Override
+    public void init(ProcessorContext<String, JsonNode> context) {
+        this.context = context;
+        this.pendingOrders = context.getStateStore(storeName);
+        context.schedule(checkInterval, PunctuationType.WALL_CLOCK_TIME, this::checkSla);
+    }
+
+    @Override
+    public void process(Record<String, JsonNode> record) {
+        if (record.key() == null || record.value() == null) {
+            return;
+        }
+
+        String stage = record.value().get("stage").asText();
+        PendingOrder pending = pendingOrders.get(record.key());
+        long now = context.currentSystemTimeMs();
+
+        if (CREATED_STAGE.equals(stage)) {
+            OrderPriority priority = parsePriority(record.value().get("priority"));
+            if (pending == null) {
+                pendingOrders.put(record.key(), new PendingOrder(priority, stage, record.timestamp(), now, now, false));
+            } else {
+                pending.setPriority(priority);
+                pendingOrders.put(record.key(), pending);
+            }
+            return;
+        }
+
+        if (isFinal(stage)) {
+            pendingOrders.delete(record.key());
+            return;
+        }
+
+        if (pending == null) {
+            pending = new PendingOrder(OrderPriority.NORMAL, stage, record.timestamp(), now, now, false);
+        } else if (record.timestamp() >= pending.getStageEventTime()) {
+            pending.setStage(stage);
+            pending.setStageEventTime(record.timestamp());
+            pending.setStageEnteredAt(now);
+            pending.setBreached(false);
+        }
+        pendingOrders.put(record.key(), pending);
+    }
+
+    private void checkSla(long now) {
+        List<KeyValue<String, PendingOrder>> breaches = new ArrayList<>();
+        List<String> expired = new ArrayList<>();
+
+        try (KeyValueIterator<String, PendingOrder> iterator = pendingOrders.all()) {
+            iterator.forEachRemaining(entry -> {
+                PendingOrder pending = entry.value;
+                if (now - pending.getCreatedAt() > pendingTtl.toMillis()) {
+                    expired.add(entry.key);
+                } else if (!pending.isBreached() && now - pending.getStageEnteredAt() > slaFor(pending).toMillis()) {
+                    breaches.add(entry);
+                }
+            });
+        }
+
+        expired.forEach(pendingOrders::delete);
+
+        for (KeyValue<String, PendingOrder> breach : breaches) {
+            PendingOrder pending = breach.value;
+            ObjectNode record = JsonNodeFactory.instance.objectNode()
+                    .put("type", "SLA_BREACH")
+                    .put("orderId", breach.key)
+                    .put("priority", pending.getPriority().name())
+                    .put("stage", pending.getStage())
+                    .put("elapsedMs", now - pending.getStageEnteredAt())
+                    .put("slaMs", slaFor(pending).toMillis());
+
+            context.forward(new Record<>(breach.key, record, now));
+
+            pending.setBreached(true);
+            pendingOrders.put(breach.key, pending);
+        }
+    }
+
+    private Duration slaFor(PendingOrder pending) {
+        return slaByPriority.getOrDefault(pending.getPriority(), slaByPriority.get(OrderPriority.NORMAL));
+    }
+
+    private static boolean isFinal(String stage) {
+        try {
+            return FINAL_STATUSES.contains(OrderStatus.valueOf(stage));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static OrderPriority parsePriority(JsonNode priority) {
+        if (priority == null || priority.isNull()) {
+            return OrderPriority.NORMAL;
+        }
+        try {
+            return OrderPriority.valueOf(priority.asText());
+        } catch (IllegalArgumentException e) {
+            return OrderPriority.NORMAL;
+        }
+    }
+}
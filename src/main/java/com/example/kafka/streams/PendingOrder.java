@@ -0,0 +1,21 @@
+package com.example.kafka.streams;
+
+import com.example.kafka.model.OrderPriority;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PendingOrder {
+    private OrderPriority priority;
+    private String stage;
+    /** Timestamp of the record that moved the order into {@link #stage}, to ignore late transitions. */
+    private long stageEventTime;
+    /** Wall-clock time at which the monitor saw the order enter {@link #stage}. */
+    private long stageEnteredAt;
+    /** Wall-clock time at which the monitor first saw the order. */
+    private long createdAt;
+    private boolean breached;
+}
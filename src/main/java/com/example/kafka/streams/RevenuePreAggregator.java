@@ -0,0 +1,75 @@
+package com.example.kafka.streams;
+
+import com.example.kafka.model.Money;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.processor.PunctuationType;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorContext;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.KeyValueStore;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * First phase of the revenue aggregation: sums order amounts per window inside
+ * each task (i.e. per input partition) and periodically forwards the partial sums
+ * under a single key, so the global merge only sees a handful of records per window.
+ * Amounts are summed exactly in minor units.
+ */
+@Slf4j
+public class RevenuePreAggregator implements Processor<String, Money, String, Money> {
+
+    public static final String STORE_NAME = "revenue-partials-store";
+    public static final String TOTAL_KEY = "TOTAL_REVENUE";
+
+    private final long windowSizeMs;
+    private final Duration flushInterval;
+
+    private ProcessorContext<String, Money> context;
+    private KeyValueStore<Long, Money> partials;
+
+    public RevenuePreAggregator(Duration windowSize, Duration flushInterval) {
+        this.windowSizeMs = windowSize.toMillis();
+        this.flushInterval = flushInterval;
+    }
+
+    @Override
+    public void init(ProcessorContext<String, Money> context) {
+        this.context = context;
+        this.partials = context.getStateStore(STORE_NAME);
+        context.schedule(flushInterval, PunctuationType.WALL_CLOCK_TIME, this::flush);
+    }
+
+    @Override
+    public void process(Record<String, Money> record) {
+        if (record.value() == null) {
+            return;
+        }
+
+        long windowStart = record.timestamp() - (record.timestamp() % windowSizeMs);
+        Money partial = partials.get(windowStart);
+        partials.put(windowStart, partial == null ? record.value() : partial.plus(record.value()));
+    }
+
+    private void flush(long wallClockTime) {
+        List<KeyValue<Long, Money>> drained = new ArrayList<>();
+        try (KeyValueIterator<Long, Money> iterator = partials.all()) {
+            iterator.forEachRemaining(drained::add);
+        }
+
+        long streamTime = context.currentStreamTimeMs();
+        for (KeyValue<Long, Money> partial : drained) {
+            long timestamp = Math.max(partial.key, Math.min(streamTime, partial.key + windowSizeMs - 1));
+            context.forward(new Record<>(TOTAL_KEY, partial.value, timestamp));
+            partials.delete(partial.key);
+        }
+
+        if (!drained.isEmpty()) {
+            log.debug("💰 Flushed {} partial revenue window(s) from task {}", drained.size(), context.taskId());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.kafka.streams;
+
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Exponentially weighted mean and variance of a value stream: a constant-time, 24-byte
+ * approximation of sliding-window statistics where {@code alpha} sets the effective window
+ * (roughly {@code 2 / alpha - 1} observations).
+ */
+public class RollingStats {
+
+    private static final int SERIALIZED_SIZE = Long.BYTES + 2 * Double.BYTES;
+    static final double MIN_RELATIVE_STD_DEV = 0.01;
+    static final double MIN_ABSOLUTE_STD_DEV = 0.01;
+
+    private long count;
+    private double mean;
+    private double variance;
+
+    public void update(double value, double alpha) {
+        if (count == 0) {
+            mean = value;
+            variance = 0;
+        } else {
+            double diff = value - mean;
+            double increment = alpha * diff;
+            mean += increment;
+            variance = (1 - alpha) * (variance + diff * increment);
+        }
+        count++;
+    }
+
+    /**
+     * Deviation from the mean in standard deviations. The standard deviation is floored at
+     * {@value #MIN_RELATIVE_STD_DEV} of the mean (and {@value #MIN_ABSOLUTE_STD_DEV}), so a constant
+     * or near-constant history still flags a value far from it instead of dividing by zero.
+     */
+    public double zScore(double value) {
+        double stdDev = Math.max(stdDev(), Math.max(Math.abs(mean) * MIN_RELATIVE_STD_DEV, MIN_ABSOLUTE_STD_DEV));
+        return (value - mean) / stdDev;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public double mean() {
+        return mean;
+    }
+
+    public double stdDev() {
+        return Math.sqrt(variance);
+    }
+
+    public static Serde<RollingStats> serde() {
+        return Serdes.serdeFrom(
+                (topic, stats) -> stats == null ? null : ByteBuffer.allocate(SERIALIZED_SIZE)
+                        .putLong(stats.count)
+                        .putDouble(stats.mean)
+                        .putDouble(stats.variance)
+                        .array(),
+                (topic, bytes) -> {
+                    if (bytes == null) {
+                        return null;
+                    }
+                    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                    RollingStats stats = new RollingStats();
+                    stats.count = buffer.getLong();
+                    stats.mean = buffer.getDouble();
+                    stats.variance = buffer.getDouble();
+                    return stats;
+                }
+        );
+    }
+}
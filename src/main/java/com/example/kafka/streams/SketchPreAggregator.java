@@ -0,0 +1,101 @@
+package com.example.kafka.streams;
+
+import org.apache.kafka.streams.processor.PunctuationType;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorContext;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.TimestampedKeyValueStore;
+import org.apache.kafka.streams.state.ValueAndTimestamp;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * First phase of the sketch-based analyses: folds records into one mergeable sketch per
+ * window inside each task and periodically forwards the partial sketches to the global merge.
+ *
+ * <p>The sketches are only kept in memory. To survive a crash or rebalance between two flushes,
+ * each record is also appended to a persistent delta store under a per-task sequence number,
+ * with its timestamp; the inputs are small (a product id, a customer id and an amount), whereas
+ * a serialized sketch is several KB. The task that takes over replays the deltas into fresh
+ * sketches before processing. A flush forwards the sketches and deletes the deltas they cover.
+ */
+public class SketchPreAggregator<V, S> implements Processor<String, V, String, S> {
+
+    private final String storeName;
+    private final String outputKey;
+    private final long windowSizeMs;
+    private final Duration flushInterval;
+    private final Supplier<S> sketchFactory;
+    private final BiConsumer<S, V> updater;
+
+    private final Map<Long, S> sketches = new HashMap<>();
+    private ProcessorContext<String, S> context;
+    private TimestampedKeyValueStore<Long, V> deltas;
+    private long firstSequence = Long.MAX_VALUE;
+    private long nextSequence;
+
+    public SketchPreAggregator(String storeName,
+                               String outputKey,
+                               Duration windowSize,
+                               Duration flushInterval,
+                               Supplier<S> sketchFactory,
+                               BiConsumer<S, V> updater) {
+        this.storeName = storeName;
+        this.outputKey = outputKey;
+        this.windowSizeMs = windowSize.toMillis();
+        this.flushInterval = flushInterval;
+        this.sketchFactory = sketchFactory;
+        this.updater = updater;
+    }
+
+    @Override
+    public void init(ProcessorContext<String, S> context) {
+        this.context = context;
+        this.deltas = context.getStateStore(storeName);
+        try (KeyValueIterator<Long, ValueAndTimestamp<V>> iterator = deltas.all()) {
+            iterator.forEachRemaining(delta -> {
+                apply(delta.value.value(), delta.value.timestamp());
+                firstSequence = Math.min(firstSequence, delta.key);
+                nextSequence = Math.max(nextSequence, delta.key + 1);
+            });
+        }
+        firstSequence = Math.min(firstSequence, nextSequence);
+        context.schedule(flushInterval, PunctuationType.WALL_CLOCK_TIME, this::flush);
+    }
+
+    @Override
+    public void process(Record<String, V> record) {
+        if (record.value() == null) {
+            return;
+        }
+
+        apply(record.value(), record.timestamp());
+        deltas.put(nextSequence++, ValueAndTimestamp.make(record.value(), record.timestamp()));
+    }
+
+    private void apply(V value, long timestamp) {
+        long windowStart = timestamp - (timestamp % windowSizeMs);
+        updater.accept(sketches.computeIfAbsent(windowStart, start -> sketchFactory.get()), value);
+    }
+
+    private void flush(long wallClockTime) {
+        long streamTime = context.currentStreamTimeMs();
+        for (Map.Entry<Long, S> partial : sketches.entrySet()) {
+            long windowStart = partial.getKey();
+            long timestamp = Math.max(windowStart, Math.min(streamTime, windowStart + windowSizeMs - 1));
+            context.forward(new Record<>(outputKey, partial.getValue(), timestamp));
+        }
+        sketches.clear();
+
+        // Deltas are numbered contiguously since the previous flush.
+        for (long sequence = firstSequence; sequence < nextSequence; sequence++) {
+            deltas.delete(sequence);
+        }
+        firstSequence = nextSequence;
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.kafka.streams;
+
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.processor.StateRestoreListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks changelog restoration per store and partition so that restore progress can be
+ * logged and reported by the Kafka Streams health indicator.
+ *
+ * <p>Each Kafka Streams application registers its own {@link #forApplication view} as both restore
+ * and state listener. {@code onRestoreEnd} is not called for a task that migrates away mid-restore,
+ * so an application's entries are also dropped on every state transition that ends restoration
+ * (RUNNING, REBALANCING, shutdown, error); a restore that continues after a rebalance is reported
+ * again by its next {@code onRestoreStart}.
+ */
+@Slf4j
+@Component
+public class StateRestoreTracker {
+
+    private final Map<String, RestoreProgress> activeRestores = new ConcurrentHashMap<>();
+
+    public ApplicationRestores forApplication(String applicationId) {
+        return new ApplicationRestores(applicationId);
+    }
+
+    public boolean isRestoring() {
+        return !activeRestores.isEmpty();
+    }
+
+    public Collection<RestoreProgress> getActiveRestores() {
+        return activeRestores.values();
+    }
+
+    /**
+     * Restore and state listener of one Kafka Streams application.
+     */
+    public final class ApplicationRestores implements StateRestoreListener, KafkaStreams.StateListener {
+
+        private final String applicationId;
+
+        private ApplicationRestores(String applicationId) {
+            this.applicationId = applicationId;
+        }
+
+        @Override
+        public void onRestoreStart(TopicPartition topicPartition, String storeName, long startingOffset, long endingOffset) {
+            RestoreProgress progress = new RestoreProgress(storeName, topicPartition.partition(),
+                    startingOffset, endingOffset, System.currentTimeMillis());
+            activeRestores.put(key(storeName, topicPartition), progress);
+
+            log.info("♻️ Restore started: store={}, partition={}, records={}",
+                    storeName, topicPartition.partition(), progress.getTotalToRestore());
+        }
+
+        @Override
+        public void onBatchRestored(TopicPartition topicPartition, String storeName, long batchEndOffset, long numRestored) {
+            RestoreProgress progress = activeRestores.get(key(storeName, topicPartition));
+            if (progress == null) {
+                return;
+            }
+
+            progress.setRestored(progress.getRestored() + numRestored);
+            progress.setCurrentOffset(batchEndOffset);
+
+            log.info("♻️ Restoring: store={}, partition={}, progress={}%",
+                    storeName, topicPartition.partition(), String.format("%.1f", progress.getPercentComplete()));
+        }
+
+        @Override
+        public void onRestoreEnd(TopicPartition topicPartition, String storeName, long totalRestored) {
+            RestoreProgress progress = activeRestores.remove(key(storeName, topicPartition));
+            long elapsedMs = progress == null ? 0 : System.currentTimeMillis() - progress.getStartedAt();
+
+            log.info("✅ Restore completed: store={}, partition={}, records={}, duration={}ms",
+                    storeName, topicPartition.partition(), totalRestored, elapsedMs);
+        }
+
+        @Override
+        public void onChange(KafkaStreams.State newState, KafkaStreams.State oldState) {
+            if (newState == KafkaStreams.State.CREATED) {
+                return;
+            }
+            String prefix = applicationId + "/";
+            activeRestores.keySet().removeIf(key -> {
+                if (!key.startsWith(prefix)) {
+                    return false;
+                }
+                log.debug("Dropping restore {} on {} -> {}", key, oldState, newState);
+                return true;
+            });
+        }
+
+        private String key(String storeName, TopicPartition topicPartition) {
+            return applicationId + "/" + storeName + "-" + topicPartition.partition();
+        }
+    }
+
+    @Data
+    public static class RestoreProgress {
+        private final String store;
+        private final int partition;
+        private final long startingOffset;
+        private final long endingOffset;
+        private final long startedAt;
+        private long currentOffset;
+        private long restored;
+
+        public long getTotalToRestore() {
+            return Math.max(0, endingOffset - startingOffset);
+        }
+
+        public double getPercentComplete() {
+            long total = getTotalToRestore();
+            return total == 0 ? 100.0 : Math.min(100.0, restored * 100.0 / total);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.kafka.streams;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.streams.KafkaStreams;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Publishes the RocksDB memory figures of each state store as {@code kafka.streams.store.memory},
+ * summed over the tasks hosting the store. Block cache figures come from the shared cache,
+ * so they are reported once per store rather than summed.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StateStoreMemoryMetrics {
+
+    private static final String STATE_METRICS_GROUP = "stream-state-metrics";
+    private static final Set<String> MEMORY_METRICS = Set.of(
+            "size-all-mem-tables",
+            "estimate-table-readers-mem",
+            "block-cache-usage",
+            "block-cache-pinned-usage"
+    );
+
+    private final StreamsBuilderFactoryBean streamsBuilderFactoryBean;
+    private final MeterRegistry meterRegistry;
+    private final Set<String> registeredGauges = ConcurrentHashMap.newKeySet();
+
+    @Scheduled(initialDelay = 10000, fixedDelay = 30000)
+    public void registerStoreGauges() {
+        KafkaStreams kafkaStreams = streamsBuilderFactoryBean.getKafkaStreams();
+        if (kafkaStreams == null) {
+            return;
+        }
+
+        for (MetricName metricName : kafkaStreams.metrics().keySet()) {
+            if (!isMemoryMetric(metricName)) {
+                continue;
+            }
+
+            String store = storeName(metricName);
+            String metric = metricName.name();
+            if (store != null && registeredGauges.add(store + "/" + metric)) {
+                Gauge.builder("kafka.streams.store.memory", () -> currentValue(store, metric))
+                        .tag("store", store)
+                        .tag("metric", metric)
+                        .baseUnit("bytes")
+                        .description("RocksDB memory usage per state store")
+                        .register(meterRegistry);
+
+                log.info("📏 Registered memory gauge: store={}, metric={}", store, metric);
+            }
+        }
+    }
+
+    private double currentValue(String store, String metric) {
+        KafkaStreams kafkaStreams = streamsBuilderFactoryBean.getKafkaStreams();
+        if (kafkaStreams == null) {
+            return 0;
+        }
+
+        boolean sharedCacheMetric = metric.startsWith("block-cache");
+        double value = 0;
+        for (Map.Entry<MetricName, ? extends Metric> entry : kafkaStreams.metrics().entrySet()) {
+            MetricName name = entry.getKey();
+            if (!isMemoryMetric(name) || !metric.equals(name.name()) || !store.equals(storeName(name))) {
+                continue;
+            }
+
+            Object metricValue = entry.getValue().metricValue();
+            if (metricValue instanceof Number number) {
+                value = sharedCacheMetric ? Math.max(value, number.doubleValue()) : value + number.doubleValue();
+            }
+        }
+        return value;
+    }
+
+    private static boolean isMemoryMetric(MetricName name) {
+        return STATE_METRICS_GROUP.equals(name.group()) && MEMORY_METRICS.contains(name.name());
+    }
+
+    private static String storeName(MetricName name) {
+        return name.tags().entrySet().stream()
+                .filter(tag -> tag.getKey().endsWith("-state-id"))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .orElse(null);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.kafka.streams.sketch;
+
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Per-window order statistics: distinct customers ({@link HyperLogLog}) and the
+ * order value distribution ({@link QuantileSketch}), stored as one fixed-size blob.
+ */
+public class OrderStatsSketch {
+
+    private final HyperLogLog customers;
+    private final QuantileSketch amounts;
+
+    public OrderStatsSketch(int hllPrecision, double relativeAccuracy, double maxAmount) {
+        this(new HyperLogLog(hllPrecision), new QuantileSketch(relativeAccuracy, maxAmount));
+    }
+
+    private OrderStatsSketch(HyperLogLog customers, QuantileSketch amounts) {
+        this.customers = customers;
+        this.amounts = amounts;
+    }
+
+    public void add(String customerId, double amount) {
+        if (customerId != null) {
+            customers.add(customerId);
+        }
+        amounts.add(amount);
+    }
+
+    public OrderStatsSketch merge(OrderStatsSketch other) {
+        customers.merge(other.customers);
+        amounts.merge(other.amounts);
+        return this;
+    }
+
+    public long distinctCustomers() {
+        return customers.estimate();
+    }
+
+    public long orderCount() {
+        return amounts.count();
+    }
+
+    public double totalAmount() {
+        return amounts.sum();
+    }
+
+    public double amountQuantile(double q) {
+        return amounts.quantile(q);
+    }
+
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(customers.serializedSize() + amounts.serializedSize());
+        customers.writeTo(buffer);
+        amounts.writeTo(buffer);
+        return buffer.array();
+    }
+
+    public static OrderStatsSketch fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        HyperLogLog customers = HyperLogLog.readFrom(buffer);
+        QuantileSketch amounts = QuantileSketch.readFrom(buffer);
+        return new OrderStatsSketch(customers, amounts);
+    }
+
+    public static Serde<OrderStatsSketch> serde() {
+        return Serdes.serdeFrom(
+                (topic, sketch) -> sketch == null ? null : sketch.toBytes(),
+                (topic, bytes) -> bytes == null ? null : fromBytes(bytes)
+        );
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.kafka.streams.sketch;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Mergeable quantile estimator over logarithmically sized buckets (DDSketch style).
+ * Every reported quantile is within {@code relativeAccuracy} of a real value between
+ * {@link #MIN_TRACKED_VALUE} and {@code maxValue}; the bucket array has a fixed length,
+ * so the serialized size does not depend on how many values were added.
+ */
+public class QuantileSketch {
+
+    public static final double MIN_TRACKED_VALUE = 0.01;
+
+    private final double relativeAccuracy;
+    private final double maxValue;
+    private final double gamma;
+    private final double logGamma;
+    private final long[] counts;
+    private long zeroCount;
+    private long count;
+    private double sum;
+
+    public QuantileSketch(double relativeAccuracy, double maxValue) {
+        this.relativeAccuracy = relativeAccuracy;
+        this.maxValue = maxValue;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+        this.counts = new long[(int) Math.ceil(Math.log(maxValue / MIN_TRACKED_VALUE) / logGamma) + 1];
+    }
+
+    public void add(double value) {
+        count++;
+        sum += value;
+
+        if (value < MIN_TRACKED_VALUE) {
+            zeroCount++;
+            return;
+        }
+
+        int index = (int) Math.ceil(Math.log(value / MIN_TRACKED_VALUE) / logGamma);
+        counts[Math.min(index, counts.length - 1)]++;
+    }
+
+    public double quantile(double q) {
+        if (count == 0) {
+            return 0.0;
+        }
+
+        long rank = (long) (q * (count - 1));
+        if (rank < zeroCount) {
+            return 0.0;
+        }
+
+        long cumulative = zeroCount;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            if (cumulative > rank) {
+                return MIN_TRACKED_VALUE * 2 * Math.pow(gamma, i) / (gamma + 1);
+            }
+        }
+        return maxValue;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public double sum() {
+        return sum;
+    }
+
+    public QuantileSketch merge(QuantileSketch other) {
+        if (other.counts.length != counts.length || other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Cannot merge quantile sketches with different accuracy");
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        zeroCount += other.zeroCount;
+        count += other.count;
+        sum += other.sum;
+        return this;
+    }
+
+    public int serializedSize() {
+        return 3 * Double.BYTES + 2 * Long.BYTES + counts.length * Long.BYTES;
+    }
+
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putDouble(relativeAccuracy).putDouble(maxValue).putDouble(sum);
+        buffer.putLong(zeroCount).putLong(count);
+        for (long bucket : counts) {
+            buffer.putLong(bucket);
+        }
+    }
+
+    public static QuantileSketch readFrom(ByteBuffer buffer) {
+        QuantileSketch sketch = new QuantileSketch(buffer.getDouble(), buffer.getDouble());
+        sketch.sum = buffer.getDouble();
+        sketch.zeroCount = buffer.getLong();
+        sketch.count = buffer.getLong();
+        for (int i = 0; i < sketch.counts.length; i++) {
+            sketch.counts[i] = buffer.getLong();
+        }
+        return sketch;
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.kafka.streams.sketch;
+
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Heavy-hitters sketch: a Count-Min table for frequency estimates plus a bounded set of
+ * candidate items ranked by those estimates. Memory is fixed by {@code depth * width}
+ * counters and {@code capacity} candidates, and two sketches of the same shape can be merged.
+ */
+public class TopKSketch {
+
+    private final int depth;
+    private final int width;
+    private final int capacity;
+    private final long[] table;
+    private final Map<String, Long> candidates;
+    private long total;
+
+    public TopKSketch(int depth, int width, int capacity) {
+        this.depth = depth;
+        this.width = width;
+        this.capacity = capacity;
+        this.table = new long[depth * width];
+        this.candidates = new HashMap<>(capacity * 2);
+    }
+
+    public void add(String item, long count) {
+        int h1 = mix(item.hashCode());
+        int h2 = mix(h1 ^ 0x5bd1e995);
+
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int index = row * width + bucket(h1, h2, row);
+            table[index] += count;
+            estimate = Math.min(estimate, table[index]);
+        }
+        total += count;
+
+        offerCandidate(item, estimate);
+    }
+
+    public long estimate(String item) {
+        int h1 = mix(item.hashCode());
+        int h2 = mix(h1 ^ 0x5bd1e995);
+
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, table[row * width + bucket(h1, h2, row)]);
+        }
+        return estimate;
+    }
+
+    public TopKSketch merge(TopKSketch other) {
+        if (other.depth != depth || other.width != width) {
+            throw new IllegalArgumentException("Cannot merge sketches of different dimensions");
+        }
+
+        for (int i = 0; i < table.length; i++) {
+            table[i] += other.table[i];
+        }
+        total += other.total;
+
+        Set<String> items = new HashSet<>(candidates.keySet());
+        items.addAll(other.candidates.keySet());
+        candidates.clear();
+        items.forEach(item -> offerCandidate(item, estimate(item)));
+        return this;
+    }
+
+    public Map<String, Long> topK(int k) {
+        List<Map.Entry<String, Long>> ranked = new ArrayList<>(candidates.entrySet());
+        ranked.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+
+        Map<String, Long> top = new LinkedHashMap<>();
+        for (int i = 0; i < Math.min(k, ranked.size()); i++) {
+            top.put(ranked.get(i).getKey(), ranked.get(i).getValue());
+        }
+        return top;
+    }
+
+    public long total() {
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return total == 0;
+    }
+
+    private void offerCandidate(String item, long estimate) {
+        if (candidates.containsKey(item) || candidates.size() < capacity) {
+            candidates.put(item, estimate);
+            return;
+        }
+
+        String minItem = null;
+        long minEstimate = Long.MAX_VALUE;
+        for (Map.Entry<String, Long> candidate : candidates.entrySet()) {
+            if (candidate.getValue() < minEstimate) {
+                minEstimate = candidate.getValue();
+                minItem = candidate.getKey();
+            }
+        }
+
+        if (estimate > minEstimate) {
+            candidates.remove(minItem);
+            candidates.put(item, estimate);
+        }
+    }
+
+    private int bucket(int h1, int h2, int row) {
+        return ((h1 + row * h2) & Integer.MAX_VALUE) % width;
+    }
+
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    public byte[] toBytes() {
+        List<byte[]> encodedItems = new ArrayList<>(candidates.size());
+        int size = 3 * Integer.BYTES + Long.BYTES + table.length * Long.BYTES + Integer.BYTES;
+        for (Map.Entry<String, Long> candidate : candidates.entrySet()) {
+            byte[] encoded = candidate.getKey().getBytes(StandardCharsets.UTF_8);
+            encodedItems.add(encoded);
+            size += Integer.BYTES + encoded.length + Long.BYTES;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(depth).putInt(width).putInt(capacity).putLong(total);
+        for (long counter : table) {
+            buffer.putLong(counter);
+        }
+
+        buffer.putInt(candidates.size());
+        int i = 0;
+        for (Map.Entry<String, Long> candidate : candidates.entrySet()) {
+            byte[] encoded = encodedItems.get(i++);
+            buffer.putInt(encoded.length).put(encoded).putLong(candidate.getValue());
+        }
+        return buffer.array();
+    }
+
+    public static TopKSketch fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        TopKSketch sketch = new TopKSketch(buffer.getInt(), buffer.getInt(), buffer.getInt());
+        sketch.total = buffer.getLong();
+        for (int i = 0; i < sketch.table.length; i++) {
+            sketch.table[i] = buffer.getLong();
+        }
+
+        int count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            byte[] encoded = new byte[buffer.getInt()];
+            buffer.get(encoded);
+            sketch.candidates.put(new String(encoded, StandardCharsets.UTF_8), buffer.getLong());
+        }
+        return sketch;
+    }
+
+    public static Serde<TopKSketch> serde() {
+        return Serdes.serdeFrom(
+                (topic, sketch) -> sketch == null ? null : sketch.toBytes(),
+                (topic, bytes) -> bytes == null ? null : fromBytes(bytes)
+        );
+    }
+}
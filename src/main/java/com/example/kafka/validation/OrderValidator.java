@@ -0,0 +1,197 @@
+package com.example.kafka.validation;
+
+import com.example.kafka.catalog.ProductCatalog;
+import com.example.kafka.model.Money;
+import com.example.kafka.model.Order;
+import com.example.kafka.model.OrderItem;
+import com.example.kafka.model.Product;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Order rules shared by {@code OrderController} (fast reject at ingestion), {@code ValidationConsumer}
+ * and the Kafka Streams choreography engine. Structural checks return the first violated {@link ValidationRule}, or
+ * {@code null} when the order passes, and allocate nothing on the way. Outcomes are counted
+ * as {@code order.validation} tagged with the stage and the rule (or {@code VALID}).
+ */
+@Slf4j
+@Component
+public class OrderValidator {
+
+    public enum Stage { INGRESS, CONSUMER, STREAMS }
+
+    private static final ValidationRule[] RULES = ValidationRule.values();
+
+    private final Map<Stage, Counter[]> ruleCounters = new EnumMap<>(Stage.class);
+    private final Map<Stage, Counter> validCounters = new EnumMap<>(Stage.class);
+    private final ProductCatalog productCatalog;
+    private final boolean rejectUnknownProducts;
+
+    public OrderValidator(
+            ProductCatalog productCatalog,
+            @Value("${app.catalog.reject-unknown-products:true}") boolean rejectUnknownProducts,
+            MeterRegistry meterRegistry) {
+        this.productCatalog = productCatalog;
+        this.rejectUnknownProducts = rejectUnknownProducts;
+        for (Stage stage : Stage.values()) {
+            Counter[] counters = new Counter[RULES.length];
+            for (ValidationRule rule : RULES) {
+                counters[rule.ordinal()] = counter(meterRegistry, stage, rule.name());
+            }
+            ruleCounters.put(stage, counters);
+            validCounters.put(stage, counter(meterRegistry, stage, "VALID"));
+        }
+    }
+
+    /**
+     * Full validation of a created order: structural rules, amounts, then the product catalog.
+     * The outcome is recorded for {@code stage}.
+     */
+    public ValidationResult validate(Order order, Stage stage) {
+        ValidationResult result = evaluateRules(order);
+        record(stage, result.getRule());
+        return result;
+    }
+
+    private ValidationResult evaluateRules(Order order) {
+        ValidationRule violatedRule = checkContents(order);
+        if (violatedRule == null) {
+            violatedRule = checkAmounts(order);
+        }
+        if (violatedRule != null) {
+            return ValidationResult.invalid(violatedRule, violatedRule.getMessage());
+        }
+
+        return validateAgainstCatalog(order);
+    }
+
+    private ValidationResult validateAgainstCatalog(Order order) {
+        if (!productCatalog.isAvailable()) {
+            log.warn("⚠️ Product catalog not available, skipping catalog checks: orderId={}", order.getOrderId());
+            return ValidationResult.valid();
+        }
+
+        for (OrderItem item : order.getItems()) {
+            Optional<Product> product = productCatalog.find(item.getProductId());
+
+            if (product.isEmpty()) {
+                if (rejectUnknownProducts) {
+                    return ValidationResult.invalid(ValidationRule.UNKNOWN_PRODUCT,
+                            "Unknown product: " + item.getProductId());
+                }
+                continue;
+            }
+
+            if (!Objects.equals(product.get().getSku(), item.getSku())) {
+                return ValidationResult.invalid(ValidationRule.SKU_MISMATCH,
+                        "SKU mismatch for product " + item.getProductId());
+            }
+
+            if (!Objects.equals(product.get().getUnitPrice(), item.getUnitPrice())) {
+                return ValidationResult.invalid(ValidationRule.UNIT_PRICE_MISMATCH,
+                        "Unit price mismatch for product " + item.getProductId());
+            }
+
+            if (!Objects.equals(product.get().getCategory(), item.getCategory())) {
+                return ValidationResult.invalid(ValidationRule.CATEGORY_MISMATCH,
+                        "Category mismatch for product " + item.getProductId());
+            }
+        }
+
+        return ValidationResult.valid();
+    }
+
+    /**
+     * Rules that only look at what the client sent: items, quantities, email, address and the
+     * currency of the amounts (every amount must be in {@link Money#DEFAULT_CURRENCY}).
+     */
+    public ValidationRule checkContents(Order order) {
+        List<OrderItem> items = order.getItems();
+        if (items == null || items.isEmpty()) {
+            return ValidationRule.NO_ITEMS;
+        }
+
+        String email = order.getCustomerEmail();
+        if (email == null || email.indexOf('@') < 0) {
+            return ValidationRule.INVALID_EMAIL;
+        }
+
+        if (order.getShippingAddress() == null || order.getShippingAddress().getStreet() == null) {
+            return ValidationRule.MISSING_SHIPPING_ADDRESS;
+        }
+
+        for (int i = 0; i < items.size(); i++) {
+            OrderItem item = items.get(i);
+            if (item.getQuantity() <= 0) {
+                return ValidationRule.INVALID_QUANTITY;
+            }
+            if (item.getTotalPrice() == null) {
+                return ValidationRule.MISSING_ITEM_PRICE;
+            }
+            if (isForeign(item.getTotalPrice()) || isForeign(item.getUnitPrice())) {
+                return ValidationRule.UNSUPPORTED_CURRENCY;
+            }
+        }
+
+        if (isForeign(order.getTaxAmount()) || isForeign(order.getShippingCost())
+                || isForeign(order.getDiscountAmount())) {
+            return ValidationRule.UNSUPPORTED_CURRENCY;
+        }
+
+        return null;
+    }
+
+    /**
+     * Rules on the computed amounts; expects {@link #checkContents} to have passed.
+     */
+    public ValidationRule checkAmounts(Order order) {
+        Money subtotal = order.getSubtotal();
+        if (subtotal != null) {
+            long calculatedSubtotal = 0;
+            List<OrderItem> items = order.getItems();
+            for (int i = 0; i < items.size(); i++) {
+                calculatedSubtotal += items.get(i).getTotalPrice().getMinorUnits();
+            }
+            if (isForeign(subtotal) || subtotal.getMinorUnits() != calculatedSubtotal) {
+                return ValidationRule.SUBTOTAL_MISMATCH;
+            }
+        }
+
+        return checkTotal(order);
+    }
+
+    public ValidationRule checkTotal(Order order) {
+        if (order.getTotalAmount() == null || order.getTotalAmount().signum() <= 0) {
+            return ValidationRule.NON_POSITIVE_TOTAL;
+        }
+        return null;
+    }
+
+    private static boolean isForeign(Money amount) {
+        return amount != null && amount.getCurrency() != Money.DEFAULT_CURRENCY;
+    }
+
+    public void record(Stage stage, ValidationRule violatedRule) {
+        if (violatedRule == null) {
+            validCounters.get(stage).increment();
+        } else {
+            ruleCounters.get(stage)[violatedRule.ordinal()].increment();
+        }
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, Stage stage, String result) {
+        return Counter.builder("order.validation")
+                .tag("stage", stage.name().toLowerCase())
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.kafka.validation;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ValidationResult {
+    private boolean valid;
+    private ValidationRule rule;
+    private String reason;
+
+    public static ValidationResult valid() {
+        return new ValidationResult(true, null, null);
+    }
+
+    public static ValidationResult invalid(ValidationRule rule, String reason) {
+        return new ValidationResult(false, rule, reason);
+    }
+}
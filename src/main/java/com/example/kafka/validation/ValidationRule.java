@@ -0,0 +1,24 @@
+package com.example.kafka.validation;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum ValidationRule {
+    NO_ITEMS("Order must contain at least one item"),
+    INVALID_EMAIL("Invalid customer email address"),
+    MISSING_SHIPPING_ADDRESS("Shipping address is required"),
+    INVALID_QUANTITY("Invalid item quantity"),
+    MISSING_ITEM_PRICE("Item total price is required"),
+    UNSUPPORTED_CURRENCY("Amounts must be in the store currency"),
+    INVALID_PRIORITY("Unknown order priority"),
+    SUBTOTAL_MISMATCH("Subtotal mismatch"),
+    NON_POSITIVE_TOTAL("Total amount must be positive"),
+    UNKNOWN_PRODUCT("Unknown product"),
+    SKU_MISMATCH("SKU mismatch"),
+    UNIT_PRICE_MISMATCH("Unit price mismatch"),
+    CATEGORY_MISMATCH("Category mismatch");
+
+    private final String message;
+}
@@ -0,0 +1,56 @@
+package com.example.kafka.catalog;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TinyLfuCacheTest {
+
+    @Test
+    void totalWeightStaysWithinTheBound() {
+        TinyLfuCache<Integer, String> cache = new TinyLfuCache<>(1000, 10, String::length);
+
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, "abcd");
+
+            assertThat(cache.weight()).isLessThanOrEqualTo(10).isEqualTo(4L * cache.size());
+        }
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    void replacingOrInvalidatingAValueUpdatesTheWeight() {
+        TinyLfuCache<Integer, String> cache = new TinyLfuCache<>(1000, 10, String::length);
+        cache.put(1, "abcd");
+
+        cache.put(1, "ab");
+        assertThat(cache.weight()).isEqualTo(2);
+
+        cache.invalidate(1);
+        assertThat(cache.weight()).isZero();
+        assertThat(cache.get(1)).isNull();
+    }
+
+    @Test
+    void valueHeavierThanTheBoundIsNotCached() {
+        TinyLfuCache<Integer, String> cache = new TinyLfuCache<>(1000, 10, String::length);
+        cache.put(1, "abcd");
+
+        cache.put(1, "a".repeat(11));
+
+        assertThat(cache.get(1)).isNull();
+        assertThat(cache.weight()).isZero();
+    }
+
+    @Test
+    void unweightedCacheIsBoundedByCountOnly() {
+        TinyLfuCache<Integer, String> cache = new TinyLfuCache<>(100);
+
+        for (int i = 0; i < 1000; i++) {
+            cache.put(i, "a".repeat(1000));
+        }
+
+        assertThat(cache.size()).isLessThanOrEqualTo(100);
+        assertThat(cache.weight()).isZero();
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.kafka.claimcheck;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ClaimCheckTest {
+
+    private static final String TOPIC = "order.inventory";
+    private static final int THRESHOLD_BYTES = 1024;
+    private static final int ITEMS = 40;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path storeDir;
+
+    private BlobStore blobStore;
+    private SimpleMeterRegistry meterRegistry;
+    private ClaimCheck claimCheck;
+
+    @BeforeEach
+    void setUp() {
+        blobStore = new BlobStore(storeDir.toString(), 1);
+        meterRegistry = new SimpleMeterRegistry();
+        claimCheck = claimCheck(Long.MAX_VALUE);
+    }
+
+    @Test
+    void largeOrderRoundTripsThroughItsEnvelope() throws Exception {
+        byte[] payload = largeOrder("O1");
+        Headers headers = new RecordHeaders();
+
+        byte[] envelope = claimCheck.offload(TOPIC, headers, payload);
+
+        String reference = ClaimCheck.envelopeReference(headers);
+        assertThat(reference).matches("sha256-[0-9a-f]{64}");
+        assertThat(envelope.length).isLessThan(THRESHOLD_BYTES);
+        assertThat(text(envelope)).startsWith("{\"claimCheck\":\"" + reference + "\",\"orderId\":\"O1\"")
+                .doesNotContain("\"items\"", "\"notes\"", "\"shippingAddress\"");
+        assertThat(header(headers, ClaimCheck.SIZE_HEADER)).isEqualTo(Integer.toString(payload.length));
+        assertThat(header(headers, ClaimCheck.ITEMS_HEADER)).isEqualTo(Integer.toString(ITEMS));
+
+        assertThat(objectMapper.readTree(claimCheck.resolve(reference, envelope))).isEqualTo(objectMapper.readTree(payload));
+        // Another instance has nothing cached and reads the blob from the store.
+        ClaimCheck restarted = claimCheck(Long.MAX_VALUE);
+        assertThat(objectMapper.readTree(restarted.resolve(reference, envelope))).isEqualTo(objectMapper.readTree(payload));
+    }
+
+    @Test
+    void smallOrdersAndOtherTopicsAreNotOffloaded() {
+        byte[] small = "{\"orderId\":\"O1\",\"items\":[]}".getBytes(StandardCharsets.UTF_8);
+        byte[] large = largeOrder("O1");
+        Headers headers = new RecordHeaders();
+
+        assertThat(claimCheck.offload(TOPIC, headers, small)).isSameAs(small);
+        assertThat(claimCheck.offload("order.created", headers, large)).isSameAs(large);
+        assertThat(headers.toArray()).isEmpty();
+    }
+
+    @Test
+    void claimCheckFieldSentByAClientIsNotTrusted() {
+        String reference = "sha256-" + "ab".repeat(32);
+        byte[] payload = ("{\"claimCheck\":\"" + reference + "\",\"orderId\":\"O1\"}").getBytes(StandardCharsets.UTF_8);
+        Headers headers = new RecordHeaders();
+
+        assertThat(claimCheck.offload(TOPIC, headers, payload)).isSameAs(payload);
+        assertThat(ClaimCheck.envelopeReference(headers)).isNull();
+    }
+
+    @Test
+    void resolveRejectsAnEnvelopeThatDoesNotMatchItsHeader() {
+        Headers headers = new RecordHeaders();
+        byte[] envelope = claimCheck.offload(TOPIC, headers, largeOrder("O1"));
+        String reference = ClaimCheck.envelopeReference(headers);
+        String otherReference = "sha256-" + "0".repeat(64);
+        byte[] notLeading = ("{\"orderId\":\"O1\",\"claimCheck\":\"" + reference + "\"}").getBytes(StandardCharsets.UTF_8);
+
+        assertThatThrownBy(() -> claimCheck.resolve(otherReference, envelope))
+                .isInstanceOf(SerializationException.class)
+                .hasMessageContaining("does not match");
+        assertThatThrownBy(() -> claimCheck.resolve(reference, notLeading))
+                .isInstanceOf(SerializationException.class);
+    }
+
+    @Test
+    void invalidReferenceHeaderIsRejected() {
+        Headers headers = new RecordHeaders();
+        headers.add(ClaimCheck.REFERENCE_HEADER, "../../etc/passwd".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> ClaimCheck.envelopeReference(headers)).isInstanceOf(SerializationException.class);
+    }
+
+    @Test
+    void forwardedEnvelopeKeepsItsMark() {
+        Headers headers = new RecordHeaders();
+        byte[] envelope = claimCheck.offload(TOPIC, headers, largeOrder("O1"));
+        String reference = ClaimCheck.envelopeReference(headers);
+        Headers forwarded = new RecordHeaders();
+        ClaimCheck.markEnvelope(forwarded, reference);
+
+        assertThat(claimCheck.offload("order.payment", forwarded, envelope)).isSameAs(envelope);
+        assertThat(ClaimCheck.envelopeReference(forwarded)).isEqualTo(reference);
+    }
+
+    @Test
+    void staleMarkInheritedByAResolvedPayloadIsDropped() {
+        Headers inherited = new RecordHeaders();
+        claimCheck.offload(TOPIC, inherited, largeOrder("O1"));
+        String staleReference = ClaimCheck.envelopeReference(inherited);
+        byte[] resolved = "{\"orderId\":\"O1\",\"status\":\"SHIPPED\"}".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(claimCheck.offload(TOPIC, inherited, resolved)).isSameAs(resolved);
+        assertThat(inherited.toArray()).isEmpty();
+
+        // A large resolved payload is offloaded again under a single, fresh mark.
+        Headers reinherited = new RecordHeaders();
+        ClaimCheck.markEnvelope(reinherited, staleReference);
+        claimCheck.offload(TOPIC, reinherited, largeOrder("O2"));
+        assertThat(reinherited.headers(ClaimCheck.REFERENCE_HEADER)).hasSize(1);
+        assertThat(ClaimCheck.envelopeReference(reinherited)).isNotEqualTo(staleReference);
+    }
+
+    @Test
+    void bodyCacheIsBoundedByBytes() {
+        // Each body is smaller than its order, so at least two fit, but not twenty.
+        long maxBytes = largeOrder("O0").length * 5L / 2;
+        ClaimCheck bounded = claimCheck(maxBytes);
+
+        for (int i = 0; i < 20; i++) {
+            bounded.offload(TOPIC, new RecordHeaders(), largeOrder("O" + i));
+
+            assertThat(meterRegistry.get("claimcheck.cache.bytes").gauge().value())
+                    .isPositive()
+                    .isLessThanOrEqualTo(maxBytes);
+        }
+    }
+
+    private ClaimCheck claimCheck(long cacheMaxBytes) {
+        meterRegistry = new SimpleMeterRegistry();
+        return new ClaimCheck(true, THRESHOLD_BYTES, List.of(TOPIC, "order.payment"), 1000, cacheMaxBytes,
+                blobStore, List.of(), meterRegistry);
+    }
+
+    private static byte[] largeOrder(String orderId) {
+        String items = IntStream.range(0, ITEMS)
+                .mapToObj(i -> "{\"productId\":\"PROD-" + i + "\",\"quantity\":1,\"unitPrice\":9.90,\"totalPrice\":9.90}")
+                .collect(Collectors.joining(",", "[", "]"));
+        return ("{\"orderId\":\"" + orderId + "\",\"status\":\"VALIDATED\",\"totalAmount\":406.00,\"items\":" + items
+                + ",\"notes\":\"Leave " + orderId + " at the door\",\"shippingAddress\":{\"street\":\"1 rue de la Paix\",\"city\":\"Paris\"}"
+                + ",\"paymentInfo\":{\"paymentMethod\":\"CREDIT_CARD\"}}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String header(Headers headers, String name) {
+        Header header = headers.lastHeader(name);
+        return header == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+
+    private static String text(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.kafka.config;
+
+import com.example.kafka.id.UlidGenerator;
+import com.example.kafka.loadgen.RandomOrderFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.luben.zstd.Zstd;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.kafka.support.JacksonUtils;
+import org.xerial.snappy.Snappy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Replays payloads through every producer codec and level, packed into batches the way the
+ * producer compresses them, and reports the compression ratio and the CPU time spent compressing
+ * and decompressing (thread CPU time, single thread). Codecs are the libraries kafka-clients
+ * ships with; the first level listed for each codec is the one a kafka-clients 3.4 producer uses.
+ *
+ * <p>Arguments: {@code [payload file] [batch bytes] [seconds per run]}. The payload file holds one
+ * payload per line, for instance captured with
+ * {@code kafka-console-consumer --topic order.events --max-messages 10000 > events.jsonl}; without
+ * it, 10 000 random orders are generated. Defaults: 32768 bytes per batch and 3 s.
+ */
+public class CompressionBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        List<byte[]> payloads = args.length > 0 && !args[0].isEmpty() ? readPayloads(Path.of(args[0])) : randomOrders(10_000);
+        int batchBytes = args.length > 1 ? Integer.parseInt(args[1]) : 32768;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        List<byte[]> batches = toBatches(payloads, batchBytes);
+        long rawBytes = batches.stream().mapToLong(batch -> batch.length).sum();
+
+        LZ4Factory lz4 = LZ4Factory.fastestInstance();
+        List<Codec> codecs = List.of(
+                new Codec("none", "-", batch -> batch, (compressed, length) -> compressed),
+                gzip(6), gzip(1), gzip(9),
+                new Codec("snappy", "-", Snappy::compress, (compressed, length) -> Snappy.uncompress(compressed)),
+                lz4("fast", lz4.fastCompressor(), lz4.fastDecompressor()),
+                lz4("hc 9", lz4.highCompressor(9), lz4.fastDecompressor()),
+                zstd(3), zstd(1), zstd(6), zstd(9), zstd(19));
+
+        System.out.printf("Compression, %d payloads (avg %d bytes) in %d batches of <= %d bytes, %d s per run%n",
+                payloads.size(), rawBytes / payloads.size(), batches.size(), batchBytes, seconds);
+        System.out.printf("%-8s %6s %8s %16s %16s %14s %14s%n",
+                "codec", "level", "ratio", "compress MB/s", "decompress MB/s", "µs/batch (c)", "µs/batch (d)");
+        for (Codec codec : codecs) {
+            List<byte[]> compressed = new ArrayList<>(batches.size());
+            for (byte[] batch : batches) {
+                compressed.add(codec.compressor().compress(batch));
+            }
+            long compressedBytes = compressed.stream().mapToLong(batch -> batch.length).sum();
+
+            run(() -> compressAll(codec, batches), 1);
+            double compressNanosPerRound = run(() -> compressAll(codec, batches), seconds);
+            run(() -> decompressAll(codec, compressed, batches), 1);
+            double decompressNanosPerRound = run(() -> decompressAll(codec, compressed, batches), seconds);
+
+            System.out.printf("%-8s %6s %8.2f %16.1f %16.1f %14.1f %14.1f%n",
+                    codec.name(), codec.level(),
+                    (double) rawBytes / compressedBytes,
+                    rawBytes * 1e3 / compressNanosPerRound,
+                    rawBytes * 1e3 / decompressNanosPerRound,
+                    compressNanosPerRound / 1e3 / batches.size(),
+                    decompressNanosPerRound / 1e3 / batches.size());
+        }
+    }
+
+    private interface Compressor {
+        byte[] compress(byte[] batch) throws IOException;
+    }
+
+    private interface Decompressor {
+        byte[] decompress(byte[] compressed, int length) throws IOException;
+    }
+
+    private record Codec(String name, String level, Compressor compressor, Decompressor decompressor) {
+    }
+
+    private static Codec gzip(int level) {
+        return new Codec("gzip", Integer.toString(level), batch -> {
+            ByteArrayOutputStream output = new ByteArrayOutputStream(batch.length / 2);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(output, 8 * 1024) {
+                {
+                    def.setLevel(level);
+                }
+            }) {
+                gzip.write(batch);
+            }
+            return output.toByteArray();
+        }, (compressed, length) -> {
+            try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed), 8 * 1024)) {
+                return gzip.readNBytes(length);
+            }
+        });
+    }
+
+    private static Codec lz4(String level, LZ4Compressor compressor, LZ4FastDecompressor decompressor) {
+        return new Codec("lz4", level, compressor::compress, (compressed, length) -> decompressor.decompress(compressed, length));
+    }
+
+    private static Codec zstd(int level) {
+        return new Codec("zstd", Integer.toString(level), batch -> Zstd.compress(batch, level), Zstd::decompress);
+    }
+
+    private static long compressAll(Codec codec, List<byte[]> batches) throws IOException {
+        long total = 0;
+        for (byte[] batch : batches) {
+            total += codec.compressor().compress(batch).length;
+        }
+        return total;
+    }
+
+    private static long decompressAll(Codec codec, List<byte[]> compressed, List<byte[]> batches) throws IOException {
+        long total = 0;
+        for (int i = 0; i < compressed.size(); i++) {
+            total += codec.decompressor().decompress(compressed.get(i), batches.get(i).length).length;
+        }
+        return total;
+    }
+
+    private interface Round {
+        long run() throws IOException;
+    }
+
+    /**
+     * @return thread CPU nanoseconds per round
+     */
+    private static double run(Round round, int seconds) throws IOException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        long checksum = 0;
+        int rounds = 0;
+        long cpuStart = threads.getCurrentThreadCpuTime();
+        do {
+            checksum += round.run();
+            rounds++;
+        } while (System.nanoTime() < deadline);
+        long cpu = threads.getCurrentThreadCpuTime() - cpuStart;
+        if (checksum == 42) {
+            System.out.print("");
+        }
+        return (double) cpu / rounds;
+    }
+
+    /**
+     * Concatenates payloads into batches of at most {@code batchBytes}, like records accumulated
+     * into one producer batch before it is compressed.
+     */
+    private static List<byte[]> toBatches(List<byte[]> payloads, int batchBytes) {
+        List<byte[]> batches = new ArrayList<>();
+        ByteArrayOutputStream batch = new ByteArrayOutputStream(batchBytes);
+        for (byte[] payload : payloads) {
+            if (batch.size() > 0 && batch.size() + payload.length > batchBytes) {
+                batches.add(batch.toByteArray());
+                batch.reset();
+            }
+            batch.writeBytes(payload);
+        }
+        if (batch.size() > 0) {
+            batches.add(batch.toByteArray());
+        }
+        return batches;
+    }
+
+    private static List<byte[]> readPayloads(Path file) throws IOException {
+        List<byte[]> payloads = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (!line.isBlank()) {
+                payloads.add(line.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return payloads;
+    }
+
+    private static List<byte[]> randomOrders(int count) {
+        ObjectMapper objectMapper = JacksonUtils.enhancedObjectMapper();
+        RandomOrderFactory orderFactory = new RandomOrderFactory(1, 5, 0.1, 500,
+                RandomOrderFactory.parsePriorityMix("LOW:10,NORMAL:60,HIGH:15,URGENT:5,EXPRESS:10"), new UlidGenerator(1));
+        List<byte[]> payloads = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            try {
+                payloads.add(objectMapper.writeValueAsBytes(orderFactory.nextOrder()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return payloads;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.kafka.id;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Multi-threaded throughput of the ID generators against {@code UUID.randomUUID()}.
+ *
+ * <p>Arguments: {@code [threads] [seconds per run]}, default: available processors and 5.
+ */
+public class IdGeneratorBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        UlidGenerator ulidGenerator = new UlidGenerator(1);
+        RandomUuidGenerator uuidGenerator = new RandomUuidGenerator();
+
+        List<Candidate> candidates = List.of(
+                new Candidate("UUID.randomUUID() (binary)", UUID::randomUUID),
+                new Candidate("UUID.randomUUID() (string)", uuidGenerator::nextId),
+                new Candidate("ULID (binary)", ulidGenerator::next),
+                new Candidate("ULID (string)", ulidGenerator::nextId));
+
+        System.out.printf("ID generation, %d thread(s), %d s per run%n", threads, seconds);
+        System.out.printf("%-28s %15s %15s%n", "generator", "ids/s", "ns/id/thread");
+        for (Candidate candidate : candidates) {
+            run(candidate.supplier(), threads, 1);
+            double idsPerSecond = run(candidate.supplier(), threads, seconds);
+            System.out.printf("%-28s %,15.0f %15.1f%n", candidate.name(), idsPerSecond, threads * 1e9 / idsPerSecond);
+        }
+    }
+
+    private record Candidate(String name, Supplier<Object> supplier) {
+    }
+
+    private static double run(Supplier<Object> supplier, int threads, int seconds) throws InterruptedException {
+        LongAdder generated = new LongAdder();
+        LongAdder checksum = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L + 50_000_000L;
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long count = 0;
+                int hash = 0;
+                while ((count & 1023) != 0 || System.nanoTime() < deadline) {
+                    hash += supplier.get().hashCode();
+                    count++;
+                }
+                generated.add(count);
+                checksum.add(hash);
+            });
+            worker.start();
+            workers.add(worker);
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - begin;
+        if (checksum.sum() == 42) {
+            System.out.print("");
+        }
+        return generated.sum() * 1e9 / elapsed;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.kafka.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UlidGeneratorTest {
+
+    private static final int NODE = 7;
+    private static final long T0 = 1_700_000_000_000L;
+
+    private final AtomicLong clock = new AtomicLong(T0);
+    private final UlidGenerator generator = new UlidGenerator(NODE, clock::get);
+
+    @Test
+    void idsOfAThreadAreStrictlyIncreasingWithinAndAcrossMilliseconds() {
+        Ulid previous = generator.next();
+        for (int i = 0; i < 10_000; i++) {
+            if (i % 1000 == 0) {
+                clock.incrementAndGet();
+            }
+            Ulid next = generator.next();
+
+            assertThat(next).isGreaterThan(previous);
+            assertThat(next.toString()).isGreaterThan(previous.toString());
+            assertThat(next.node()).isEqualTo(NODE);
+            previous = next;
+        }
+        assertThat(previous.timestampMs()).isEqualTo(T0 + 10);
+    }
+
+    @Test
+    void clockSteppingBackKeepsTheLastTimestamp() {
+        clock.set(T0 + 1000);
+        Ulid beforeStep = generator.next();
+
+        clock.set(T0);
+        Ulid afterStep = generator.next();
+
+        assertThat(afterStep.timestampMs()).isEqualTo(T0 + 1000);
+        assertThat(afterStep).isGreaterThan(beforeStep);
+
+        clock.set(T0 + 2000);
+        assertThat(generator.next().timestampMs()).isEqualTo(T0 + 2000);
+    }
+
+    @Test
+    void liveThreadsNeverShareASlot() throws Exception {
+        CountDownLatch bothGenerated = new CountDownLatch(2);
+        AtomicReference<Ulid> first = new AtomicReference<>();
+        AtomicReference<Ulid> second = new AtomicReference<>();
+
+        Thread a = new Thread(() -> generateAndWait(first, bothGenerated));
+        Thread b = new Thread(() -> generateAndWait(second, bothGenerated));
+        a.start();
+        b.start();
+        a.join();
+        b.join();
+
+        assertThat(slot(first.get())).isNotEqualTo(slot(second.get()));
+        assertThat(first.get()).isNotEqualTo(second.get());
+    }
+
+    @Test
+    void slotOfADeadThreadIsReusedWithItsCounter() throws Exception {
+        Ulid lastOfDeadThread = generateOnNewThread();
+        long deadSlot = slot(lastOfDeadThread);
+
+        // The slot is freed once the thread has been collected; keep starting threads until one gets it.
+        Ulid firstOfReusingThread = null;
+        for (int attempt = 0; attempt < 100 && firstOfReusingThread == null; attempt++) {
+            System.gc();
+            Thread.sleep(20);
+            Ulid candidate = generateOnNewThread();
+            if (slot(candidate) == deadSlot) {
+                firstOfReusingThread = candidate;
+            }
+        }
+
+        assertThat(firstOfReusingThread).as("slot %d reused", deadSlot).isNotNull();
+        assertThat(firstOfReusingThread).isGreaterThan(lastOfDeadThread);
+        assertThat(firstOfReusingThread.timestampMs()).isEqualTo(lastOfDeadThread.timestampMs());
+    }
+
+    private Ulid generateOnNewThread() throws InterruptedException {
+        AtomicReference<Ulid> id = new AtomicReference<>();
+        Thread thread = new Thread(() -> id.set(generator.next()));
+        thread.start();
+        thread.join();
+        return id.get();
+    }
+
+    private void generateAndWait(AtomicReference<Ulid> id, CountDownLatch bothGenerated) {
+        id.set(generator.next());
+        bothGenerated.countDown();
+        try {
+            bothGenerated.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static long slot(Ulid id) {
+        return id.getLeastSignificantBits() >>> 48;
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.kafka.ingestion;
+
+import com.example.kafka.id.RandomUuidGenerator;
+import com.example.kafka.model.Money;
+import com.example.kafka.model.Order;
+import com.example.kafka.model.OrderItem;
+import com.example.kafka.model.OrderPriority;
+import com.example.kafka.model.OrderStatus;
+import com.example.kafka.model.PaymentStatus;
+import com.example.kafka.validation.OrderValidator;
+import com.example.kafka.validation.ValidationRule;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.kafka.support.JacksonUtils;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The raw endpoint must keep the contract of {@code OrderController.createOrder}: what the typed
+ * endpoint cannot bind is a 400 here too, and an accepted payload binds to the order the typed
+ * endpoint would have built.
+ */
+class RawOrderIngestorTest {
+
+    private static final String ORDER = """
+            {
+              "customerId": "CUST-1",
+              "customerName": "Marie Dubois",
+              "customerEmail": "marie@example.com",
+              "orderId": "client-chosen",
+              "status": "SHIPPED",
+              "claimCheck": "blob-1",
+              "items": [
+                {"productId": "PROD-001", "quantity": 2, "unitPrice": 19.99, "totalPrice": 39.98, "weight": 0.1},
+                {"productId": "PROD-002", "quantity": 1, "unitPrice": 5, "totalPrice": 5.00}
+              ],
+              "shippingAddress": {"street": "42 Avenue des Champs-Élysées", "city": "Paris"},
+              "paymentInfo": {"paymentMethod": "CREDIT_CARD", "paymentStatus": "PENDING"}
+            }
+            """;
+
+    private final ObjectMapper objectMapper = JacksonUtils.enhancedObjectMapper();
+    private final OrderValidator orderValidator = new OrderValidator(null, true, new SimpleMeterRegistry());
+    private final RawOrderIngestor ingestor = new RawOrderIngestor(orderValidator, new RandomUuidGenerator());
+
+    @Test
+    void acceptedOrderBindsToTheOrderTheTypedEndpointBuilds() throws Exception {
+        RawOrderIngestor.IngestedOrder ingested = ingest(ORDER);
+
+        assertThat(ingested.isAccepted()).isTrue();
+        Order order = objectMapper.readValue(ingested.getPayload(), Order.class);
+        assertThat(order.getOrderId()).isEqualTo(ingested.getOrderId()).isNotEqualTo("client-chosen");
+        assertThat(order.getStatus()).isEqualTo(OrderStatus.PENDING);
+        assertThat(order.getPriority()).isEqualTo(OrderPriority.NORMAL);
+        assertThat(order.getSubtotal()).isEqualTo(Money.of("44.98"));
+        assertThat(order.getTaxAmount()).isEqualTo(Money.of("9.00"));
+        assertThat(order.getShippingCost()).isEqualTo(Money.of("10.00"));
+        assertThat(order.getTotalAmount()).isEqualTo(Money.of("63.98")).isEqualTo(ingested.getTotalAmount());
+        assertThat(order.getPaymentInfo().getPaymentStatus()).isEqualTo(PaymentStatus.PENDING);
+        assertThat(order.getItems()).extracting(OrderItem::getQuantity).containsExactly(2, 1);
+        assertThat(new String(ingested.getPayload(), StandardCharsets.UTF_8)).doesNotContain("claimCheck");
+    }
+
+    @Test
+    void scalarsAreWrittenInTheirBoundForm() throws Exception {
+        String body = ORDER
+                .replace("\"Marie Dubois\"", "42")
+                .replace("\"quantity\": 2", "\"quantity\": \"2\"")
+                .replace("\"unitPrice\": 19.99", "\"unitPrice\": \"19.99\"")
+                .replace("\"weight\": 0.1", "\"weight\": \"0.1\"");
+        Order typed = objectMapper.readValue(body, Order.class);
+
+        Order raw = objectMapper.readValue(ingest(body).getPayload(), Order.class);
+
+        assertThat(raw.getCustomerName()).isEqualTo(typed.getCustomerName()).isEqualTo("42");
+        assertThat(raw.getItems().get(0)).isEqualTo(typed.getItems().get(0));
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "\"customerName\": \"Marie Dubois\"     | \"customerName\": {}",
+            "\"customerEmail\": \"marie@example.com\" | \"customerEmail\": [\"marie@example.com\"]",
+            "\"weight\": 0.1                        | \"weight\": \"heavy\"",
+            "\"unitPrice\": 19.99                   | \"unitPrice\": \"abc\"",
+            "\"quantity\": 2                        | \"quantity\": \"two\"",
+            "\"productId\": \"PROD-002\"            | \"productId\": {\"id\": 2}",
+            "\"city\": \"Paris\"                    | \"city\": [\"Paris\"]",
+            "\"paymentStatus\": \"PENDING\"         | \"paymentStatus\": \"SETTLED\"",
+            "\"paymentMethod\": \"CREDIT_CARD\"     | \"paymentMethod\": {}",
+            "\"shippingAddress\": {                 | \"shippingAddress\": \"Paris\", \"ignored\": {",
+            "\"paymentInfo\": {                     | \"paymentInfo\": \"card\", \"ignored\": {",
+    })
+    void valueTheTypedEndpointCannotBindIsMalformed(String field, String replacement) {
+        String body = ORDER.replace(field.trim(), replacement.trim());
+        assertThat(body).isNotEqualTo(ORDER);
+
+        assertMalformedForBothEndpoints(body);
+    }
+
+    @Test
+    void itemsThatAreNotAnArrayAreMalformed() {
+        String body = ORDER
+                .replace("\"items\": [", "\"items\": {\"first\": [")
+                .replace("5.00}\n  ],", "5.00}\n  ]},");
+        assertThat(body).contains("]},");
+
+        assertMalformedForBothEndpoints(body);
+    }
+
+    @Test
+    void duplicateFieldIsRejectedInsteadOfSummedTwice() {
+        String body = ORDER.replace("\"shippingAddress\"",
+                "\"items\": [{\"productId\": \"PROD-001\", \"quantity\": 1, \"totalPrice\": 1000}],\n  \"shippingAddress\"");
+
+        assertThatThrownBy(() -> ingest(body))
+                .isInstanceOf(JsonParseException.class)
+                .hasMessageContaining("items");
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "\"marie@example.com\"   | \"marie.example.com\"",
+            "\"quantity\": 2         | \"quantity\": 0",
+            "\"totalPrice\": 5.00    | \"totalPrice\": null",
+            "\"totalPrice\": 5.00    | \"totalPrice\": \"5.00 USD\"",
+            "\"street\": \"42 Avenue des Champs-Élysées\", | ",
+    })
+    void invalidOrderViolatesTheSameRuleAsTheTypedEndpoint(String field, String replacement) throws Exception {
+        String body = ORDER.replace(field.trim(), replacement == null ? "" : replacement.trim());
+        ValidationRule typedRule = orderValidator.checkContents(objectMapper.readValue(body, Order.class));
+
+        RawOrderIngestor.IngestedOrder ingested = ingest(body);
+
+        assertThat(typedRule).isNotNull();
+        assertThat(ingested.isAccepted()).isFalse();
+        assertThat(ingested.getViolatedRule()).isEqualTo(typedRule);
+    }
+
+    private void assertMalformedForBothEndpoints(String body) {
+        assertThatThrownBy(() -> objectMapper.readValue(body, Order.class)).isInstanceOf(JsonProcessingException.class);
+        assertThatThrownBy(() -> ingest(body)).isInstanceOf(JsonParseException.class);
+    }
+
+    private RawOrderIngestor.IngestedOrder ingest(String body) throws Exception {
+        return ingestor.ingest(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.kafka.loadgen;
+
+import com.example.kafka.KafkaOrderSystemApplication;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the whole application against an embedded single-node broker, drives it with the
+ * {@link LoadGenerator} and prints the resulting {@link LoadReport}.
+ *
+ * <p>Extra arguments are passed to Spring, e.g.
+ * {@code --app.loadgen.rate-per-second=200 --app.loadgen.duration-seconds=120}.
+ */
+@Slf4j
+public class EmbeddedPipelineBenchmark {
+
+    private static final int DEFAULT_PARTITIONS = 5;
+
+    public static void main(String[] args) throws Exception {
+        EmbeddedKafkaBroker broker = new EmbeddedKafkaBroker(1, true, DEFAULT_PARTITIONS)
+                // Single broker: lets the exactly-once choreography engine create its transaction log.
+                .brokerProperty("transaction.state.log.replication.factor", "1")
+                .brokerProperty("transaction.state.log.min.isr", "1");
+        broker.afterPropertiesSet();
+
+        Path stateDir = Files.createTempDirectory("benchmark-streams-state");
+
+        List<String> springArgs = new ArrayList<>(List.of(
+                "--spring.kafka.bootstrap-servers=" + broker.getBrokersAsString(),
+                "--app.streams.state-dir=" + stateDir,
+                "--app.streams.num-standby-replicas=0",
+                "--app.loadgen.enabled=true",
+                "--server.port=0"
+        ));
+        // The application does not start without a ULID node id; this is its only instance.
+        if (Arrays.stream(args).noneMatch(arg -> arg.startsWith("--app.ids.node-id="))) {
+            springArgs.add("--app.ids.node-id=0");
+        }
+        springArgs.addAll(List.of(args));
+
+        int exitCode = 0;
+        try (ConfigurableApplicationContext context =
+                     SpringApplication.run(KafkaOrderSystemApplication.class, springArgs.toArray(new String[0]))) {
+            LoadGenerator generator = context.getBean(LoadGenerator.class);
+            LoadReport report = generator.getReport().get(1, TimeUnit.HOURS);
+            System.out.println(report.format());
+        } catch (Exception e) {
+            log.error("❌ Benchmark failed: {}", e.getMessage(), e);
+            exitCode = 1;
+        } finally {
+            broker.destroy();
+        }
+        System.exit(exitCode);
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.kafka.model;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.serialization.Serde;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Currency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyTest {
+
+    private static final Currency EUR = Currency.getInstance("EUR");
+    private static final Currency USD = Currency.getInstance("USD");
+    private static final Currency JPY = Currency.getInstance("JPY");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @ParameterizedTest
+    @CsvSource({
+            "19.99,    1999",
+            "19.9,     1990",
+            "19,       1900",
+            "+5,       500",
+            "-0.05,    -5",
+            ".5,       50",
+            "19.990,   1999",
+            "1e3,      100000",
+            "0,        0",
+    })
+    void parsesAmountsIntoMinorUnits(String amount, long minorUnits) {
+        assertThat(Money.of(amount, EUR)).isEqualTo(Money.ofMinor(minorUnits, EUR));
+    }
+
+    @Test
+    void parsesWithTheScaleOfTheCurrency() {
+        assertThat(Money.of("2500", JPY).getMinorUnits()).isEqualTo(2500);
+        assertThat(Money.of("19.99 USD")).isEqualTo(Money.ofMinor(1999, USD));
+        assertThat(Money.of("19.99")).isEqualTo(Money.ofMinor(1999, Money.DEFAULT_CURRENCY));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"19.999", "19.991", "92233720368547758.08", "1e-3"})
+    void rejectsAmountsThatDoNotFitTheMinorUnits(String amount) {
+        assertThatThrownBy(() -> Money.of(amount, EUR)).isInstanceOf(ArithmeticException.class);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "-", ".", "abc", "1.2.3", "12,50"})
+    void rejectsTextThatIsNotAnAmount(String amount) {
+        assertThatThrownBy(() -> Money.of(amount, EUR)).isInstanceOf(NumberFormatException.class);
+    }
+
+    @Test
+    void rejectsJapaneseDecimals() {
+        assertThatThrownBy(() -> Money.of("100.5", JPY)).isInstanceOf(ArithmeticException.class);
+        assertThat(Money.of("100.0", JPY).getMinorUnits()).isEqualTo(100);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "44.98,  2000, 9.00",
+            "0.05,   5000, 0.03",
+            "-0.05,  5000, -0.03",
+            "0.01,   4999, 0.00",
+            "0.01,   5000, 0.01",
+            "100.00, 2000, 20.00",
+            "-44.98, 2000, -9.00",
+    })
+    void percentRoundsHalfUpAwayFromZero(String amount, long basisPoints, String expected) {
+        assertThat(Money.of(amount, EUR).percent(basisPoints)).isEqualTo(Money.of(expected, EUR));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "1999,  19.99",
+            "5,     0.05",
+            "-5,    -0.05",
+            "-50,   -0.50",
+            "-100,  -1.00",
+            "0,     0.00",
+            "-123456, -1234.56",
+    })
+    void toPlainStringKeepsTheCurrencyScale(long minorUnits, String expected) {
+        assertThat(Money.ofMinor(minorUnits, EUR).toPlainString()).isEqualTo(expected);
+    }
+
+    @Test
+    void toPlainStringOfAZeroScaleCurrencyHasNoDecimalPoint() {
+        assertThat(Money.ofMinor(-2500, JPY).toPlainString()).isEqualTo("-2500");
+        assertThat(Money.ofMinor(7, JPY).toString()).isEqualTo("7 JPY");
+    }
+
+    @Test
+    void defaultCurrencyIsWrittenAsABareNumber() throws Exception {
+        assertThat(objectMapper.writeValueAsString(Money.of("2499.99"))).isEqualTo("2499.99");
+        assertThat(objectMapper.writeValueAsString(Money.of("-0.05"))).isEqualTo("-0.05");
+        assertThat(objectMapper.writeValueAsString(Money.of("2499.99 USD"))).isEqualTo("\"2499.99 USD\"");
+    }
+
+    @Test
+    void readsNumbersAndText() throws Exception {
+        assertThat(objectMapper.readValue("2499.99", Money.class)).isEqualTo(Money.of("2499.99"));
+        assertThat(objectMapper.readValue("10", Money.class)).isEqualTo(Money.of("10.00"));
+        assertThat(objectMapper.readValue("\" 19.99 \"", Money.class)).isEqualTo(Money.of("19.99"));
+        assertThat(objectMapper.readValue("\"2499.99 USD\"", Money.class)).isEqualTo(Money.ofMinor(249999, USD));
+    }
+
+    @Test
+    void jsonRoundTripKeepsTheCurrency() throws Exception {
+        for (Money amount : new Money[]{Money.of("0.01"), Money.of("-12.30"), Money.of("99.95 USD"), Money.of("5 JPY")}) {
+            String json = objectMapper.writeValueAsString(amount);
+            assertThat(objectMapper.readValue(json, Money.class)).isEqualTo(amount);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"19.999", "\"abc\"", "\"12 XXX\"", "true", "{}", "[1]"})
+    void rejectsJsonThatIsNotAnAmount(String json) {
+        assertThatThrownBy(() -> objectMapper.readValue(json, Money.class)).isInstanceOf(JsonProcessingException.class);
+    }
+
+    @Test
+    void serdeRoundTripsInElevenBytes() {
+        Serde<Money> serde = Money.serde();
+        for (Money amount : new Money[]{Money.of("2499.99"), Money.ofMinor(Long.MIN_VALUE, EUR), Money.of("-3 JPY"),
+                Money.of("0.01 USD")}) {
+            byte[] bytes = serde.serializer().serialize("topic", amount);
+
+            assertThat(bytes).hasSize(11);
+            assertThat(serde.deserializer().deserialize("topic", bytes)).isEqualTo(amount);
+        }
+    }
+
+    @Test
+    void serdePassesNullThrough() {
+        Serde<Money> serde = Money.serde();
+
+        assertThat(serde.serializer().serialize("topic", null)).isNull();
+        assertThat(serde.deserializer().deserialize("topic", null)).isNull();
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.kafka.projection;
+
+import com.example.kafka.claimcheck.ClaimCheck;
+import com.example.kafka.model.Order;
+import com.example.kafka.model.OrderStatus;
+import com.example.kafka.model.PaymentStatus;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.JacksonUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderProjectionTest {
+
+    private static final String REFERENCE = "sha256-" + "ab".repeat(32);
+
+    /**
+     * Top-level fields of the input record, as written upstream: compact, with numbers and text
+     * in forms Jackson would not produce itself.
+     */
+    private static final Map<String, String> FIELDS = new LinkedHashMap<>();
+
+    static {
+        FIELDS.put("orderId", "\"01HORDER\"");
+        FIELDS.put("customerId", "\"CUST-1\"");
+        FIELDS.put("customerName", "\"Marie Dubois\"");
+        FIELDS.put("customerEmail", "\"marie@example.com\"");
+        FIELDS.put("items", "[{\"productId\":\"P1\",\"quantity\":2,\"unitPrice\":19.90,\"totalPrice\":39.80,\"weight\":1.50}]");
+        FIELDS.put("subtotal", "39.80");
+        FIELDS.put("taxAmount", "7.96");
+        FIELDS.put("shippingCost", "10.00");
+        FIELDS.put("totalAmount", "57.76");
+        FIELDS.put("status", "\"VALIDATED\"");
+        FIELDS.put("priority", "\"EXPRESS\"");
+        FIELDS.put("createdAt", "\"2026-10-19T10:00:00\"");
+        FIELDS.put("updatedAt", "\"2026-10-19T10:00:01\"");
+        FIELDS.put("shippingAddress", "{\"street\":\"1 rue de la Paix\",\"city\":\"Paris\"}");
+        FIELDS.put("paymentInfo", "{\"paymentMethod\":\"CREDIT_CARD\",\"paymentStatus\":\"PENDING\"}");
+        FIELDS.put("notes", "\"Fragile – à livrer en mains propres\"");
+        FIELDS.put("futureField", "{\"nested\":[1,2.50,null,true,1E+3]}");
+    }
+
+    private final ObjectMapper objectMapper = JacksonUtils.enhancedObjectMapper();
+
+    @Test
+    void fieldsOutsideTheProjectionAreCopiedByteForByte() {
+        OrderProjection projection = project(OrderProjection.INVENTORY, json(FIELDS), null);
+
+        String output = new String(projection.toBytes(), StandardCharsets.UTF_8);
+
+        String untouched = json(without(FIELDS, OrderProjection.INVENTORY));
+        assertThat(output).startsWith(untouched.substring(0, untouched.length() - 1) + ",");
+    }
+
+    @Test
+    void projectedFieldsAreWrittenFromTheirCurrentValues() throws Exception {
+        OrderProjection projection = project(OrderProjection.INVENTORY, json(FIELDS), null);
+        Order order = projection.getOrder();
+        order.setStatus(OrderStatus.INVENTORY_RESERVED);
+        order.setUpdatedAt(LocalDateTime.of(2026, 10, 19, 10, 0, 5));
+        order.getItems().get(0).setQuantity(3);
+
+        byte[] output = projection.toBytes();
+
+        Order forwarded = objectMapper.readValue(output, Order.class);
+        assertThat(forwarded.getStatus()).isEqualTo(OrderStatus.INVENTORY_RESERVED);
+        assertThat(forwarded.getUpdatedAt()).isEqualTo(LocalDateTime.of(2026, 10, 19, 10, 0, 5));
+        assertThat(forwarded.getItems().get(0).getQuantity()).isEqualTo(3);
+        assertThat(forwarded.getOrderId()).isEqualTo("01HORDER");
+        assertThat(forwarded.getCustomerName()).isEqualTo("Marie Dubois");
+
+        JsonNode tree = objectMapper.readTree(output);
+        assertThat(tree.size()).isEqualTo(FIELDS.size());
+        assertThat(tree.get("futureField")).isEqualTo(objectMapper.readTree(FIELDS.get("futureField")));
+    }
+
+    @Test
+    void paymentProjectionForwardsAClaimCheckEnvelopeWithoutTheBody() throws Exception {
+        Map<String, String> envelopeFields = new LinkedHashMap<>();
+        envelopeFields.put(ClaimCheck.REFERENCE_FIELD, "\"" + REFERENCE + "\"");
+        envelopeFields.putAll(FIELDS);
+        ClaimCheck.BODY_FIELDS.forEach(envelopeFields::remove);
+        Headers headers = new RecordHeaders();
+        ClaimCheck.markEnvelope(headers, REFERENCE);
+
+        OrderProjection projection = project(OrderProjection.PAYMENT, json(envelopeFields), headers);
+        projection.getOrder().setStatus(OrderStatus.PAYMENT_COMPLETED);
+        projection.getOrder().getPaymentInfo().setPaymentStatus(PaymentStatus.CAPTURED);
+        String output = new String(projection.toBytes(), StandardCharsets.UTF_8);
+        Headers forwardedHeaders = new RecordHeaders();
+        projection.addClaimCheckHeader(forwardedHeaders);
+
+        // The reference stays the leading field, which ClaimCheck checks against the header.
+        assertThat(output).startsWith("{\"claimCheck\":\"" + REFERENCE + "\",\"customerName\":\"Marie Dubois\",");
+        assertThat(ClaimCheck.envelopeReference(forwardedHeaders)).isEqualTo(REFERENCE);
+
+        JsonNode tree = objectMapper.readTree(output);
+        assertThat(tree.get("status").asText()).isEqualTo("PAYMENT_COMPLETED");
+        assertThat(tree.get("paymentInfo").get("paymentStatus").asText()).isEqualTo("CAPTURED");
+        ClaimCheck.BODY_FIELDS.forEach(field -> assertThat(tree.has(field)).as(field).isFalse());
+    }
+
+    @Test
+    void plainRecordIsNotMarkedAsAnEnvelope() {
+        OrderProjection projection = project(OrderProjection.PAYMENT, json(FIELDS), new RecordHeaders());
+        Headers forwardedHeaders = new RecordHeaders();
+
+        projection.addClaimCheckHeader(forwardedHeaders);
+
+        assertThat(ClaimCheck.envelopeReference(forwardedHeaders)).isNull();
+    }
+
+    private static OrderProjection project(Set<String> fields, String json, Headers headers) {
+        return new OrderProjectionDeserializer(fields).deserialize("order.inventory", headers,
+                json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String json(Map<String, String> fields) {
+        return fields.entrySet().stream()
+                .map(field -> "\"" + field.getKey() + "\":" + field.getValue())
+                .collect(Collectors.joining(",", "{", "}"));
+    }
+
+    private static Map<String, String> without(Map<String, String> fields, Set<String> excluded) {
+        Map<String, String> remaining = new LinkedHashMap<>(fields);
+        remaining.keySet().removeAll(excluded);
+        return remaining;
+    }
+}
@@ -0,0 +1,262 @@
+package com.example.kafka.streams;
+
+import com.example.kafka.config.AnalyticsStreamsProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TestOutputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.KStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class OrderAnalyticsStreamsTest {
+
+    private static final Instant T0 = Instant.parse("2026-01-05T10:00:00Z");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path stateDir;
+
+    private TopologyTestDriver driver;
+    private TestInputTopic<String, String> orderCreated;
+    private TestInputTopic<String, String> orderEvents;
+    private TestOutputTopic<String, String> analyticsTopic;
+
+    @BeforeEach
+    void setUp() {
+        startDriver(new AnalyticsStreamsProperties());
+    }
+
+    private void startDriver(AnalyticsStreamsProperties properties) {
+        StreamsBuilder builder = new StreamsBuilder();
+        KStream<String, String> created = builder.stream("order.created", Consumed.with(Serdes.String(), Serdes.String()));
+        KStream<String, String> events = builder.stream("order.events", Consumed.with(Serdes.String(), Serdes.String()));
+        new OrderAnalyticsStreams(properties).buildAnalyticsTopology(builder, created, events);
+
+        Properties props = new Properties();
+        props.put(StreamsConfig.APPLICATION_ID_CONFIG, "order-analytics-test");
+        props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        props.put(StreamsConfig.STATE_DIR_CONFIG, stateDir.toString());
+        props.put(StreamsConfig.STATESTORE_CACHE_MAX_BYTES_CONFIG, 0);
+        props.put(StreamsConfig.DEFAULT_KEY_SERDE_CLASS_CONFIG, Serdes.String().getClass().getName());
+        props.put(StreamsConfig.DEFAULT_VALUE_SERDE_CLASS_CONFIG, Serdes.String().getClass().getName());
+
+        driver = new TopologyTestDriver(builder.build(), props, T0);
+        orderCreated = driver.createInputTopic("order.created", new StringSerializer(), new StringSerializer());
+        orderEvents = driver.createInputTopic("order.events", new StringSerializer(), new StringSerializer());
+        analyticsTopic = driver.createOutputTopic("order.analytics", new StringDeserializer(), new StringDeserializer());
+    }
+
+    @AfterEach
+    void tearDown() {
+        driver.close();
+    }
+
+    @Test
+    void statusCountsAreEmittedOnceTheWindowCloses() {
+        orderEvents.pipeInput("o1", event("o1", "CONFIRMED"), T0);
+        orderEvents.pipeInput("o2", event("o2", "CONFIRMED"), T0.plusSeconds(60));
+        assertThat(output("STATUS_COUNT")).isEmpty();
+
+        orderEvents.pipeInput("o3", event("o3", "PROCESSING"), T0.plus(Duration.ofMinutes(6)));
+
+        List<JsonNode> counts = output("STATUS_COUNT");
+        assertThat(counts).hasSize(1);
+        assertThat(counts.get(0).get("status").asText()).isEqualTo("CONFIRMED");
+        assertThat(counts.get(0).get("count").asLong()).isEqualTo(2);
+        assertThat(counts.get(0).get("windowStart").asText()).isEqualTo(T0.toString());
+    }
+
+    @Test
+    void statusCountsFollowTheConfiguredEmitMode() {
+        driver.close();
+        AnalyticsStreamsProperties properties = new AnalyticsStreamsProperties();
+        properties.getEmit().setStatusCount(AnalyticsEmitMode.ON_UPDATE);
+        startDriver(properties);
+
+        orderEvents.pipeInput("o1", event("o1", "CONFIRMED"), T0);
+        orderEvents.pipeInput("o2", event("o2", "CONFIRMED"), T0.plusSeconds(60));
+
+        List<JsonNode> counts = output("STATUS_COUNT");
+        assertThat(counts).extracting(count -> count.get("count").asLong()).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void revenueWindowIsMergedFromPartialSums() {
+        orderCreated.pipeInput("o1", order("o1", "c1", "NORMAL", "100.00", "P1"), T0);
+        orderCreated.pipeInput("o2", order("o2", "c2", "NORMAL", "50.50", "P1"), T0.plusSeconds(1));
+        driver.advanceWallClockTime(Duration.ofSeconds(5));
+        assertThat(output("TOTAL_REVENUE")).isEmpty();
+
+        orderCreated.pipeInput("o3", order("o3", "c3", "NORMAL", "20.00", "P2"), T0.plus(Duration.ofMinutes(11)));
+        driver.advanceWallClockTime(Duration.ofSeconds(5));
+
+        List<JsonNode> revenue = output("TOTAL_REVENUE");
+        assertThat(revenue).hasSize(1);
+        assertThat(revenue.get(0).get("amount").decimalValue()).isEqualByComparingTo("150.50");
+        assertThat(revenue.get(0).get("windowStart").asText()).isEqualTo(T0.toString());
+    }
+
+    @Test
+    void topProductsAreEmittedWhenTheWindowCloses() {
+        orderCreated.pipeInput("o1", order("o1", "c1", "NORMAL", "10.00", "P1"), T0);
+        orderCreated.pipeInput("o2", order("o2", "c2", "NORMAL", "10.00", "P1"), T0.plusSeconds(1));
+        orderCreated.pipeInput("o3", order("o3", "c3", "NORMAL", "10.00", "P2"), T0.plusSeconds(2));
+        driver.advanceWallClockTime(Duration.ofSeconds(30));
+
+        orderCreated.pipeInput("o4", order("o4", "c4", "NORMAL", "10.00", "P3"), T0.plus(Duration.ofMinutes(17)));
+        driver.advanceWallClockTime(Duration.ofSeconds(30));
+
+        List<JsonNode> top = output("TOP_PRODUCTS");
+        assertThat(top).hasSize(1);
+        assertThat(top.get(0).get("totalItems").asLong()).isEqualTo(3);
+        assertThat(top.get(0).get("products").get(0).get("productId").asText()).isEqualTo("P1");
+        assertThat(top.get(0).get("products").get(0).get("count").asLong()).isEqualTo(2);
+    }
+
+    @Test
+    void orderStatisticsEstimateDistinctCustomersAndAmountPercentiles() {
+        // 200 orders of 1.00 to 200.00 from 50 customers.
+        for (int i = 0; i < 200; i++) {
+            String orderId = "o" + i;
+            orderCreated.pipeInput(orderId, order(orderId, "c" + (i % 50), "NORMAL", (i + 1) + ".00", "P1"),
+                    T0.plusSeconds(i));
+        }
+        driver.advanceWallClockTime(Duration.ofSeconds(30));
+        assertThat(output("ORDER_STATS")).isEmpty();
+
+        orderCreated.pipeInput("late", order("late", "c999", "NORMAL", "10.00", "P1"), T0.plus(Duration.ofHours(2)));
+        driver.advanceWallClockTime(Duration.ofSeconds(30));
+
+        List<JsonNode> stats = output("ORDER_STATS");
+        assertThat(stats).hasSize(1);
+        assertThat(stats.get(0).get("windowStart").asText()).isEqualTo(T0.toString());
+        assertThat(stats.get(0).get("orderCount").asLong()).isEqualTo(200);
+        assertThat(stats.get(0).get("totalAmount").asDouble()).isCloseTo(20_100.0, within(0.01));
+        assertThat(stats.get(0).get("distinctCustomers").asLong()).isBetween(48L, 52L);
+        assertThat(stats.get(0).get("p50").asDouble()).isBetween(98.0, 102.0);
+        assertThat(stats.get(0).get("p95").asDouble()).isBetween(186.0, 194.0);
+    }
+
+    @Test
+    void highValueOrderWithoutHistoryRaisesOneCollapsedAlert() {
+        orderCreated.pipeInput("o1", order("o1", "c1", "NORMAL", "5000.00", "P1"), T0);
+        assertThat(output("HIGH_VALUE_ORDER")).isEmpty();
+
+        driver.advanceWallClockTime(Duration.ofSeconds(10));
+
+        List<KeyValue<String, JsonNode>> alerts = outputRecords("HIGH_VALUE_ORDER");
+        assertThat(alerts).hasSize(1);
+        assertThat(alerts.get(0).key).isEqualTo("o1");
+        List<String> dimensions = new ArrayList<>();
+        alerts.get(0).value.get("reasons").forEach(reason -> dimensions.add(reason.get("dimension").asText()));
+        assertThat(dimensions).containsExactlyInAnyOrder("CUSTOMER", "CATEGORY");
+    }
+
+    @Test
+    void orderStuckInAStageBreachesItsPrioritySla() {
+        orderCreated.pipeInput("o1", order("o1", "c1", "EXPRESS", "50.00", "P1"), T0);
+        orderCreated.pipeInput("o2", order("o2", "c2", "EXPRESS", "50.00", "P1"), T0);
+        orderEvents.pipeInput("o2", event("o2", "SHIPPED"), T0.plusSeconds(10));
+
+        driver.advanceWallClockTime(Duration.ofSeconds(20));
+        assertThat(output("SLA_BREACH")).isEmpty();
+
+        driver.advanceWallClockTime(Duration.ofSeconds(20));
+        List<KeyValue<String, JsonNode>> breaches = outputRecords("SLA_BREACH");
+        assertThat(breaches).hasSize(1);
+        assertThat(breaches.get(0).key).isEqualTo("o1");
+        assertThat(breaches.get(0).value.get("priority").asText()).isEqualTo("EXPRESS");
+        assertThat(breaches.get(0).value.get("stage").asText()).isEqualTo(OrderSlaMonitor.CREATED_STAGE);
+
+        driver.advanceWallClockTime(Duration.ofSeconds(30));
+        assertThat(output("SLA_BREACH")).isEmpty();
+    }
+
+    @Test
+    void slaIsMeasuredFromArrivalNotFromRecordTimestamps() {
+        // Replayed backlog, older than the pending TTL, and a record far ahead of the wall clock.
+        orderCreated.pipeInput("o1", order("o1", "c1", "EXPRESS", "50.00", "P1"), T0.minus(Duration.ofDays(2)));
+        orderCreated.pipeInput("o2", order("o2", "c2", "EXPRESS", "50.00", "P1"), T0.plus(Duration.ofHours(1)));
+
+        driver.advanceWallClockTime(Duration.ofSeconds(20));
+        assertThat(output("SLA_BREACH")).isEmpty();
+
+        driver.advanceWallClockTime(Duration.ofSeconds(20));
+        assertThat(outputRecords("SLA_BREACH")).extracting(breach -> breach.key)
+                .containsExactlyInAnyOrder("o1", "o2");
+    }
+
+    private List<JsonNode> output(String type) {
+        return outputRecords(type).stream().map(record -> record.value).toList();
+    }
+
+    /**
+     * Records of {@code type} written to order.analytics since the previous call.
+     */
+    private List<KeyValue<String, JsonNode>> outputRecords(String type) {
+        List<KeyValue<String, JsonNode>> records = new ArrayList<>();
+        for (KeyValue<String, String> record : analyticsTopic.readKeyValuesToList()) {
+            JsonNode value = parse(record.value);
+            if (type.equals(value.path("type").asText())) {
+                records.add(KeyValue.pair(record.key, value));
+            }
+        }
+        return records;
+    }
+
+    private String order(String orderId, String customerId, String priority, String amount, String productId) {
+        ObjectNode order = objectMapper.createObjectNode()
+                .put("orderId", orderId)
+                .put("customerId", customerId)
+                .put("customerName", "Customer " + customerId)
+                .put("priority", priority)
+                .put("totalAmount", new BigDecimal(amount));
+        order.putArray("items").addObject()
+                .put("productId", productId)
+                .put("category", "electronics")
+                .put("quantity", 1)
+                .put("totalPrice", new BigDecimal(amount));
+        return order.toString();
+    }
+
+    private String event(String orderId, String newStatus) {
+        return objectMapper.createObjectNode()
+                .put("orderId", orderId)
+                .put("newStatus", newStatus)
+                .toString();
+    }
+
+    private JsonNode parse(String value) {
+        try {
+            return objectMapper.readTree(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.kafka.streams;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class RollingStatsTest {
+
+    private static final double ALPHA = 0.05;
+
+    @Test
+    void constantHistoryStillFlagsAFarValue() {
+        RollingStats stats = history(100.0, 20);
+
+        assertThat(stats.stdDev()).isZero();
+        // Floored at 1% of the mean: 400 away from a mean of 100 is 400 standard deviations.
+        assertThat(stats.zScore(500.0)).isCloseTo(400.0, within(1e-9));
+        assertThat(stats.zScore(100.5)).isCloseTo(0.5, within(1e-9));
+        assertThat(stats.zScore(100.0)).isZero();
+    }
+
+    @Test
+    void constantZeroHistoryUsesTheAbsoluteFloor() {
+        RollingStats stats = history(0.0, 20);
+
+        assertThat(stats.zScore(1.0)).isCloseTo(1.0 / RollingStats.MIN_ABSOLUTE_STD_DEV, within(1e-9));
+    }
+
+    @Test
+    void varyingHistoryUsesItsOwnStandardDeviation() {
+        RollingStats stats = new RollingStats();
+        for (int i = 0; i < 200; i++) {
+            stats.update(i % 2 == 0 ? 80.0 : 120.0, ALPHA);
+        }
+
+        assertThat(stats.stdDev()).isGreaterThan(stats.mean() * RollingStats.MIN_RELATIVE_STD_DEV);
+        assertThat(stats.zScore(stats.mean() + stats.stdDev())).isCloseTo(1.0, within(1e-9));
+    }
+
+    @Test
+    void serdeRoundTripsTheState() {
+        RollingStats stats = history(42.0, 3);
+        stats.update(50.0, ALPHA);
+
+        byte[] bytes = RollingStats.serde().serializer().serialize("topic", stats);
+        RollingStats copy = RollingStats.serde().deserializer().deserialize("topic", bytes);
+
+        assertThat(copy.count()).isEqualTo(stats.count());
+        assertThat(copy.mean()).isEqualTo(stats.mean());
+        assertThat(copy.stdDev()).isEqualTo(stats.stdDev());
+    }
+
+    private static RollingStats history(double value, int samples) {
+        RollingStats stats = new RollingStats();
+        for (int i = 0; i < samples; i++) {
+            stats.update(value, ALPHA);
+        }
+        return stats;
+    }
+}